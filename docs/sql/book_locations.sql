@@ -0,0 +1,16 @@
+-- Componentes de la ubicación y clave única por ubicación.
+-- Aplicar antes de desplegar con JPA_DDL_AUTO=validate. Las columnas de las filas existentes las
+-- rellena BookLocationBackfill al arrancar (quedan en NULL hasta entonces). Los libros sin ubicación
+-- ("---"), con una ubicación no válida o que repiten la de otro libro se quedan sin clave.
+
+ALTER TABLE books
+    ADD COLUMN location_key VARCHAR(6) NULL,
+    ADD COLUMN location_shelf VARCHAR(6) NULL,
+    ADD COLUMN location_section VARCHAR(1) NULL,
+    ADD COLUMN location_position INT NULL;
+
+-- MySQL admite varios NULL en una clave única
+ALTER TABLE books ADD CONSTRAINT uk_books_location_key UNIQUE (location_key);
+
+-- Mismas columnas y orden que el recorrido del árbol de ubicaciones
+CREATE INDEX idx_books_location ON books (location_shelf, location_section, location_position, id);
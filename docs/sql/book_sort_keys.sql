@@ -0,0 +1,25 @@
+-- Columnas de ordenamiento para la paginación por cursor de /api/books.
+-- Aplicar antes de desplegar con JPA_DDL_AUTO=validate. Las claves de las filas existentes las
+-- rellena BookSortKeyBackfill al arrancar (las columnas quedan en NULL hasta entonces).
+
+ALTER TABLE books
+    ADD COLUMN title_sort_key VARBINARY(512) NULL,
+    ADD COLUMN author_sort_key VARBINARY(512) NULL,
+    ADD COLUMN publisher_sort_key VARBINARY(256) NULL,
+    ADD COLUMN publication_year_sort_key VARBINARY(32) NULL,
+    ADD COLUMN author_unknown BIT NOT NULL DEFAULT 0,
+    ADD COLUMN publisher_unknown BIT NOT NULL DEFAULT 0,
+    ADD COLUMN publication_year_unknown BIT NOT NULL DEFAULT 0;
+
+-- Mismas columnas, orden y dirección que el ORDER BY de las consultas de BookRepository
+CREATE INDEX idx_books_title_sort ON books (title_sort_key, id);
+CREATE INDEX idx_books_author_sort ON books (author_unknown, author_sort_key, title_sort_key, id);
+CREATE INDEX idx_books_publisher_sort ON books (publisher_unknown, publisher_sort_key, title_sort_key, id);
+CREATE INDEX idx_books_publication_year_sort
+    ON books (publication_year_unknown, publication_year_sort_key DESC, title_sort_key, id);
+
+-- Los índices sobre las columnas de texto ya no los usa ninguna consulta
+DROP INDEX idx_books_title ON books;
+DROP INDEX idx_books_author ON books;
+DROP INDEX idx_books_publisher ON books;
+DROP INDEX idx_books_publication_year ON books;
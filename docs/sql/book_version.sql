@@ -0,0 +1,4 @@
+-- Columna de bloqueo optimista (@Version) de los libros.
+-- Aplicar antes de desplegar con JPA_DDL_AUTO=validate. Las filas existentes empiezan en 0.
+
+ALTER TABLE books ADD COLUMN version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,11 @@
+-- Versión del catálogo compartida por todos los nodos (ETag de las lecturas del catálogo).
+-- Aplicar antes de desplegar con JPA_DDL_AUTO=validate. CatalogVersionService crea la fila al arrancar
+-- si no existe; el INSERT solo la adelanta.
+
+CREATE TABLE catalog_version (
+    id BIGINT NOT NULL,
+    version BIGINT NOT NULL,
+    PRIMARY KEY (id)
+);
+
+INSERT IGNORE INTO catalog_version (id, version) VALUES (1, 1);
@@ -2,8 +2,13 @@ package com.williammedina.biblioteca;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
-@SpringBootApplication
+// El login verifica la contraseña en UserService y el resto de peticiones usan el JWT: sin el
+// usuario en memoria con contraseña generada que Spring Boot crea si no hay UserDetailsService
+@SpringBootApplication(exclude = UserDetailsServiceAutoConfiguration.class)
+@EnableScheduling
 public class BibliotecaApplication {
 
 	public static void main(String[] args) {
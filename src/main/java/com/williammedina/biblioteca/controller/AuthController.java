@@ -15,6 +15,8 @@ import lombok.AllArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.concurrent.CompletableFuture;
+
 @RestController
 @RequestMapping(value = "/auth", produces = "application/json")
 @Tag(name = "Auth", description = "Endpoints for user authentication.")
@@ -30,12 +32,13 @@ public class AuthController {
                     @ApiResponse(responseCode = "200", description = "Authentication successful", content = @Content(schema = @Schema(example = "token"))),
                     @ApiResponse(responseCode = "400", description = "Invalid request data", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
                     @ApiResponse(responseCode = "401", description = "User does not exist or incorrect password", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+                    @ApiResponse(responseCode = "429", description = "Too many concurrent logins, retry after the Retry-After header", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+                    @ApiResponse(responseCode = "503", description = "Password verification is busy, retry after the Retry-After header", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
             }
     )
     @PostMapping("/login")
-    public ResponseEntity<String> login(@RequestBody @Valid LoginUserDTO request){
-        String responseToken = userService.authenticateAndGenerateToken(request);
-        return ResponseEntity.ok(responseToken);
+    public CompletableFuture<ResponseEntity<String>> login(@RequestBody @Valid LoginUserDTO request){
+        return userService.authenticateAndGenerateToken(request).thenApply(ResponseEntity::ok);
     }
 
     @Operation(
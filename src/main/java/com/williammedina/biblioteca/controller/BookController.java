@@ -4,10 +4,17 @@ package com.williammedina.biblioteca.controller;
 import com.williammedina.biblioteca.domain.book.service.BookService;
 import com.williammedina.biblioteca.domain.book.dto.BookCountDTO;
 import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+import com.williammedina.biblioteca.domain.book.dto.BookImportReportDTO;
+import com.williammedina.biblioteca.domain.book.dto.BookPageDTO;
+import com.williammedina.biblioteca.domain.book.dto.CoverStatusDTO;
 import com.williammedina.biblioteca.domain.book.dto.InputBookDTO;
 import com.williammedina.biblioteca.domain.book.dto.LocationDTO;
+import com.williammedina.biblioteca.domain.book.dto.SectionDTO;
+import com.williammedina.biblioteca.domain.book.service.export.BookExportFormat;
+import com.williammedina.biblioteca.domain.book.service.importer.BookImportFormat;
 import com.williammedina.biblioteca.infrastructure.exception.ApiErrorResponse;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -15,10 +22,17 @@ import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.AllArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -33,26 +47,104 @@ public class BookController {
             summary = "Get all books sorted by a specific criterion",
             description = "Returns a list of books sorted by a specified criterion, such as 'author', 'publisher', 'publication_year', or 'title' (default).",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Books successfully retrieved")
+                    @ApiResponse(responseCode = "200", description = "Books successfully retrieved"),
+                    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the ETag sent in If-None-Match", content = @Content)
             }
     )
     @GetMapping("/{sortBy}")
-    public ResponseEntity<List<BookDTO>> getBooks(@PathVariable String sortBy) {
+    public ResponseEntity<List<BookDTO>> getBooks(@PathVariable String sortBy, WebRequest webRequest) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
         List<BookDTO> books = bookService.getAllBooks(sortBy);
-        return ResponseEntity.ok(books);
+        return catalogResponse(books);
+    }
+
+    @Operation(
+            summary = "Get a page of books sorted by a specific criterion",
+            description = "Cursor-paginated version of the sorted book list. Send the 'nextCursor' of the previous page as 'after' to continue.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Page of books successfully retrieved"),
+                    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the ETag sent in If-None-Match", content = @Content),
+                    @ApiResponse(responseCode = "400", description = "Invalid limit or cursor", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+            }
+    )
+    @GetMapping(value = "/{sortBy}", params = "limit")
+    public ResponseEntity<BookPageDTO> getBooksPage(
+            @PathVariable String sortBy,
+            @Parameter(description = "Maximum number of books in the page", example = "50") @RequestParam int limit,
+            @Parameter(description = "Cursor returned as 'nextCursor' by the previous page") @RequestParam(required = false) String after,
+            WebRequest webRequest
+    ) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
+        BookPageDTO page = bookService.getBooksPage(sortBy, limit, after);
+        return catalogResponse(page);
     }
 
     @Operation(
             summary = "Search for books by keyword",
             description = "Returns a list of books whose title, author, publisher, or location matches the provided keyword.",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Books successfully retrieved")
+                    @ApiResponse(responseCode = "200", description = "Books successfully retrieved"),
+                    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the ETag sent in If-None-Match", content = @Content)
             }
     )
     @GetMapping("/search/{keyword}")
-    public ResponseEntity<List<BookDTO>> getBooksByKeyword(@PathVariable String keyword) {
+    public ResponseEntity<List<BookDTO>> getBooksByKeyword(@PathVariable String keyword, WebRequest webRequest) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
         List<BookDTO> books = bookService.getBooksByKeyword(keyword);
-        return ResponseEntity.ok(books);
+        return catalogResponse(books);
+    }
+
+    @Operation(
+            summary = "Search for a page of books by keyword",
+            description = "Cursor-paginated version of the keyword search. Send the 'nextCursor' of the previous page as 'after' to continue.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Page of books successfully retrieved"),
+                    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the ETag sent in If-None-Match", content = @Content),
+                    @ApiResponse(responseCode = "400", description = "Invalid limit or cursor", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+            }
+    )
+    @GetMapping(value = "/search/{keyword}", params = "limit")
+    public ResponseEntity<BookPageDTO> getBooksByKeywordPage(
+            @PathVariable String keyword,
+            @Parameter(description = "Maximum number of books in the page", example = "50") @RequestParam int limit,
+            @Parameter(description = "Cursor returned as 'nextCursor' by the previous page") @RequestParam(required = false) String after,
+            WebRequest webRequest
+    ) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
+        BookPageDTO page = bookService.getBooksByKeywordPage(keyword, limit, after);
+        return catalogResponse(page);
+    }
+
+    @Operation(
+            summary = "Export the full catalog",
+            description = "Streams every book as NDJSON (one JSON object per line) or CSV, without building the whole response in memory.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Catalog export started", content = {
+                            @Content(mediaType = "application/x-ndjson"),
+                            @Content(mediaType = "text/csv")
+                    }),
+                    @ApiResponse(responseCode = "400", description = "Unsupported export format", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+                    @ApiResponse(responseCode = "429", description = "Too many exports in progress, retry after the Retry-After header", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+            }
+    )
+    @GetMapping(value = "/export", produces = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @Parameter(description = "Export format: 'ndjson' (default) or 'csv'", example = "csv") @RequestParam(defaultValue = "ndjson") String format
+    ) {
+        BookExportFormat exportFormat = BookExportFormat.fromParam(format);
+        StreamingResponseBody body = bookService.exportBooks(exportFormat);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(exportFormat.getContentType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"books." + exportFormat.getExtension() + "\"")
+                .body(body);
     }
 
     @Operation(
@@ -60,41 +152,72 @@ public class BookController {
             description = "Returns the information of a book corresponding to the provided ISBN.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Book successfully retrieved"),
+                    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the ETag sent in If-None-Match", content = @Content),
                     @ApiResponse(responseCode = "404", description = "Book not found", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
             }
     )
     @GetMapping("/isbn/{isbn}")
-    public ResponseEntity<BookDTO> getBookByISBN(@PathVariable Long isbn) {
+    public ResponseEntity<BookDTO> getBookByISBN(@PathVariable Long isbn, WebRequest webRequest) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
         BookDTO books = bookService.getBookByISBN(isbn);
-        return ResponseEntity.ok(books);
+        return catalogResponse(books);
     }
 
     @Operation(
             summary = "Get the total number of books",
             description = "Returns the total number of books registered in the database.",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Total number of books successfully retrieved")
+                    @ApiResponse(responseCode = "200", description = "Total number of books successfully retrieved"),
+                    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the ETag sent in If-None-Match", content = @Content)
             }
     )
     @GetMapping("/count")
-    public ResponseEntity<BookCountDTO> getBookCount() {
+    public ResponseEntity<BookCountDTO> getBookCount(WebRequest webRequest) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
         BookCountDTO count = bookService.getBookCount();
-        return ResponseEntity.ok(count);
+        return catalogResponse(count);
     }
 
     @Operation(
             summary = "Get a random list of books",
             description = "Returns a random list of books, based on the requested number.",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Books successfully retrieved")
+                    @ApiResponse(responseCode = "200", description = "Books successfully retrieved"),
+                    @ApiResponse(responseCode = "400", description = "Requested count out of range", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
             }
     )
     @GetMapping("/random/{count}")
     public ResponseEntity<List<BookDTO>> getRandomBooks(@PathVariable Long count) {
+        // Sin ETag: cada petición debe recibir una muestra nueva
         List<BookDTO> books = bookService.getRandomBooks(count);
         return ResponseEntity.ok(books);
     }
 
+    @Operation(
+            summary = "Import books in bulk",
+            description = "Stores many books at once from an NDJSON or CSV body (same columns as the export). " +
+                    "Valid rows are stored and the rest are returned with the reasons they were rejected.",
+            security = @SecurityRequirement(name = "bearer-key"),
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Import processed; see the report for rejected rows"),
+                    @ApiResponse(responseCode = "400", description = "Malformed file or too many rows", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+                    @ApiResponse(responseCode = "409", description = "A concurrent write stored one of the ISBNs or locations", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+                    @ApiResponse(responseCode = "415", description = "Unsupported content type", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+            }
+    )
+    @PostMapping(value = "/import", consumes = {"application/x-ndjson", "text/csv"})
+    public ResponseEntity<BookImportReportDTO> importBooks(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream body
+    ) throws IOException {
+        BookImportReportDTO report = bookService.importBooks(BookImportFormat.fromContentType(contentType), body);
+        return ResponseEntity.ok(report);
+    }
+
     @Operation(
             summary = "Add a new book",
             description = "Registers a new book with the provided information, including an optional cover image.",
@@ -116,7 +239,8 @@ public class BookController {
             security = @SecurityRequirement(name = "bearer-key"),
             responses = {
                     @ApiResponse(responseCode = "200", description = "Book successfully updated"),
-                    @ApiResponse(responseCode = "404", description = "Book not found", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+                    @ApiResponse(responseCode = "404", description = "Book not found", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+                    @ApiResponse(responseCode = "409", description = "ISBN or location already in use, or the book was modified concurrently", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
             }
     )
     @PutMapping(value = "/{isbn}", consumes = "multipart/form-data")
@@ -125,6 +249,27 @@ public class BookController {
         return ResponseEntity.ok(message);
     }
 
+    @Operation(
+            summary = "Upload a book cover",
+            description = "Streams a JPEG cover in the raw request body (Content-Type: image/jpeg). The JPEG header, pixel count and size are checked while reading, so invalid or oversized uploads are rejected before being stored.",
+            security = @SecurityRequirement(name = "bearer-key"),
+            responses = {
+                    @ApiResponse(responseCode = "202", description = "Cover accepted; it is published in the background"),
+                    @ApiResponse(responseCode = "400", description = "Not a valid JPEG or too many pixels", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+                    @ApiResponse(responseCode = "404", description = "Book not found", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class))),
+                    @ApiResponse(responseCode = "413", description = "Cover larger than the configured limit", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+            }
+    )
+    @PutMapping(value = "/{isbn}/cover", consumes = MediaType.IMAGE_JPEG_VALUE)
+    public ResponseEntity<CoverStatusDTO> uploadCover(
+            @PathVariable Long isbn,
+            @RequestHeader(value = HttpHeaders.CONTENT_LENGTH, required = false) Long contentLength,
+            InputStream body
+    ) {
+        CoverStatusDTO status = bookService.uploadCover(isbn, body, contentLength != null ? contentLength : -1);
+        return ResponseEntity.accepted().body(status);
+    }
+
     @Operation(
             summary = "Delete a book",
             description = "Deletes an existing book based on the provided ISBN.",
@@ -145,12 +290,64 @@ public class BookController {
             summary = "Get the location of books",
             description = "Returns a structured list of books grouped by shelf, section, and position.",
             responses = {
-                    @ApiResponse(responseCode = "200", description = "Locations successfully retrieved")
+                    @ApiResponse(responseCode = "200", description = "Locations successfully retrieved"),
+                    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the ETag sent in If-None-Match", content = @Content)
             }
     )
     @GetMapping("/location")
-    public ResponseEntity<List<LocationDTO>> getLocationBooks() {
+    public ResponseEntity<List<LocationDTO>> getLocationBooks(WebRequest webRequest) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
         List<LocationDTO> locationBooks = bookService.getLocationBooks();
-        return ResponseEntity.ok(locationBooks);
+        return catalogResponse(locationBooks);
+    }
+
+    @Operation(
+            summary = "Get the books of one shelf",
+            description = "Returns the sections of a single shelf with their books ordered by position.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Shelf successfully retrieved"),
+                    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the ETag sent in If-None-Match", content = @Content),
+                    @ApiResponse(responseCode = "404", description = "No books on the shelf", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+            }
+    )
+    @GetMapping("/location/{shelf}")
+    public ResponseEntity<LocationDTO> getLocationShelf(@PathVariable String shelf, WebRequest webRequest) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
+        LocationDTO location = bookService.getLocationShelf(shelf);
+        return catalogResponse(location);
+    }
+
+    @Operation(
+            summary = "Get the books of one section",
+            description = "Returns the books of a single section of a shelf ordered by position.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Section successfully retrieved"),
+                    @ApiResponse(responseCode = "304", description = "Catalog unchanged since the ETag sent in If-None-Match", content = @Content),
+                    @ApiResponse(responseCode = "404", description = "No books in the section", content = @Content(schema = @Schema(implementation = ApiErrorResponse.class)))
+            }
+    )
+    @GetMapping("/location/{shelf}/{section}")
+    public ResponseEntity<SectionDTO> getLocationSection(@PathVariable String shelf, @PathVariable String section, WebRequest webRequest) {
+        if (isCatalogNotModified(webRequest)) {
+            return null;
+        }
+        SectionDTO books = bookService.getLocationSection(shelf, section);
+        return catalogResponse(books);
+    }
+
+    // Las respuestas del catálogo solo cambian cuando avanza su versión, así que sirve como ETag.
+    // Si el cliente ya la tiene, se responde 304 sin consultar el servicio ni serializar nada.
+    private boolean isCatalogNotModified(WebRequest webRequest) {
+        return webRequest.checkNotModified(bookService.getCatalogETag());
+    }
+
+    private <T> ResponseEntity<T> catalogResponse(T body) {
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .body(body);
     }
 }
@@ -1,14 +1,19 @@
 package com.williammedina.biblioteca.controller;
 
+import com.williammedina.biblioteca.domain.book.dto.CoverStatusDTO;
 import com.williammedina.biblioteca.domain.book.service.cover.BookCoverService;
+import com.williammedina.biblioteca.domain.book.service.cover.CoverSize;
+import com.williammedina.biblioteca.domain.book.service.cover.StoredCover;
+import com.williammedina.biblioteca.infrastructure.web.FileResponseWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
-import lombok.AllArgsConstructor;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.http.HttpHeaders;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -16,33 +21,92 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.io.IOException;
+import java.nio.file.NoSuchFileException;
+import java.time.Duration;
+import java.util.Optional;
+
 
 @Slf4j
 @RestController
 @RequestMapping(value = "/covers")
 @Tag(name = "Covers", description = "Endpoints for managing book cover images")
-@AllArgsConstructor
 public class CoverController {
 
     private final BookCoverService bookCoverService;
+    private final FileResponseWriter fileResponseWriter;
+    private final CacheControl coverCacheControl;
+
+    public CoverController(BookCoverService bookCoverService,
+                           FileResponseWriter fileResponseWriter,
+                           @Value("${books.covers.cache-max-age-seconds:86400}") long cacheMaxAgeSeconds) {
+        this.bookCoverService = bookCoverService;
+        this.fileResponseWriter = fileResponseWriter;
+        this.coverCacheControl = CacheControl.maxAge(Duration.ofSeconds(cacheMaxAgeSeconds)).cachePublic();
+    }
 
     @Operation(
             summary = "Get cover image",
-            description = "Allows retrieving the cover image of a book stored on the server.",
+            description = "Allows retrieving the cover image of a book stored on the server. Supports conditional requests (ETag, Last-Modified) and single byte ranges.",
             responses = {
                     @ApiResponse(responseCode = "200", description = "Cover image successfully retrieved", content = @Content(mediaType = "image/jpeg")),
+                    @ApiResponse(responseCode = "206", description = "Requested byte range of the cover image", content = @Content(mediaType = "image/jpeg")),
+                    @ApiResponse(responseCode = "304", description = "Cover image not modified since the cached copy", content = @Content),
+                    @ApiResponse(responseCode = "404", description = "Cover image not found", content = @Content),
+                    @ApiResponse(responseCode = "416", description = "Requested range not satisfiable", content = @Content),
             }
     )
     @GetMapping("/{filename}")
-    public ResponseEntity<Resource> getCoverImage(@PathVariable String filename) {
+    public void getCoverImage(@PathVariable String filename, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        writeCover(CoverSize.ORIGINAL, filename, request, response);
+    }
+
+    @Operation(
+            summary = "Get cover rendition",
+            description = "Retrieves a downscaled JPEG of the cover (thumb: 160px, medium: 480px wide, original). Missing renditions are generated on the first request.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Cover rendition successfully retrieved", content = @Content(mediaType = "image/jpeg")),
+                    @ApiResponse(responseCode = "304", description = "Cover rendition not modified since the cached copy", content = @Content),
+                    @ApiResponse(responseCode = "404", description = "Unknown size or cover image not found", content = @Content),
+            }
+    )
+    @GetMapping("/{size}/{filename}")
+    public void getCoverRendition(@PathVariable String size, @PathVariable String filename,
+                                  HttpServletRequest request, HttpServletResponse response) throws IOException {
+        writeCover(CoverSize.fromPath(size), filename, request, response);
+    }
+
+    @Operation(
+            summary = "Get cover status",
+            description = "Tells whether the cover of a book is ready to be served, still being written after an upload, or failed.",
+            responses = {
+                    @ApiResponse(responseCode = "200", description = "Cover status successfully retrieved"),
+            }
+    )
+    @GetMapping(value = "/status/{isbn}", produces = "application/json")
+    public ResponseEntity<CoverStatusDTO> getCoverStatus(@PathVariable Long isbn) {
+        return ResponseEntity.ok(new CoverStatusDTO(isbn, bookCoverService.getCoverStatus(isbn)));
+    }
+
+    private void writeCover(CoverSize size, String filename, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<StoredCover> cover = bookCoverService.findCover(size, filename);
+        if (cover.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        StoredCover stored = cover.get();
+        // El original servido en lugar de una versión reducida se revalida siempre: cuando la versión
+        // exista cambia el ETag y el navegador la descarga
+        CacheControl cacheControl = stored.fallback() ? CacheControl.noCache() : coverCacheControl;
         try {
-            Resource resource = bookCoverService.loadCover(filename);
-            return ResponseEntity.ok()
-                    .contentType(MediaType.IMAGE_JPEG)
-                    .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + resource.getFilename() + "\"")
-                    .body(resource);
-        } catch (RuntimeException e) {
-            return ResponseEntity.notFound().build();
+            if (stored.inMemory()) {
+                fileResponseWriter.write(stored.fileName(), stored.content(), stored.lastModified(), MediaType.IMAGE_JPEG, cacheControl, request, response);
+            } else {
+                fileResponseWriter.write(stored.file(), stored.fileName(), MediaType.IMAGE_JPEG, cacheControl, request, response);
+            }
+        } catch (NoSuchFileException e) {
+            // La portada se eliminó entre la búsqueda y la lectura de sus atributos
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
         }
     }
 
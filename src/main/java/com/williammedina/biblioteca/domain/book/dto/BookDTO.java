@@ -1,9 +1,12 @@
 package com.williammedina.biblioteca.domain.book.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonAppend;
 import com.williammedina.biblioteca.domain.book.entity.BookEntity;
+import com.williammedina.biblioteca.domain.book.service.cover.HasCoverPropertyWriter;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 @Schema(description = "DTO containing general book data")
+@JsonAppend(props = @JsonAppend.Prop(value = HasCoverPropertyWriter.class, name = "hasCover", type = Boolean.class))
 public record BookDTO(
 
         @Schema(description = "Unique identifier of the book", example = "1")
@@ -25,7 +28,10 @@ public record BookDTO(
         String publication_year,
 
         @Schema(description = "Shelf location of the book in the library", example = "P-A12")
-        String location
+        String location,
+
+        @Schema(description = "Version of the book data; send it back when updating to detect concurrent changes", example = "3")
+        Long version
 ) {
 
     public static BookDTO fromEntity(BookEntity book) {
@@ -36,7 +42,8 @@ public record BookDTO(
                 book.getAuthor(),
                 book.getPublisher(),
                 book.getPublicationYear(),
-                book.getLocation()
+                book.getLocation(),
+                book.getVersion()
         );
     }
 }
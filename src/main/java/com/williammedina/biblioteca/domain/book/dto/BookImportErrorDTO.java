@@ -0,0 +1,19 @@
+package com.williammedina.biblioteca.domain.book.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "DTO describing why a row of a bulk import was rejected")
+public record BookImportErrorDTO(
+
+        @Schema(description = "Line of the file where the row starts", example = "14")
+        long line,
+
+        @Schema(description = "ISBN of the row, when it could be read", example = "9781234567897")
+        Long isbn,
+
+        @Schema(description = "Reasons the row was rejected", example = "[\"Un libro con ese ISBN ya existe.\"]")
+        List<String> errors
+) {
+}
@@ -0,0 +1,19 @@
+package com.williammedina.biblioteca.domain.book.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "DTO summarizing the result of a bulk import")
+public record BookImportReportDTO(
+
+        @Schema(description = "Number of rows read from the file", example = "1200")
+        int received,
+
+        @Schema(description = "Number of books stored", example = "1187")
+        int imported,
+
+        @Schema(description = "Rows that were not stored and why")
+        List<BookImportErrorDTO> rejected
+) {
+}
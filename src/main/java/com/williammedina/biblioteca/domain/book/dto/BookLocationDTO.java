@@ -1,8 +1,11 @@
 package com.williammedina.biblioteca.domain.book.dto;
 
+import com.fasterxml.jackson.databind.annotation.JsonAppend;
+import com.williammedina.biblioteca.domain.book.service.cover.HasCoverPropertyWriter;
 import io.swagger.v3.oas.annotations.media.Schema;
 
 @Schema(description = "DTO representing book data along with its physical location and quantity")
+@JsonAppend(props = @JsonAppend.Prop(value = HasCoverPropertyWriter.class, name = "hasCover", type = Boolean.class))
 public record BookLocationDTO(
 
         @Schema(description = "Book ID", example = "1")
@@ -0,0 +1,17 @@
+package com.williammedina.biblioteca.domain.book.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "DTO representing one page of books obtained with cursor pagination")
+public record BookPageDTO(
+
+        @Schema(description = "Books in this page")
+        List<BookDTO> books,
+
+        @Schema(description = "Opaque cursor to request the next page through the 'after' parameter; null when there are no more books",
+                example = "VElUTEUfU09JTCBGRVJUSUxJVFkfU09JTCBGRVJUSUxJVFkfMQ")
+        String nextCursor
+) {
+}
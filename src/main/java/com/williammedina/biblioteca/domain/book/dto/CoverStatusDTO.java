@@ -0,0 +1,15 @@
+package com.williammedina.biblioteca.domain.book.dto;
+
+import com.williammedina.biblioteca.domain.book.service.cover.CoverStatus;
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "DTO representing whether the cover of a book is ready to be served")
+public record CoverStatusDTO(
+
+        @Schema(description = "ISBN of the book", example = "9781234567897")
+        Long isbn,
+
+        @Schema(description = "NONE: no cover, PENDING: still being written, READY: available, FAILED: the last upload could not be stored", example = "READY")
+        CoverStatus status
+) {
+}
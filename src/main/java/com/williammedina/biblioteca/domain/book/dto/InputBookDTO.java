@@ -31,6 +31,9 @@ public record InputBookDTO(
         @Size(max = 6, message = "La ubicación no puede tener más de 6 caracteres")
         String location,
 
+        @Schema(description = "Version of the book being updated, as returned by the API; when omitted the update does not check for concurrent changes", example = "3")
+        Long version,
+
         @Schema(description = "Cover image of the book (multipart file)")
         MultipartFile cover
 ) {
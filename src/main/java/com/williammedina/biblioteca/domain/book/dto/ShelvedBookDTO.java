@@ -0,0 +1,10 @@
+package com.williammedina.biblioteca.domain.book.dto;
+
+// Libro leído con las columnas de ubicación ya separadas; uso interno, no se expone en la API
+public record ShelvedBookDTO(String shelf, String section, Long id, Long isbn, String title, String author,
+                             String publisher, String publicationYear, String location, Integer position) {
+
+    public BookLocationDTO toBookLocation() {
+        return new BookLocationDTO(id, isbn, title, author, publisher, publicationYear, location, position);
+    }
+}
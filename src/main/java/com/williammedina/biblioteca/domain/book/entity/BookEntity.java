@@ -4,13 +4,30 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity(name = "Book")
-@Table(name = "books")
+@Table(name = "books", uniqueConstraints = {
+        // Dos libros no pueden compartir ubicación; los que no tienen una ("---") dejan la clave en null
+        @UniqueConstraint(name = BookEntity.LOCATION_KEY_CONSTRAINT, columnNames = "location_key")
+}, indexes = {
+        // Sirven a la paginación por cursor: cada página continúa el recorrido del índice desde la última fila.
+        // Las columnas están en el mismo orden y dirección que el ORDER BY de las consultas
+        @Index(name = "idx_books_title_sort", columnList = "title_sort_key, id"),
+        @Index(name = "idx_books_author_sort", columnList = "author_unknown, author_sort_key, title_sort_key, id"),
+        @Index(name = "idx_books_publisher_sort", columnList = "publisher_unknown, publisher_sort_key, title_sort_key, id"),
+        @Index(name = "idx_books_publication_year_sort",
+                columnList = "publication_year_unknown, publication_year_sort_key DESC, title_sort_key, id"),
+        // Recorrido del árbol de ubicaciones y consultas por estantería en el orden del índice
+        @Index(name = "idx_books_location", columnList = "location_shelf, location_section, location_position, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
 @AllArgsConstructor
 @EqualsAndHashCode(of = "id")
 public class BookEntity {
+
+    public static final String LOCATION_KEY_CONSTRAINT = "uk_books_location_key";
+    public static final String DEFAULT_LOCATION = "---";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long id;
@@ -31,5 +48,47 @@ public class BookEntity {
     private String publicationYear = "S.F";
 
     @Column(length = 6, nullable = false)
-    private String location = "---";
+    private String location = DEFAULT_LOCATION;
+
+    @Column(name = "location_key", length = 6)
+    private String locationKey;
+
+    // Componentes de la ubicación, calculados al escribir; quedan en null si la ubicación no es válida
+    @Column(name = "location_shelf", length = 6)
+    private String shelf;
+
+    @Column(name = "location_section", length = 1)
+    private String section;
+
+    @Column(name = "location_position")
+    private Integer position;
+
+    // Claves de ordenamiento y marcas de valor desconocido ("S.A", "S.E", "S.F"), calculadas al escribir
+    // con BookSortKeys. Quedan en null solo en filas anteriores a estas columnas, hasta que se rellenan
+    @Column(name = "title_sort_key", length = 512)
+    private byte[] titleSortKey;
+
+    @Column(name = "author_sort_key", length = 512)
+    private byte[] authorSortKey;
+
+    @Column(name = "publisher_sort_key", length = 256)
+    private byte[] publisherSortKey;
+
+    @Column(name = "publication_year_sort_key", length = 32)
+    private byte[] publicationYearSortKey;
+
+    @Column(name = "author_unknown", nullable = false)
+    private boolean authorUnknown;
+
+    @Column(name = "publisher_unknown", nullable = false)
+    private boolean publisherUnknown;
+
+    @Column(name = "publication_year_unknown", nullable = false)
+    private boolean publicationYearUnknown;
+
+    // Bloqueo optimista: cada escritura lo incrementa y las actualizaciones pueden exigir el valor leído.
+    // Queda en null hasta el primer INSERT, así Spring Data sigue tratando la entidad como nueva.
+    @Version
+    @Column(nullable = false)
+    private Long version;
 }
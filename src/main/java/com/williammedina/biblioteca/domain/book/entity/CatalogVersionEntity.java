@@ -0,0 +1,20 @@
+package com.williammedina.biblioteca.domain.book.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Fila única con la versión del catálogo, compartida por todos los nodos que usan la misma base de datos
+@Entity(name = "CatalogVersion")
+@Table(name = "catalog_version")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@EqualsAndHashCode(of = "id")
+public class CatalogVersionEntity {
+    @Id
+    private Long id;
+
+    @Column(nullable = false)
+    private Long version;
+}
@@ -0,0 +1,6 @@
+package com.williammedina.biblioteca.domain.book.event;
+
+public record BookDeletedEvent(
+        Long isbn
+) {
+}
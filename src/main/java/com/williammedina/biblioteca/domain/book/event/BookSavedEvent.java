@@ -0,0 +1,10 @@
+package com.williammedina.biblioteca.domain.book.event;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+
+// previousIsbn es null cuando el libro es nuevo
+public record BookSavedEvent(
+        Long previousIsbn,
+        BookDTO book
+) {
+}
@@ -0,0 +1,8 @@
+package com.williammedina.biblioteca.domain.book.event;
+
+// Publicado cuando la versión del catálogo avanzó por escrituras que este nodo no vio
+// (otro nodo o una carga masiva); las copias en memoria deben recargarse
+public record CatalogChangedEvent(
+        long version
+) {
+}
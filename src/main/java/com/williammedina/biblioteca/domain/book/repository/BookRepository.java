@@ -1,49 +1,165 @@
 package com.williammedina.biblioteca.domain.book.repository;
 
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+import com.williammedina.biblioteca.domain.book.dto.ShelvedBookDTO;
 import com.williammedina.biblioteca.domain.book.entity.BookEntity;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface BookRepository extends JpaRepository<BookEntity, Long> {
 
-    @Query("SELECT b FROM Book b WHERE " +
-            "CAST(b.isbn AS string) = :keyword OR " +
-            "LOWER(b.title) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(b.author) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(b.publisher) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(b.publicationYear) LIKE LOWER(CONCAT('%', :keyword, '%')) OR " +
-            "LOWER(b.location) LIKE LOWER(CONCAT('%', :keyword, '%'))")
-    List<BookEntity> findByKeyword(@Param("keyword") String keyword);
+    // Las lecturas proyectan directo al DTO: Hibernate no crea entidades administradas
+    // ni guarda su copia para el dirty checking
+    String BOOK_DTO = "new com.williammedina.biblioteca.domain.book.dto.BookDTO(" +
+            "b.id, b.isbn, b.title, b.author, b.publisher, b.publicationYear, b.location, b.version)";
 
-    @Query("SELECT b FROM Book b ORDER BY b.title ASC")
-    List<BookEntity> findAllOrderByTitle();
+    String SHELVED_BOOK_DTO = "new com.williammedina.biblioteca.domain.book.dto.ShelvedBookDTO(" +
+            "b.shelf, b.section, b.id, b.isbn, b.title, b.author, b.publisher, b.publicationYear, b.location, b.position)";
 
-    @Query("SELECT b FROM Book b " +
-            "ORDER BY CASE WHEN b.author LIKE '%S.A%' THEN 1 ELSE 0 END, b.author ASC, b.title ASC")
-    List<BookEntity> findAllOrderByAuthor();
+    @Query("SELECT " + BOOK_DTO + " FROM Book b")
+    List<BookDTO> findAllBooks();
 
-    @Query("SELECT b FROM Book b " +
-            "ORDER BY CASE WHEN b.publisher LIKE '%S.E%' THEN 1 ELSE 0 END, b.publisher ASC, b.title ASC")
-    List<BookEntity> findAllOrderByPublisher();
+    // Recorre idx_books_location en orden; los libros con ubicación inválida no tienen posición
+    @Query("SELECT " + SHELVED_BOOK_DTO + " FROM Book b WHERE b.position IS NOT NULL " +
+            "ORDER BY b.shelf, b.section, b.position, b.id")
+    List<ShelvedBookDTO> findAllShelvedBooks();
 
-    @Query("SELECT b FROM Book b " +
-            "ORDER BY CASE WHEN b.publicationYear LIKE '%S.F%' THEN 1 ELSE 0 END, b.publicationYear DESC, b.title ASC")
-    List<BookEntity> findAllOrderByPublicationYear();
+    // Una estantería o sección: solo se leen sus filas, por rango sobre idx_books_location
+    @Query("SELECT " + SHELVED_BOOK_DTO + " FROM Book b WHERE b.shelf = :shelf AND b.position IS NOT NULL " +
+            "ORDER BY b.section, b.position, b.id")
+    List<ShelvedBookDTO> findShelvedBooksByShelf(@Param("shelf") String shelf);
 
-    @Query("SELECT b FROM Book b ORDER BY b.id DESC")
-    List<BookEntity> findAllOrderById();
+    @Query("SELECT " + SHELVED_BOOK_DTO + " FROM Book b WHERE b.shelf = :shelf AND b.section = :section " +
+            "AND b.position IS NOT NULL ORDER BY b.position, b.id")
+    List<ShelvedBookDTO> findShelvedBooksBySection(@Param("shelf") String shelf, @Param("section") String section);
 
-    Optional<BookEntity> findByIsbn(Long isbn);
+    // Libros guardados antes de existir las columnas de ubicación ("---" es la ubicación por defecto)
+    @Query("SELECT b FROM Book b WHERE b.id > :id AND b.location <> '---' " +
+            "AND (b.position IS NULL OR b.locationKey IS NULL) ORDER BY b.id")
+    List<BookEntity> findPendingLocationBackfill(@Param("id") Long id, Pageable pageable);
 
-    @Query(value = "SELECT * FROM books ORDER BY RAND() LIMIT :count", nativeQuery = true)
-    List<BookEntity> findRandomBooks(@Param("count") long count);
+    @Query("SELECT b.locationKey FROM Book b WHERE b.locationKey IN :keys")
+    List<String> findTakenLocationKeys(@Param("keys") Collection<String> keys);
+
+    @Query("SELECT " + BOOK_DTO + " FROM Book b WHERE b.isbn = :isbn")
+    Optional<BookDTO> findDetailsByIsbn(@Param("isbn") Long isbn);
+
+    // Versión actual con la fila bloqueada hasta el fin de la transacción, para actualizar sin versión del cliente
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b.version FROM Book b WHERE b.isbn = :isbn")
+    Optional<Long> findVersionByIsbnForUpdate(@Param("isbn") Long isbn);
+
+    // Paginación por cursor (keyset): la primera página usa findAllOrderBy* y las siguientes
+    // continúan después de la última fila recibida, así cada página cuesta lo mismo que la primera.
+    // Filtran y ordenan solo por columnas (marca de valor desconocido, claves de BookSortKeys e id),
+    // en el orden de los índices idx_books_*_sort, así MySQL busca la posición en el índice y lee
+    // desde ahí sin ordenar. El id desempata para que el orden sea total.
+
+    @Query("SELECT " + BOOK_DTO + " FROM Book b ORDER BY b.titleSortKey ASC, b.id ASC")
+    List<BookDTO> findAllOrderByTitle(Pageable pageable);
+
+    @Query("SELECT " + BOOK_DTO + " FROM Book b " +
+            "WHERE b.titleSortKey > :title OR (b.titleSortKey = :title AND b.id > :id) " +
+            "ORDER BY b.titleSortKey ASC, b.id ASC")
+    List<BookDTO> findAllOrderByTitleAfter(@Param("title") byte[] title, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT " + BOOK_DTO + " FROM Book b " +
+            "ORDER BY b.authorUnknown ASC, b.authorSortKey ASC, b.titleSortKey ASC, b.id ASC")
+    List<BookDTO> findAllOrderByAuthor(Pageable pageable);
+
+    @Query("SELECT " + BOOK_DTO + " FROM Book b " +
+            "WHERE (b.authorUnknown = true AND :unknown = false) " +
+            "OR (b.authorUnknown = :unknown AND (b.authorSortKey > :author " +
+            "OR (b.authorSortKey = :author AND (b.titleSortKey > :title OR (b.titleSortKey = :title AND b.id > :id))))) " +
+            "ORDER BY b.authorUnknown ASC, b.authorSortKey ASC, b.titleSortKey ASC, b.id ASC")
+    List<BookDTO> findAllOrderByAuthorAfter(@Param("unknown") boolean unknown, @Param("author") byte[] author,
+                                               @Param("title") byte[] title, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT " + BOOK_DTO + " FROM Book b " +
+            "ORDER BY b.publisherUnknown ASC, b.publisherSortKey ASC, b.titleSortKey ASC, b.id ASC")
+    List<BookDTO> findAllOrderByPublisher(Pageable pageable);
+
+    @Query("SELECT " + BOOK_DTO + " FROM Book b " +
+            "WHERE (b.publisherUnknown = true AND :unknown = false) " +
+            "OR (b.publisherUnknown = :unknown AND (b.publisherSortKey > :publisher " +
+            "OR (b.publisherSortKey = :publisher AND (b.titleSortKey > :title OR (b.titleSortKey = :title AND b.id > :id))))) " +
+            "ORDER BY b.publisherUnknown ASC, b.publisherSortKey ASC, b.titleSortKey ASC, b.id ASC")
+    List<BookDTO> findAllOrderByPublisherAfter(@Param("unknown") boolean unknown, @Param("publisher") byte[] publisher,
+                                                  @Param("title") byte[] title, @Param("id") Long id, Pageable pageable);
+
+    @Query("SELECT " + BOOK_DTO + " FROM Book b " +
+            "ORDER BY b.publicationYearUnknown ASC, b.publicationYearSortKey DESC, b.titleSortKey ASC, b.id ASC")
+    List<BookDTO> findAllOrderByPublicationYear(Pageable pageable);
+
+    @Query("SELECT " + BOOK_DTO + " FROM Book b " +
+            "WHERE (b.publicationYearUnknown = true AND :unknown = false) " +
+            "OR (b.publicationYearUnknown = :unknown AND (b.publicationYearSortKey < :year " +
+            "OR (b.publicationYearSortKey = :year AND (b.titleSortKey > :title OR (b.titleSortKey = :title AND b.id > :id))))) " +
+            "ORDER BY b.publicationYearUnknown ASC, b.publicationYearSortKey DESC, b.titleSortKey ASC, b.id ASC")
+    List<BookDTO> findAllOrderByPublicationYearAfter(@Param("unknown") boolean unknown, @Param("year") byte[] year,
+                                                        @Param("title") byte[] title, @Param("id") Long id, Pageable pageable);
+
+
+    @Query("SELECT " + BOOK_DTO + " FROM Book b ORDER BY b.id DESC")
+    List<BookDTO> findAllOrderById(Pageable pageable);
+
+    @Query("SELECT " + BOOK_DTO + " FROM Book b WHERE b.id < :id ORDER BY b.id DESC")
+    List<BookDTO> findAllOrderByIdAfter(@Param("id") Long id, Pageable pageable);
+
+    // Usadas por la búsqueda "+" paginada, que recorre el catálogo por id ascendente
+    @Query("SELECT " + BOOK_DTO + " FROM Book b ORDER BY b.id ASC")
+    List<BookDTO> findAllOrderByIdAsc(Pageable pageable);
+
+    @Query("SELECT " + BOOK_DTO + " FROM Book b WHERE b.id > :id ORDER BY b.id ASC")
+    List<BookDTO> findAllOrderByIdAscAfter(@Param("id") Long id, Pageable pageable);
+
+    // Recorrido de solo avance para la exportación. Con MySQL Connector/J, un fetch size de
+    // Integer.MIN_VALUE hace que las filas lleguen una a una en lugar de cargar todo el resultado
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "" + Integer.MIN_VALUE),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT " + BOOK_DTO + " FROM Book b ORDER BY b.id ASC")
+    Stream<BookDTO> streamAllOrderById();
+
+    // Escrituras directas por ISBN: una sola sentencia, sin cargar la entidad antes.
+    // La versión leída por el cliente debe coincidir, si no la fila no se toca (bloqueo optimista).
+    @Modifying
+    @Query("UPDATE Book b SET b.isbn = :#{#book.isbn}, b.title = :#{#book.title}, b.author = :#{#book.author}, " +
+            "b.publisher = :#{#book.publisher}, b.publicationYear = :#{#book.publicationYear}, " +
+            "b.location = :#{#book.location}, b.locationKey = :#{#book.locationKey}, b.shelf = :#{#book.shelf}, " +
+            "b.section = :#{#book.section}, b.position = :#{#book.position}, " +
+            "b.titleSortKey = :#{#book.titleSortKey}, b.authorSortKey = :#{#book.authorSortKey}, " +
+            "b.publisherSortKey = :#{#book.publisherSortKey}, b.publicationYearSortKey = :#{#book.publicationYearSortKey}, " +
+            "b.authorUnknown = :#{#book.authorUnknown}, b.publisherUnknown = :#{#book.publisherUnknown}, " +
+            "b.publicationYearUnknown = :#{#book.publicationYearUnknown}, b.version = b.version + 1 " +
+            "WHERE b.isbn = :isbn AND b.version = :version")
+    int updateByIsbn(@Param("isbn") Long isbn, @Param("version") Long version, @Param("book") BookEntity book);
+
+    @Modifying
+    @Query("DELETE FROM Book b WHERE b.isbn = :isbn")
+    int deleteByIsbn(@Param("isbn") Long isbn);
 
     boolean existsByIsbn(Long isbn);
 
-    boolean existsByLocation(String location);
+    @Query("SELECT b.isbn FROM Book b WHERE b.isbn IN :isbns")
+    List<Long> findExistingIsbns(@Param("isbns") Collection<Long> isbns);
+
+    @Query("SELECT b.location FROM Book b WHERE b.location IN :locations")
+    List<String> findExistingLocations(@Param("locations") Collection<String> locations);
 
 }
@@ -0,0 +1,20 @@
+package com.williammedina.biblioteca.domain.book.repository;
+
+import com.williammedina.biblioteca.domain.book.entity.CatalogVersionEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface CatalogVersionRepository extends JpaRepository<CatalogVersionEntity, Long> {
+
+    @Modifying
+    @Query("UPDATE CatalogVersion v SET v.version = v.version + 1 WHERE v.id = :id")
+    int incrementVersion(@Param("id") Long id);
+
+    @Query("SELECT v.version FROM CatalogVersion v WHERE v.id = :id")
+    Optional<Long> findVersion(@Param("id") Long id);
+
+}
@@ -1,6 +1,13 @@
 package com.williammedina.biblioteca.domain.book.service;
 
 import com.williammedina.biblioteca.domain.book.dto.*;
+import com.williammedina.biblioteca.domain.book.service.export.BookExportFormat;
+import com.williammedina.biblioteca.domain.book.service.importer.BookImportFormat;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
 
 import java.util.*;
 
@@ -8,12 +15,20 @@ public interface BookService {
 
     List<BookDTO> getAllBooks(String sortBy);
     List<BookDTO> getBooksByKeyword(String keyword);
+    BookPageDTO getBooksPage(String sortBy, int limit, String after);
+    BookPageDTO getBooksByKeywordPage(String keyword, int limit, String after);
     BookDTO getBookByISBN(Long isbn);
     BookCountDTO getBookCount();
     List<BookDTO> getRandomBooks(Long count);
     String addNewBook(InputBookDTO data);
     String updateBook(InputBookDTO data, Long isbn);
     void deleteBook(Long isbn);
+    CoverStatusDTO uploadCover(Long isbn, InputStream content, long contentLength);
     List<LocationDTO> getLocationBooks();
+    LocationDTO getLocationShelf(String shelf);
+    SectionDTO getLocationSection(String shelf, String section);
+    String getCatalogETag();
+    StreamingResponseBody exportBooks(BookExportFormat format);
+    BookImportReportDTO importBooks(BookImportFormat format, InputStream inputStream) throws IOException;
 
 }
@@ -2,17 +2,40 @@ package com.williammedina.biblioteca.domain.book.service;
 
 import com.williammedina.biblioteca.domain.book.dto.*;
 import com.williammedina.biblioteca.domain.book.entity.BookEntity;
+import com.williammedina.biblioteca.domain.book.event.BookDeletedEvent;
+import com.williammedina.biblioteca.domain.book.event.BookSavedEvent;
 import com.williammedina.biblioteca.domain.book.repository.BookRepository;
+import com.williammedina.biblioteca.domain.book.service.catalog.BookCatalog;
+import com.williammedina.biblioteca.domain.book.service.catalog.BookSort;
+import com.williammedina.biblioteca.domain.book.service.catalog.BookSortKeys;
 import com.williammedina.biblioteca.domain.book.service.cover.BookCoverService;
+import com.williammedina.biblioteca.domain.book.service.cover.StagedCover;
+import com.williammedina.biblioteca.domain.book.service.export.BookExportFormat;
+import com.williammedina.biblioteca.domain.book.service.export.BookExportService;
 import com.williammedina.biblioteca.domain.book.service.finder.BookFinder;
+import com.williammedina.biblioteca.domain.book.service.importer.BookImportFormat;
+import com.williammedina.biblioteca.domain.book.service.importer.BookImportService;
+import com.williammedina.biblioteca.domain.book.service.location.BookLocationParser;
 import com.williammedina.biblioteca.domain.book.service.location.BookLocationService;
+import com.williammedina.biblioteca.domain.book.service.pagination.BookPaginationService;
+import com.williammedina.biblioteca.domain.book.service.random.RandomBookService;
+import com.williammedina.biblioteca.domain.book.service.search.BookSearchIndex;
 import com.williammedina.biblioteca.domain.book.service.utils.BookUtils;
 import com.williammedina.biblioteca.domain.book.service.validator.BookValidator;
+import com.williammedina.biblioteca.domain.book.service.version.CatalogVersionService;
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
 import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.*;
 
 @Slf4j
@@ -25,122 +48,203 @@ public class BookServiceImpl implements BookService {
     private final BookValidator validator;
     private final BookCoverService bookCoverService;
     private final BookLocationService bookLocationService;
+    private final BookCatalog bookCatalog;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookPaginationService bookPaginationService;
+    private final RandomBookService randomBookService;
+    private final BookExportService bookExportService;
+    private final BookImportService bookImportService;
+    private final CatalogVersionService catalogVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
 
     @Override
-    @Transactional(readOnly = true)
     public List<BookDTO> getAllBooks(String sortBy) {
         log.debug("Getting all books sorted by: {}", sortBy);
-
-        List<BookEntity> books = switch (sortBy) {
-            case "author" -> bookRepository.findAllOrderByAuthor();
-            case "publisher" -> bookRepository.findAllOrderByPublisher();
-            case "publication_year" -> bookRepository.findAllOrderByPublicationYear();
-            case "id" -> bookRepository.findAllOrderById();
-            default -> bookRepository.findAllOrderByTitle();
-        };
-        return books.stream().map(BookDTO::fromEntity).toList();
+        // Se sirve desde el catálogo en memoria, sin abrir transacción ni consultar la base de datos
+        return bookCatalog.getAllBooks(BookSort.fromParam(sortBy));
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<BookDTO> getBooksByKeyword(String keyword) {
         log.debug("Getting books by keyword: {}", keyword);
         if (keyword.equals("+")) {
-            return bookRepository.findAll().stream().map(BookDTO::fromEntity).toList();
+            return bookCatalog.getAllBooks(BookSort.ID).reversed();
         } else {
-            return bookRepository.findByKeyword(keyword).stream().map(BookDTO::fromEntity).toList();
+            return bookSearchIndex.search(keyword);
         }
     }
 
+    @Override
+    public BookPageDTO getBooksPage(String sortBy, int limit, String after) {
+        log.debug("Getting page of {} books sorted by: {}", limit, sortBy);
+        return bookPaginationService.getBooksPage(BookSort.fromParam(sortBy), limit, after);
+    }
+
+    @Override
+    public BookPageDTO getBooksByKeywordPage(String keyword, int limit, String after) {
+        log.debug("Getting page of {} books by keyword: {}", limit, keyword);
+        return bookPaginationService.getBooksByKeywordPage(keyword, limit, after);
+    }
+
     @Override
     @Transactional(readOnly = true)
     public BookDTO getBookByISBN(Long isbn) {
         log.debug("Getting details for book with ISBN: {}", isbn);
-        BookEntity book = bookFinder.findBookByIsbn(isbn);
-        return BookDTO.fromEntity(book);
+        return bookFinder.findBookDetailsByIsbn(isbn);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public BookCountDTO getBookCount() {
         log.debug("Getting the total number of books stored");
-        Long count = bookRepository.count();
+        long count = bookCatalog.size();
         return new BookCountDTO(count);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<BookDTO> getRandomBooks(Long count) {
         log.debug("Getting ({}) random books", count);
-        return bookRepository.findRandomBooks(count).stream().map(BookDTO::fromEntity).toList();
+        return randomBookService.getRandomBooks(count);
     }
 
     @Override
-    @Transactional
     public String addNewBook(InputBookDTO data) {
         log.info("Adding new book");
+        StagedCover cover = bookCoverService.stageCover(data.cover(), data.isbn());
+        BookEntity book = toEntity(data);
 
-        validator.ensureIsbnIsUnique(data.isbn());
-        validator.ensureLocationIsAvailable(data.location());
-
-        BookEntity book = new BookEntity();
-        book.setIsbn(data.isbn());
-        book.setTitle(data.title());
-        book.setAuthor(BookUtils.normalizeOrDefault(data.author(), "S.A"));
-        book.setPublisher(BookUtils.normalizeOrDefault(data.publisher(), "S.E"));
-        book.setPublicationYear(BookUtils.normalizeOrDefault(data.publication_year(), "S.F"));
-        book.setLocation(BookUtils.normalizeOrDefault(data.location(), "---"));
-
-        // Guardar el libro en la base de datos
-        bookRepository.save(book);
-        bookCoverService.saveCover(data.cover(), data.isbn());
+        // Un solo INSERT; la unicidad de ISBN y ubicación la comprueban las restricciones de la tabla
+        transactionTemplate.executeWithoutResult(status -> {
+            // La portada se publica en segundo plano cuando se confirma, sin retener la conexión
+            bookCoverService.saveCoverAfterCommit(cover);
+            BookEntity savedBook = saveOrConflict(book);
+            eventPublisher.publishEvent(new BookSavedEvent(null, BookDTO.fromEntity(savedBook)));
+        });
 
         return "Libro almacenado correctamente";
     }
 
     @Override
-    @Transactional
     public String updateBook(InputBookDTO data, Long isbn) {
         log.info("Updating book");
-        BookEntity bookToUpdate = bookFinder.findBookByIsbn(isbn);
-
-        if (!bookToUpdate.getIsbn().equals(data.isbn())) {
-            validator.ensureIsbnIsUnique(data.isbn());
-        }
-
-        if (!bookToUpdate.getLocation().equals(data.location())) {
-            validator.ensureLocationIsAvailable(data.location());
-        }
-
-        bookToUpdate.setIsbn(data.isbn());
-        bookToUpdate.setTitle(data.title());
-        bookToUpdate.setAuthor(BookUtils.normalizeOrDefault(data.author(), "S.A"));
-        bookToUpdate.setPublisher(BookUtils.normalizeOrDefault(data.publisher(), "S.E"));
-        bookToUpdate.setPublicationYear(BookUtils.normalizeOrDefault(data.publication_year(), "S.F"));
-        bookToUpdate.setLocation(BookUtils.normalizeOrDefault(data.location(), "---"));
-
-        // actualizar el libro en la base de datos
-        bookRepository.save(bookToUpdate);
-        bookCoverService.saveCover(data.cover(), data.isbn());
+        BookDTO current = bookFinder.findCurrentBook(isbn);
+        StagedCover cover = bookCoverService.stageCover(data.cover(), data.isbn());
+        BookEntity changes = toEntity(data);
+
+        // Un solo UPDATE por ISBN que además verifica la versión
+        transactionTemplate.executeWithoutResult(status -> {
+            bookCoverService.saveCoverAfterCommit(cover);
+            // Sin versión del cliente no hay nada que comprobar: se toma la de la base de datos (no la
+            // del catálogo en memoria, que puede ir atrasada) con la fila bloqueada hasta el commit
+            long expectedVersion = data.version() != null
+                    ? data.version()
+                    : bookRepository.findVersionByIsbnForUpdate(isbn).orElseThrow(() -> staleUpdate(isbn));
+            if (updateOrConflict(isbn, expectedVersion, changes) == 0) {
+                throw staleUpdate(isbn);
+            }
+            BookDTO updatedBook = new BookDTO(current.id(), changes.getIsbn(), changes.getTitle(), changes.getAuthor(),
+                    changes.getPublisher(), changes.getPublicationYear(), changes.getLocation(), expectedVersion + 1);
+            eventPublisher.publishEvent(new BookSavedEvent(isbn, updatedBook));
+        });
 
         return "Libro actualizado correctamente";
     }
 
+    // Solo cambia el archivo: no hay transacción, así que la portada se publica en cuanto se valida
+    @Override
+    public CoverStatusDTO uploadCover(Long isbn, InputStream content, long contentLength) {
+        log.info("Uploading book cover");
+        bookFinder.findCurrentBook(isbn);
+        StagedCover cover = bookCoverService.stageCover(content, contentLength, isbn);
+        bookCoverService.saveCoverAfterCommit(cover);
+        return new CoverStatusDTO(isbn, bookCoverService.getCoverStatus(isbn));
+    }
+
     @Override
-    @Transactional
     public void deleteBook(Long isbn) {
         log.info("Deleting book");
-        BookEntity book = bookFinder.findBookByIsbn(isbn);
-        bookCoverService.deleteCover(book.getIsbn());
-        bookRepository.delete(book);
+        transactionTemplate.executeWithoutResult(status -> {
+            if (bookRepository.deleteByIsbn(isbn) == 0) {
+                log.error("Book not found with ISBN: {}", isbn);
+                throw new AppException("Book not found.", HttpStatus.NOT_FOUND);
+            }
+            bookCoverService.deleteCoverAfterCommit(isbn);
+            eventPublisher.publishEvent(new BookDeletedEvent(isbn));
+        });
     }
 
     @Override
-    @Transactional(readOnly = true)
     public List<LocationDTO> getLocationBooks() {
         log.debug("Getting book location structure");
-        List<BookEntity> books = bookRepository.findAll();
-        return bookLocationService.organizeBookLocations(books);
+        return bookLocationService.getBookLocations();
+    }
+
+    @Override
+    public LocationDTO getLocationShelf(String shelf) {
+        log.debug("Getting book location structure for shelf: {}", shelf);
+        return bookLocationService.getShelf(shelf);
+    }
+
+    @Override
+    public SectionDTO getLocationSection(String shelf, String section) {
+        log.debug("Getting book location structure for shelf {} section {}", shelf, section);
+        return bookLocationService.getSection(shelf, section);
+    }
+
+    // hasCover se serializa con cada libro, así que el ETag también cambia cuando cambian las portadas
+    @Override
+    public String getCatalogETag() {
+        return "\"" + catalogVersionService.getCurrentVersion() + "-" + bookCoverService.getCoverGeneration() + "\"";
+    }
+
+    @Override
+    public StreamingResponseBody exportBooks(BookExportFormat format) {
+        log.debug("Streaming book catalog export as {}", format);
+        return bookExportService.exportBooks(format);
+    }
+
+    @Override
+    public BookImportReportDTO importBooks(BookImportFormat format, InputStream inputStream) throws IOException {
+        log.info("Bulk importing books");
+        return bookImportService.importBooks(format, inputStream);
+    }
+
+    private static BookEntity toEntity(InputBookDTO data) {
+        BookEntity book = new BookEntity();
+        book.setIsbn(data.isbn());
+        book.setTitle(data.title());
+        book.setAuthor(BookUtils.normalizeOrDefault(data.author(), "S.A"));
+        book.setPublisher(BookUtils.normalizeOrDefault(data.publisher(), "S.E"));
+        book.setPublicationYear(BookUtils.normalizeOrDefault(data.publication_year(), "S.F"));
+        book.setLocation(BookUtils.normalizeOrDefault(data.location(), BookEntity.DEFAULT_LOCATION));
+        BookLocationParser.assignComponents(book);
+        BookSortKeys.assign(book);
+        return book;
     }
 
+    private BookEntity saveOrConflict(BookEntity book) {
+        try {
+            return bookRepository.save(book);
+        } catch (DataIntegrityViolationException e) {
+            throw validator.toConflict(e);
+        }
+    }
+
+    private int updateOrConflict(Long isbn, long expectedVersion, BookEntity changes) {
+        try {
+            return bookRepository.updateByIsbn(isbn, expectedVersion, changes);
+        } catch (DataIntegrityViolationException e) {
+            throw validator.toConflict(e);
+        }
+    }
+
+    // Solo en el camino de error se consulta si el libro fue borrado o cambió de versión
+    private AppException staleUpdate(Long isbn) {
+        if (!bookRepository.existsByIsbn(isbn)) {
+            log.error("Book not found with ISBN: {}", isbn);
+            return new AppException("Book not found.", HttpStatus.NOT_FOUND);
+        }
+        log.warn("Book with ISBN {} was modified concurrently", isbn);
+        return new AppException("El libro fue modificado por otro usuario. Recarga sus datos e inténtalo de nuevo.", HttpStatus.CONFLICT);
+    }
 }
@@ -0,0 +1,16 @@
+package com.williammedina.biblioteca.domain.book.service.catalog;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface BookCatalog {
+
+    List<BookDTO> getAllBooks(BookSort sort);
+    Optional<BookDTO> findByIsbn(Long isbn);
+    int size();
+    List<BookDTO> sample(int count);
+    void reload();
+
+}
@@ -0,0 +1,101 @@
+package com.williammedina.biblioteca.domain.book.service.catalog;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+import com.williammedina.biblioteca.domain.book.event.BookDeletedEvent;
+import com.williammedina.biblioteca.domain.book.event.BookSavedEvent;
+import com.williammedina.biblioteca.domain.book.event.CatalogChangedEvent;
+import com.williammedina.biblioteca.domain.book.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.Optional;
+
+// Catálogo completo en memoria. Se carga en la primera lectura y después se actualiza
+// con los eventos de escritura, que solo llegan una vez confirmada la transacción.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookCatalogImpl implements BookCatalog {
+
+    private final BookRepository bookRepository;
+
+    private final Object writeLock = new Object();
+    private volatile CatalogSnapshot snapshot;
+
+    @Override
+    public List<BookDTO> getAllBooks(BookSort sort) {
+        return currentSnapshot().view(sort);
+    }
+
+    @Override
+    public Optional<BookDTO> findByIsbn(Long isbn) {
+        return currentSnapshot().findByIsbn(isbn);
+    }
+
+    @Override
+    public int size() {
+        return currentSnapshot().size();
+    }
+
+    @Override
+    public List<BookDTO> sample(int count) {
+        return currentSnapshot().sample(count);
+    }
+
+    @Override
+    public void reload() {
+        synchronized (writeLock) {
+            log.debug("Loading book catalog into memory");
+            List<CatalogEntry> entries = bookRepository.findAllBooks().stream()
+                    .map(book -> CatalogEntry.of(book))
+                    .toList();
+            snapshot = CatalogSnapshot.of(entries);
+            log.info("Book catalog loaded into memory: {} books", entries.size());
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookSaved(BookSavedEvent event) {
+        synchronized (writeLock) {
+            // Si aún no se cargó, la primera lectura ya verá el cambio confirmado
+            if (snapshot != null) {
+                snapshot = snapshot.withEntry(event.previousIsbn(), CatalogEntry.of(event.book()));
+            }
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookDeleted(BookDeletedEvent event) {
+        synchronized (writeLock) {
+            if (snapshot != null) {
+                snapshot = snapshot.withoutEntry(event.isbn());
+            }
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        synchronized (writeLock) {
+            if (snapshot != null) {
+                reload();
+            }
+        }
+    }
+
+    private CatalogSnapshot currentSnapshot() {
+        CatalogSnapshot current = snapshot;
+        if (current == null) {
+            synchronized (writeLock) {
+                if (snapshot == null) {
+                    reload();
+                }
+                current = snapshot;
+            }
+        }
+        return current;
+    }
+}
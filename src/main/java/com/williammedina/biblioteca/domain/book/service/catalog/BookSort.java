@@ -0,0 +1,21 @@
+package com.williammedina.biblioteca.domain.book.service.catalog;
+
+public enum BookSort {
+
+    TITLE,
+    AUTHOR,
+    PUBLISHER,
+    PUBLICATION_YEAR,
+    ID;
+
+    // Cualquier valor desconocido ordena por título, igual que el endpoint original
+    public static BookSort fromParam(String sortBy) {
+        return switch (sortBy) {
+            case "author" -> AUTHOR;
+            case "publisher" -> PUBLISHER;
+            case "publication_year" -> PUBLICATION_YEAR;
+            case "id" -> ID;
+            default -> TITLE;
+        };
+    }
+}
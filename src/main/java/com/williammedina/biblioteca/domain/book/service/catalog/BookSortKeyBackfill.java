@@ -0,0 +1,89 @@
+package com.williammedina.biblioteca.domain.book.service.catalog;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Completa las columnas de ordenamiento de los libros guardados antes de que existieran y recalcula
+// las que se guardaron con otra regla de BookSortKeys (las claves calculadas ahora no coinciden).
+// Escribe por JDBC, sin pasar por la entidad: no cambia ningún dato visible, así que tampoco
+// debe cambiar la versión del libro ni la del catálogo. Una escritura concurrente ya deja las claves
+// calculadas con los valores nuevos, por eso solo se toca la fila si su versión sigue siendo la leída.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSortKeyBackfill implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private static final String SELECT_BATCH = "SELECT id, version, title, author, publisher, publication_year, " +
+            "title_sort_key, author_sort_key, publisher_sort_key, publication_year_sort_key " +
+            "FROM books WHERE id > ? ORDER BY id LIMIT ?";
+
+    private static final String UPDATE_SORT_KEYS = "UPDATE books SET title_sort_key = ?, author_sort_key = ?, " +
+            "publisher_sort_key = ?, publication_year_sort_key = ?, author_unknown = ?, publisher_unknown = ?, " +
+            "publication_year_unknown = ? WHERE id = ? AND version = ?";
+
+    private record Row(long id, long version, String title, String author, String publisher, String publicationYear,
+                       boolean current) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long lastId = 0;
+        int updated = 0;
+
+        while (true) {
+            List<Row> batch = jdbcTemplate.query(SELECT_BATCH, (resultSet, rowNumber) -> {
+                String title = resultSet.getString("title");
+                String author = resultSet.getString("author");
+                String publisher = resultSet.getString("publisher");
+                String publicationYear = resultSet.getString("publication_year");
+                boolean current = Arrays.equals(resultSet.getBytes("title_sort_key"), BookSortKeys.key(title))
+                        && Arrays.equals(resultSet.getBytes("author_sort_key"), BookSortKeys.key(author))
+                        && Arrays.equals(resultSet.getBytes("publisher_sort_key"), BookSortKeys.key(publisher))
+                        && Arrays.equals(resultSet.getBytes("publication_year_sort_key"), BookSortKeys.key(publicationYear));
+                return new Row(resultSet.getLong("id"), resultSet.getLong("version"),
+                        title, author, publisher, publicationYear, current);
+            }, lastId, BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+
+            List<Row> stale = new ArrayList<>();
+            for (Row row : batch) {
+                if (!row.current()) {
+                    stale.add(row);
+                }
+            }
+            if (!stale.isEmpty()) {
+                jdbcTemplate.batchUpdate(UPDATE_SORT_KEYS, stale, stale.size(), (statement, book) -> {
+                    statement.setBytes(1, BookSortKeys.key(book.title()));
+                    statement.setBytes(2, BookSortKeys.key(book.author()));
+                    statement.setBytes(3, BookSortKeys.key(book.publisher()));
+                    statement.setBytes(4, BookSortKeys.key(book.publicationYear()));
+                    statement.setBoolean(5, BookSortKeys.isUnknown(book.author(), BookSortKeys.UNKNOWN_AUTHOR));
+                    statement.setBoolean(6, BookSortKeys.isUnknown(book.publisher(), BookSortKeys.UNKNOWN_PUBLISHER));
+                    statement.setBoolean(7, BookSortKeys.isUnknown(book.publicationYear(), BookSortKeys.UNKNOWN_PUBLICATION_YEAR));
+                    statement.setLong(8, book.id());
+                    statement.setLong(9, book.version());
+                });
+                updated += stale.size();
+            }
+            lastId = batch.getLast().id();
+        }
+
+        if (updated > 0) {
+            log.info("Backfilled sort key columns for {} books", updated);
+        }
+    }
+}
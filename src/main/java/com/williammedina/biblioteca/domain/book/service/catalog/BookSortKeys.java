@@ -0,0 +1,72 @@
+package com.williammedina.biblioteca.domain.book.service.catalog;
+
+import com.williammedina.biblioteca.domain.book.entity.BookEntity;
+
+import java.text.Collator;
+import java.text.ParseException;
+import java.text.RuleBasedCollator;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Locale;
+
+// Única definición del orden del catálogo. Las claves son los bytes de la collation (sin distinguir
+// mayúsculas ni acentos) y se comparan byte a byte sin signo: así las compara MySQL en una columna
+// VARBINARY y así las compara el catálogo en memoria, por lo que la paginación por cursor y el
+// listado completo dan exactamente el mismo orden.
+// La collation imita a utf8mb4_0900_ai_ci, la de las columnas de texto: espacios y signos cuentan
+// ("El zorro" va antes que "Ella") y van antes que los dígitos y las letras, en el orden de Unicode.
+public final class BookSortKeys {
+
+    public static final String UNKNOWN_AUTHOR = "S.A";
+    public static final String UNKNOWN_PUBLISHER = "S.E";
+    public static final String UNKNOWN_PUBLICATION_YEAR = "S.F";
+
+    static final Comparator<byte[]> KEY_ORDER = Arrays::compareUnsigned;
+
+    // Las reglas por defecto de Java ignoran espacios y guiones y ordenan los signos de otra forma.
+    // Se vuelven a declarar justo después del último ignorable (\u2212) y antes del primer carácter
+    // con peso propio, para que los acentos sigan siendo ignorables.
+    private static final String SIGNIFICANT_PUNCTUATION = "& '\u2212'"
+            + " < '\t' < '\n' < '\u000B' < '\u000C' < '\r' < ' ', '\u00A0', '\u3000'"
+            + " < '_' < '-', '\u2010', '\u2011', '\u2013', '\u2014'"
+            + " < ',' < ';' < ':' < '!' < '?' < '.' < ''' < '\"' < '(' < ')' < '[' < ']' < '{' < '}'"
+            + " < '@' < '*' < '/' < '\\' < '&' < '#' < '%' < '`' < '^' < '+' < '<' < '=' < '>' < '|' < '~' < '$'";
+
+    private static final RuleBasedCollator TEMPLATE = createCollator();
+
+    // Collator no es thread-safe: una copia por hilo
+    private static final ThreadLocal<Collator> COLLATOR = ThreadLocal.withInitial(() -> (Collator) TEMPLATE.clone());
+
+    private BookSortKeys() {}
+
+    private static RuleBasedCollator createCollator() {
+        String rules = ((RuleBasedCollator) Collator.getInstance(Locale.ROOT)).getRules();
+        try {
+            RuleBasedCollator collator = new RuleBasedCollator(rules + SIGNIFICANT_PUNCTUATION);
+            collator.setStrength(Collator.PRIMARY);
+            return collator;
+        } catch (ParseException e) {
+            throw new IllegalStateException("Reglas de ordenamiento inválidas", e);
+        }
+    }
+
+    public static byte[] key(String text) {
+        return COLLATOR.get().getCollationKey(text != null ? text : "").toByteArray();
+    }
+
+    // Los valores por defecto ("S.A", "S.E", "S.F") van al final, igual que el listado original
+    public static boolean isUnknown(String text, String placeholder) {
+        return text != null && text.toUpperCase(Locale.ROOT).contains(placeholder);
+    }
+
+    // Copia las claves de ordenamiento de los valores actuales del libro a sus columnas
+    public static void assign(BookEntity book) {
+        book.setTitleSortKey(key(book.getTitle()));
+        book.setAuthorSortKey(key(book.getAuthor()));
+        book.setPublisherSortKey(key(book.getPublisher()));
+        book.setPublicationYearSortKey(key(book.getPublicationYear()));
+        book.setAuthorUnknown(isUnknown(book.getAuthor(), UNKNOWN_AUTHOR));
+        book.setPublisherUnknown(isUnknown(book.getPublisher(), UNKNOWN_PUBLISHER));
+        book.setPublicationYearUnknown(isUnknown(book.getPublicationYear(), UNKNOWN_PUBLICATION_YEAR));
+    }
+}
@@ -0,0 +1,75 @@
+package com.williammedina.biblioteca.domain.book.service.catalog;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+
+import java.util.Comparator;
+
+// Libro del catálogo con sus claves de ordenamiento ya calculadas
+record CatalogEntry(
+        BookDTO book,
+        byte[] title,
+        byte[] author,
+        byte[] publisher,
+        byte[] publicationYear,
+        boolean unknownAuthor,
+        boolean unknownPublisher,
+        boolean unknownPublicationYear
+) {
+
+    // Mismo orden que las consultas BookRepository.findAllOrderBy*, sobre las mismas claves; el id solo desempata
+    static final Comparator<CatalogEntry> BY_TITLE = Comparator
+            .comparing(CatalogEntry::title, BookSortKeys.KEY_ORDER)
+            .thenComparing(CatalogEntry::id);
+
+    static final Comparator<CatalogEntry> BY_AUTHOR = Comparator
+            .comparing(CatalogEntry::unknownAuthor)
+            .thenComparing(CatalogEntry::author, BookSortKeys.KEY_ORDER)
+            .thenComparing(CatalogEntry::title, BookSortKeys.KEY_ORDER)
+            .thenComparing(CatalogEntry::id);
+
+    static final Comparator<CatalogEntry> BY_PUBLISHER = Comparator
+            .comparing(CatalogEntry::unknownPublisher)
+            .thenComparing(CatalogEntry::publisher, BookSortKeys.KEY_ORDER)
+            .thenComparing(CatalogEntry::title, BookSortKeys.KEY_ORDER)
+            .thenComparing(CatalogEntry::id);
+
+    static final Comparator<CatalogEntry> BY_PUBLICATION_YEAR = Comparator
+            .comparing(CatalogEntry::unknownPublicationYear)
+            .thenComparing(CatalogEntry::publicationYear, BookSortKeys.KEY_ORDER.reversed())
+            .thenComparing(CatalogEntry::title, BookSortKeys.KEY_ORDER)
+            .thenComparing(CatalogEntry::id);
+
+    static final Comparator<CatalogEntry> BY_ID_DESC = Comparator
+            .comparing(CatalogEntry::id, Comparator.reverseOrder());
+
+    static CatalogEntry of(BookDTO book) {
+        return new CatalogEntry(
+                book,
+                BookSortKeys.key(book.title()),
+                BookSortKeys.key(book.author()),
+                BookSortKeys.key(book.publisher()),
+                BookSortKeys.key(book.publication_year()),
+                BookSortKeys.isUnknown(book.author(), BookSortKeys.UNKNOWN_AUTHOR),
+                BookSortKeys.isUnknown(book.publisher(), BookSortKeys.UNKNOWN_PUBLISHER),
+                BookSortKeys.isUnknown(book.publication_year(), BookSortKeys.UNKNOWN_PUBLICATION_YEAR)
+        );
+    }
+
+    static Comparator<CatalogEntry> comparator(BookSort sort) {
+        return switch (sort) {
+            case AUTHOR -> BY_AUTHOR;
+            case PUBLISHER -> BY_PUBLISHER;
+            case PUBLICATION_YEAR -> BY_PUBLICATION_YEAR;
+            case ID -> BY_ID_DESC;
+            case TITLE -> BY_TITLE;
+        };
+    }
+
+    Long id() {
+        return book.id();
+    }
+
+    Long isbn() {
+        return book.isbn();
+    }
+}
@@ -0,0 +1,135 @@
+package com.williammedina.biblioteca.domain.book.service.catalog;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+// Copia inmutable del catálogo con una vista ordenada por cada criterio.
+// Cada escritura produce un snapshot nuevo, así las lecturas nunca bloquean.
+final class CatalogSnapshot {
+
+    static final CatalogSnapshot EMPTY = of(List.of());
+
+    private final Map<Long, CatalogEntry> byIsbn;
+    private final Map<BookSort, CatalogEntry[]> sortedEntries;
+    private final Map<BookSort, List<BookDTO>> views = new EnumMap<>(BookSort.class);
+
+    private CatalogSnapshot(Map<Long, CatalogEntry> byIsbn, Map<BookSort, CatalogEntry[]> sortedEntries) {
+        this.byIsbn = byIsbn;
+        this.sortedEntries = sortedEntries;
+        sortedEntries.forEach((sort, entries) -> views.put(sort, toBooks(entries)));
+    }
+
+    static CatalogSnapshot of(Collection<CatalogEntry> entries) {
+        Map<Long, CatalogEntry> byIsbn = HashMap.newHashMap(entries.size());
+        entries.forEach(entry -> byIsbn.put(entry.isbn(), entry));
+
+        Map<BookSort, CatalogEntry[]> sortedEntries = new EnumMap<>(BookSort.class);
+        for (BookSort sort : BookSort.values()) {
+            CatalogEntry[] sorted = byIsbn.values().toArray(CatalogEntry[]::new);
+            Arrays.sort(sorted, CatalogEntry.comparator(sort));
+            sortedEntries.put(sort, sorted);
+        }
+        return new CatalogSnapshot(byIsbn, sortedEntries);
+    }
+
+    List<BookDTO> view(BookSort sort) {
+        return views.get(sort);
+    }
+
+    Optional<BookDTO> findByIsbn(Long isbn) {
+        return Optional.ofNullable(byIsbn.get(isbn)).map(CatalogEntry::book);
+    }
+
+    int size() {
+        return byIsbn.size();
+    }
+
+    // Muestra uniforme sin reemplazo (algoritmo de Floyd): cuesta O(count) sin importar el tamaño del catálogo
+    List<BookDTO> sample(int count) {
+        List<BookDTO> books = views.get(BookSort.ID);
+        int total = books.size();
+        int size = Math.min(count, total);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+
+        Set<Integer> chosen = HashSet.newHashSet(size);
+        for (int j = total - size; j < total; j++) {
+            int candidate = random.nextInt(j + 1);
+            if (!chosen.add(candidate)) {
+                chosen.add(j);
+            }
+        }
+
+        List<BookDTO> sample = new ArrayList<>(size);
+        chosen.forEach(index -> sample.add(books.get(index)));
+        // Floyd elige el conjunto de forma uniforme pero no su orden
+        Collections.shuffle(sample, random);
+        return sample;
+    }
+
+    // Inserta o reemplaza un libro; previousIsbn indica la entrada a retirar si cambió de ISBN
+    CatalogSnapshot withEntry(Long previousIsbn, CatalogEntry entry) {
+        Map<Long, CatalogEntry> updated = new HashMap<>(byIsbn);
+        CatalogEntry previous = previousIsbn != null ? updated.remove(previousIsbn) : null;
+        CatalogEntry replaced = updated.put(entry.isbn(), entry);
+
+        Map<BookSort, CatalogEntry[]> sorted = new EnumMap<>(BookSort.class);
+        sortedEntries.forEach((sort, entries) -> {
+            Comparator<CatalogEntry> comparator = CatalogEntry.comparator(sort);
+            CatalogEntry[] result = remove(entries, previous, comparator);
+            result = remove(result, replaced, comparator);
+            sorted.put(sort, insert(result, entry, comparator));
+        });
+        return new CatalogSnapshot(updated, sorted);
+    }
+
+    CatalogSnapshot withoutEntry(Long isbn) {
+        if (!byIsbn.containsKey(isbn)) {
+            return this;
+        }
+
+        Map<Long, CatalogEntry> updated = new HashMap<>(byIsbn);
+        CatalogEntry removed = updated.remove(isbn);
+
+        Map<BookSort, CatalogEntry[]> sorted = new EnumMap<>(BookSort.class);
+        sortedEntries.forEach((sort, entries) ->
+                sorted.put(sort, remove(entries, removed, CatalogEntry.comparator(sort))));
+        return new CatalogSnapshot(updated, sorted);
+    }
+
+    private static CatalogEntry[] insert(CatalogEntry[] entries, CatalogEntry entry, Comparator<CatalogEntry> comparator) {
+        int index = Arrays.binarySearch(entries, entry, comparator);
+        int position = index < 0 ? -index - 1 : index;
+
+        CatalogEntry[] result = new CatalogEntry[entries.length + 1];
+        System.arraycopy(entries, 0, result, 0, position);
+        result[position] = entry;
+        System.arraycopy(entries, position, result, position + 1, entries.length - position);
+        return result;
+    }
+
+    private static CatalogEntry[] remove(CatalogEntry[] entries, CatalogEntry entry, Comparator<CatalogEntry> comparator) {
+        if (entry == null) {
+            return entries;
+        }
+
+        int position = Arrays.binarySearch(entries, entry, comparator);
+        if (position < 0) {
+            return entries;
+        }
+
+        CatalogEntry[] result = new CatalogEntry[entries.length - 1];
+        System.arraycopy(entries, 0, result, 0, position);
+        System.arraycopy(entries, position + 1, result, position, entries.length - position - 1);
+        return result;
+    }
+
+    private static List<BookDTO> toBooks(CatalogEntry[] entries) {
+        BookDTO[] books = new BookDTO[entries.length];
+        for (int i = 0; i < entries.length; i++) {
+            books[i] = entries[i].book();
+        }
+        return Collections.unmodifiableList(Arrays.asList(books));
+    }
+}
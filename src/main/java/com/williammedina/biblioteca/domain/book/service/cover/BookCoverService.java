@@ -1,13 +1,20 @@
 package com.williammedina.biblioteca.domain.book.service.cover;
 
-import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.InputStream;
+import java.util.Optional;
+
 public interface BookCoverService {
 
-    void saveCover(MultipartFile cover, Long isbn);
-    void deleteCover(Long isbn);
+    StagedCover stageCover(MultipartFile cover, Long isbn);
+    StagedCover stageCover(InputStream content, long contentLength, Long isbn);
+    void saveCoverAfterCommit(StagedCover cover);
+    void deleteCoverAfterCommit(Long isbn);
+    CoverStatus getCoverStatus(Long isbn);
+    boolean hasCover(Long isbn);
+    long getCoverGeneration();
     String getCoverFileName(Long isbn, MultipartFile cover);
-    Resource loadCover(String filename);
+    Optional<StoredCover> findCover(CoverSize size, String filename);
 
 }
@@ -1,62 +1,383 @@
 package com.williammedina.biblioteca.domain.book.service.cover;
 
 import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import com.williammedina.biblioteca.infrastructure.exception.RetryLaterException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.core.io.Resource;
-import org.springframework.core.io.UrlResource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
 
 import java.io.IOException;
-import java.nio.file.Files;
-import java.nio.file.Path;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookCoverServiceImpl implements BookCoverService {
 
-    private final String uploadDir = "uploads/covers";
+    // Mismo sistema de archivos que uploads/covers, para que el movimiento final sea atómico
+    private final Path stagingDir = Paths.get("uploads", ".staging");
 
-    @Override
-    public void saveCover(MultipartFile cover, Long isbn) {
+    @Value("${books.covers.writer-threads:2}")
+    private int writerThreads;
+
+    @Value("${books.covers.writer-queue-capacity:100}")
+    private int writerQueueCapacity;
+
+    @Value("${books.covers.writer-retry-after-seconds:5}")
+    private long writerRetryAfterSeconds;
+
+    @Value("${books.covers.failed-retention-ms:600000}")
+    private long failedRetentionMs;
+
+    @Value("${books.covers.upload.max-bytes:5242880}")
+    private long maxUploadBytes;
+
+    @Value("${books.covers.upload.max-pixels:40000000}")
+    private long maxUploadPixels;
+
+    @Value("${books.covers.upload.max-header-bytes:262144}")
+    private int maxHeaderBytes;
+
+    private static final int ISBN_LOCK_STRIPES = 64;
+
+    private record CoverUpload(long id, CoverStatus status, long updatedAt) {
+    }
+
+    // Subidas en curso o fallidas por ISBN; sin entrada, el estado se deduce de si el archivo existe.
+    // Las fallidas se olvidan pasado books.covers.failed-retention-ms
+    private final Map<Long, CoverUpload> uploads = new ConcurrentHashMap<>();
+    // Serializan la escritura y el borrado de la portada de un mismo ISBN sin bloquear el mapa de subidas
+    private final Object[] isbnLocks = new Object[ISBN_LOCK_STRIPES];
+    private final AtomicLong uploadSequence = new AtomicLong();
+    // ISBN con portada publicada; coverGeneration cambia cada vez que el conjunto cambia
+    private final Set<Long> coverIsbns = ConcurrentHashMap.newKeySet();
+    private final AtomicLong coverGeneration = new AtomicLong();
+    private final CoverCache coverCache;
+    private final CoverStore coverStore;
+    private final CoverRenditionService coverRenditionService;
+    private ThreadPoolExecutor writer;
+
+    @PostConstruct
+    void initialize() throws IOException {
+        for (int i = 0; i < isbnLocks.length; i++) {
+            isbnLocks[i] = new Object();
+        }
+        coverStore.fileNames().parallelStream()
+                .map(BookCoverServiceImpl::isbnOf)
+                .filter(Objects::nonNull)
+                .forEach(coverIsbns::add);
+        log.info("{} books have a cover", coverIsbns.size());
 
+        Files.createDirectories(stagingDir);
+        // Restos de subidas que no llegaron a confirmarse antes de un reinicio
+        try (DirectoryStream<Path> leftovers = Files.newDirectoryStream(stagingDir)) {
+            for (Path leftover : leftovers) {
+                Files.deleteIfExists(leftover);
+            }
+        }
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Cola acotada: las subidas se rechazan antes de abrir la transacción si está llena (checkWriterCapacity).
+        // Nunca se escribe en el hilo de la petición, que al publicar todavía retiene la conexión
+        writer = new ThreadPoolExecutor(writerThreads, writerThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(writerQueueCapacity),
+                runnable -> new Thread(runnable, "cover-writer-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        writer.shutdown();
+        if (!writer.awaitTermination(10, TimeUnit.SECONDS)) {
+            log.warn("Cover writer did not finish pending covers before shutdown");
+        }
+    }
+
+    // Valida la portada y la deja en un temporal antes de abrir la transacción. La cabecera JPEG se
+    // comprueba leyendo solo el principio; si el multipart ya está en disco, transferTo solo lo renombra.
+    @Override
+    public StagedCover stageCover(MultipartFile cover, Long isbn) {
         if (cover == null || cover.isEmpty()) {
             log.debug("No cover file provided for ISBN: {}", isbn);
-            return;
+            return null;
         }
 
         String fileName = getCoverFileName(isbn, cover);
-        Path path = Paths.get(uploadDir, fileName);
+        checkUploadSize(cover.getSize(), isbn);
+        checkWriterCapacity(isbn);
+        Path file = stagingDir.resolve(UUID.randomUUID() + ".tmp").toAbsolutePath();
+        try {
+            try (InputStream content = cover.getInputStream()) {
+                checkJpegHeader(new JpegHeaderReader(content, maxHeaderBytes), isbn);
+            }
+            cover.transferTo(file.toFile());
+        } catch (IOException e) {
+            log.error("Failed to stage book cover for ISBN {}: {}", isbn, e.getMessage());
+            throw new RuntimeException("Error al guardar la portada del libro", e);
+        }
+        return new StagedCover(isbn, fileName, file);
+    }
 
+    // Subida directa del cuerpo de la petición: se copia al temporal a medida que llega, después de
+    // validar la cabecera y cortando en cuanto supera el tamaño máximo
+    @Override
+    public StagedCover stageCover(InputStream content, long contentLength, Long isbn) {
+        checkUploadSize(contentLength, isbn);
+        checkWriterCapacity(isbn);
+        JpegHeaderReader header = new JpegHeaderReader(content, maxHeaderBytes);
+        Path file = stagingDir.resolve(UUID.randomUUID() + ".tmp").toAbsolutePath();
         try {
-            Files.copy(cover.getInputStream(), path, StandardCopyOption.REPLACE_EXISTING);
-            log.info("Book cover saved for ISBN: {}", isbn);
+            checkJpegHeader(header, isbn);
+            try (OutputStream out = Files.newOutputStream(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                out.write(header.buffer(), 0, header.count());
+                long total = header.count();
+                byte[] chunk = new byte[64 * 1024];
+                int read;
+                while ((read = content.read(chunk)) >= 0) {
+                    total += read;
+                    checkUploadSize(total, isbn);
+                    out.write(chunk, 0, read);
+                }
+            }
         } catch (IOException e) {
-            log.error("Failed to save book cover for ISBN {}: {}", isbn, e.getMessage());
+            discard(file);
+            log.error("Failed to stage book cover for ISBN {}: {}", isbn, e.getMessage());
             throw new RuntimeException("Error al guardar la portada del libro", e);
+        } catch (RuntimeException e) {
+            discard(file);
+            throw e;
+        }
+        return new StagedCover(isbn, isbn + ".jpg", file);
+    }
+
+    private void checkUploadSize(long bytes, Long isbn) {
+        if (bytes > maxUploadBytes) {
+            log.warn("Cover upload for ISBN {} exceeds {} bytes", isbn, maxUploadBytes);
+            throw new AppException("La portada supera el tamaño máximo de " + maxUploadBytes / (1024 * 1024) + "MB", HttpStatus.PAYLOAD_TOO_LARGE);
+        }
+    }
+
+    // Con la cola del escritor llena la portada no se podría publicar: se rechaza antes de guardar el libro
+    private void checkWriterCapacity(Long isbn) {
+        if (writer.getQueue().remainingCapacity() == 0) {
+            log.warn("Cover upload for ISBN {} rejected: cover writer queue is full", isbn);
+            throw new RetryLaterException("Hay demasiadas portadas pendientes de guardar. Inténtalo de nuevo en unos segundos.",
+                    HttpStatus.TOO_MANY_REQUESTS, writerRetryAfterSeconds);
+        }
+    }
+
+    private void checkJpegHeader(JpegHeaderReader header, Long isbn) throws IOException {
+        int[] dimensions = header.readDimensions();
+        if ((long) dimensions[0] * dimensions[1] > maxUploadPixels) {
+            log.warn("Cover upload for ISBN {} is {}x{} pixels", isbn, dimensions[0], dimensions[1]);
+            throw new AppException("La portada supera el máximo de " + maxUploadPixels + " píxeles", HttpStatus.BAD_REQUEST);
         }
     }
 
+    // Debe llamarse dentro de la transacción del libro: la portada se publica solo si se confirma
+    // y el temporal se descarta si se revierte
     @Override
-    public void deleteCover(Long isbn) {
-        String fileName = isbn + ".jpg";
-        Path path = Paths.get(uploadDir, fileName);
+    public void saveCoverAfterCommit(StagedCover cover) {
+        if (cover == null) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            schedule(cover);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_COMMITTED) {
+                    schedule(cover);
+                } else {
+                    discard(cover.file());
+                }
+            }
+        });
+    }
+
+    @Override
+    public void deleteCoverAfterCommit(Long isbn) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            deleteCover(isbn);
+            return;
+        }
 
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                deleteCover(isbn);
+            }
+        });
+    }
+
+    @Override
+    public boolean hasCover(Long isbn) {
+        return isbn != null && coverIsbns.contains(isbn);
+    }
+
+    @Override
+    public long getCoverGeneration() {
+        return coverGeneration.get();
+    }
+
+    @Override
+    public CoverStatus getCoverStatus(Long isbn) {
+        CoverUpload upload = uploads.get(isbn);
+        if (upload != null) {
+            return upload.status();
+        }
+        return hasCover(isbn) ? CoverStatus.READY : CoverStatus.NONE;
+    }
+
+    // Una subida más nueva reemplaza la entrada: la anterior ve otro id al publicar y se descarta
+    private void schedule(StagedCover cover) {
+        long uploadId = uploadSequence.incrementAndGet();
+        uploads.put(cover.isbn(), new CoverUpload(uploadId, CoverStatus.PENDING, System.nanoTime()));
         try {
-            if (Files.exists(path)) {
-                Files.delete(path);
-                log.info("Book cover deleted for ISBN: {}", isbn);
-            } else {
-                log.warn("No cover found to delete for ISBN: {}", isbn);
+            writer.execute(() -> publish(cover, uploadId));
+        } catch (RejectedExecutionException e) {
+            // La cola se llenó entre checkWriterCapacity y el commit: el libro queda guardado y la portada
+            // como fallida, para que se pueda volver a subir
+            log.warn("Cover writer queue is full, cover for ISBN {} was not saved", cover.isbn());
+            discard(cover.file());
+            markFailed(cover.isbn(), uploadId);
+        }
+    }
+
+    private void publish(StagedCover cover, long uploadId) {
+        try {
+            // Los datos quedan en disco antes del rename, así nunca se publica una portada a medias
+            try (FileChannel channel = FileChannel.open(cover.file(), StandardOpenOption.WRITE)) {
+                channel.force(true);
             }
         } catch (IOException e) {
-            log.error("Failed to delete book cover for ISBN {}: {}", isbn, e.getMessage());
-            throw new RuntimeException("Error al eliminar la portada del libro", e);
+            log.error("Failed to flush staged cover for ISBN {}: {}", cover.isbn(), e.getMessage());
+            discard(cover.file());
+            markFailed(cover.isbn(), uploadId);
+            return;
+        }
+
+        Long isbn = cover.isbn();
+        // Con el bloqueo del ISBN, una subida más nueva o un borrado posterior ganan siempre
+        synchronized (isbnLock(isbn)) {
+            CoverUpload current = uploads.get(isbn);
+            if (current == null || current.id() != uploadId) {
+                log.debug("Discarding superseded cover for ISBN: {}", isbn);
+                discard(cover.file());
+                return;
+            }
+            try {
+                coverStore.put(cover.fileName(), cover.file());
+            } catch (IOException e) {
+                log.error("Failed to save book cover for ISBN {}: {}", isbn, e.getMessage());
+                discard(cover.file());
+                markFailed(isbn, uploadId);
+                return;
+            }
+            invalidateCached(cover.fileName());
+            if (coverIsbns.add(isbn)) {
+                coverGeneration.incrementAndGet();
+            }
+            uploads.remove(isbn, current);
+        }
+        // Las versiones reducidas se encargan fuera del bloqueo
+        coverStore.find(cover.fileName()).ifPresent(coverRenditionService::renderAllAsync);
+        log.info("Book cover saved for ISBN: {}", isbn);
+    }
+
+    private void markFailed(Long isbn, long uploadId) {
+        uploads.computeIfPresent(isbn, (key, current) ->
+                current.id() == uploadId ? new CoverUpload(uploadId, CoverStatus.FAILED, System.nanoTime()) : current);
+    }
+
+    // Quitar la entrada cancela la subida pendiente: al publicarse verá que ya no es la actual
+    private void deleteCover(Long isbn) {
+        String fileName = isbn + ".jpg";
+        synchronized (isbnLock(isbn)) {
+            uploads.remove(isbn);
+            try {
+                boolean deleted = coverStore.delete(fileName);
+                invalidateCached(fileName);
+                if (coverIsbns.remove(isbn)) {
+                    coverGeneration.incrementAndGet();
+                }
+                if (deleted) {
+                    log.info("Book cover deleted for ISBN: {}", isbn);
+                } else {
+                    log.warn("No cover found to delete for ISBN: {}", isbn);
+                }
+            } catch (IOException e) {
+                log.error("Failed to delete book cover for ISBN {}: {}", isbn, e.getMessage());
+            }
+        }
+    }
+
+    private Object isbnLock(Long isbn) {
+        return isbnLocks[Math.floorMod(Long.hashCode(isbn), isbnLocks.length)];
+    }
+
+    // Un estado FAILED solo sirve para que el cliente sepa que debe repetir la subida
+    @Scheduled(fixedDelayString = "${books.covers.failed-retention-ms:600000}")
+    void expireFailedUploads() {
+        long now = System.nanoTime();
+        uploads.values().removeIf(upload -> upload.status() == CoverStatus.FAILED
+                && now - upload.updatedAt() >= TimeUnit.MILLISECONDS.toNanos(failedRetentionMs));
+    }
+
+    // {isbn}.jpg -> isbn, sin excepciones para nombres que no siguen el formato
+    private static Long isbnOf(String fileName) {
+        int end = fileName.length() - ".jpg".length();
+        if (end <= 0 || end > 18 || !fileName.endsWith(".jpg")) {
+            return null;
+        }
+        long isbn = 0;
+        for (int i = 0; i < end; i++) {
+            char c = fileName.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+            isbn = isbn * 10 + (c - '0');
+        }
+        return isbn;
+    }
+
+    private void invalidateCached(String fileName) {
+        for (CoverSize size : CoverSize.values()) {
+            coverCache.invalidate(size.cacheKey(fileName));
+        }
+    }
+
+    private static void discard(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            log.warn("Could not delete staged cover {}: {}", file, e.getMessage());
         }
     }
 
@@ -78,20 +399,28 @@ public class BookCoverServiceImpl implements BookCoverService {
         return isbn + "." + extension;
     }
 
+    // Primero la caché de portadas calientes y luego el store. El nombre solo se busca en el índice
+    // del store, nunca se usa como ruta. Las versiones reducidas que falten se generan al pedirlas.
     @Override
-    public Resource loadCover(String filename) {
+    public Optional<StoredCover> findCover(CoverSize size, String filename) {
+        String key = size.cacheKey(filename);
+        StoredCover cached = coverCache.get(key);
+        if (cached != null) {
+            return Optional.of(cached);
+        }
 
-        try {
-            Path path = Paths.get(uploadDir, filename);
-            Resource resource = new UrlResource(path.toUri());
-            if (!resource.exists() || !resource.isReadable()) {
-                log.warn("Cover image not found or unreadable: {}", filename);
-                throw new RuntimeException("Cover not found for filename: " + filename);
-            }
-            return resource;
-        } catch (Exception e) {
-            log.error("Error retrieving cover image '{}': {}", filename, e.getMessage(), e);
-            throw new RuntimeException("Error loading cover for filename: " + filename, e);
+        // Un libro sin portada se responde desde el índice en memoria, sin tocar el disco
+        Optional<StoredCover> original = coverStore.find(filename);
+        if (original.isEmpty()) {
+            log.debug("Cover image not found: {}", filename);
+            return Optional.empty();
+        }
+        StoredCover cover = coverRenditionService.getRendition(size, original.get());
+        // Lo que el store ya sirve desde memoria no ocupa sitio en la caché, y un original entregado en
+        // lugar de una versión reducida no puede quedar guardado con la clave de esa versión
+        if (!cover.inMemory() && !cover.fallback()) {
+            coverCache.admit(key, filename, cover.file());
         }
+        return Optional.of(cover);
     }
 }
@@ -0,0 +1,173 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+// Caché de las portadas más pedidas, acotada en bytes y guardada en ByteBuffers directos para no
+// cargar el heap. Una portada nueva solo desplaza a la menos usada recientemente si el sketch de
+// frecuencias dice que se pide más (admisión TinyLFU); así un recorrido por portadas frías no
+// vacía la caché.
+@Slf4j
+@Component
+public class CoverCache {
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+
+    // Orden de acceso: el primero es el menos usado recientemente
+    private final LinkedHashMap<String, StoredCover> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private final FrequencySketch sketch;
+    private long residentBytes;
+    // Aumenta con cada invalidación; una carga que empezó antes no puede insertar datos viejos
+    private long generation;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CoverCache(@Value("${books.covers.cache-max-bytes:33554432}") long maxBytes,
+                      @Value("${books.covers.cache-max-entry-bytes:1048576}") long maxEntryBytes,
+                      MeterRegistry meterRegistry) {
+        this.maxBytes = maxBytes;
+        this.maxEntryBytes = Math.min(maxEntryBytes, maxBytes);
+        // Suponiendo portadas de unos 64 KB, con margen para contar también las que no entran
+        this.sketch = new FrequencySketch((int) Math.min(1 << 16, Math.max(64, maxBytes / 16384)));
+
+        FunctionCounter.builder("books.covers.cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit").register(meterRegistry);
+        FunctionCounter.builder("books.covers.cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss").register(meterRegistry);
+        Gauge.builder("books.covers.cache.hit.ratio", this, CoverCache::hitRatio).register(meterRegistry);
+        Gauge.builder("books.covers.cache.resident.bytes", this, CoverCache::residentBytes)
+                .baseUnit("bytes").register(meterRegistry);
+        Gauge.builder("books.covers.cache.entries", this, CoverCache::size).register(meterRegistry);
+    }
+
+    public StoredCover get(String key) {
+        StoredCover cover;
+        synchronized (this) {
+            sketch.increment(key);
+            cover = entries.get(key);
+        }
+        (cover != null ? hits : misses).increment();
+        return cover;
+    }
+
+    // Se llama tras un fallo de get: carga el archivo solo si la frecuencia le da sitio
+    public void admit(String key, String fileName, Path file) {
+        long expectedGeneration;
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return;
+        }
+        long size = attributes.size();
+        if (size <= 0 || size > maxEntryBytes) {
+            return;
+        }
+        synchronized (this) {
+            if (entries.containsKey(key) || !hasRoomFor(key, size, false)) {
+                return;
+            }
+            expectedGeneration = generation;
+        }
+
+        ByteBuffer content;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() != size) {
+                return;
+            }
+            content = ByteBuffer.allocateDirect((int) size);
+            while (content.hasRemaining()) {
+                if (channel.read(content) < 0) {
+                    break;
+                }
+            }
+            content.flip();
+        } catch (IOException e) {
+            log.debug("Could not load cover {} into cache: {}", fileName, e.getMessage());
+            return;
+        }
+        if (content.remaining() != size) {
+            return;
+        }
+
+        StoredCover cover = StoredCover.ofContent(fileName, content.asReadOnlyBuffer(), attributes.lastModifiedTime().toMillis(), null);
+        synchronized (this) {
+            if (generation != expectedGeneration || entries.containsKey(key) || !hasRoomFor(key, size, true)) {
+                return;
+            }
+            entries.put(key, cover);
+            residentBytes += size;
+        }
+        log.debug("Cover {} cached ({} bytes)", key, size);
+    }
+
+    public synchronized void invalidate(String key) {
+        generation++;
+        StoredCover removed = entries.remove(key);
+        if (removed != null) {
+            residentBytes -= removed.content().capacity();
+        }
+    }
+
+    // Recorre las víctimas desde la menos reciente; si alguna se pide al menos tanto como la
+    // candidata, la candidata no entra. Con evict en true libera el espacio de verdad.
+    private boolean hasRoomFor(String key, long size, boolean evict) {
+        long needed = residentBytes + size - maxBytes;
+        if (needed <= 0) {
+            return true;
+        }
+        int candidateFrequency = sketch.frequency(key);
+        long freed = 0;
+        Iterator<Map.Entry<String, StoredCover>> victims = entries.entrySet().iterator();
+        while (freed < needed && victims.hasNext()) {
+            Map.Entry<String, StoredCover> victim = victims.next();
+            if (sketch.frequency(victim.getKey()) >= candidateFrequency) {
+                return false;
+            }
+            freed += victim.getValue().content().capacity();
+        }
+        if (freed < needed) {
+            return false;
+        }
+        if (evict) {
+            Iterator<Map.Entry<String, StoredCover>> evicted = entries.entrySet().iterator();
+            while (residentBytes + size > maxBytes && evicted.hasNext()) {
+                residentBytes -= evicted.next().getValue().content().capacity();
+                evicted.remove();
+            }
+        }
+        return true;
+    }
+
+    private double hitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+        return total == 0 ? 0.0 : (double) hitCount / total;
+    }
+
+    private synchronized double residentBytes() {
+        return residentBytes;
+    }
+
+    private synchronized double size() {
+        return entries.size();
+    }
+}
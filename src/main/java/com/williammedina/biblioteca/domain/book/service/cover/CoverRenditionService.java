@@ -0,0 +1,12 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import java.nio.file.Path;
+
+public interface CoverRenditionService {
+
+    StoredCover getRendition(CoverSize size, StoredCover original);
+
+    void renderAllAsync(StoredCover original);
+
+    void deleteRenditions(Path renditionBase);
+}
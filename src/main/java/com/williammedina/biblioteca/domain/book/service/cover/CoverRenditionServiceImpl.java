@@ -0,0 +1,266 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.FileImageInputStream;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.MemoryCacheImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Genera versiones reducidas de las portadas en <renditionBase>-<tamaño>.jpg. El almacén da una base
+// distinta para cada contenido, así que una versión nunca queda desactualizada: solo puede faltar.
+@Slf4j
+@Service
+public class CoverRenditionServiceImpl implements CoverRenditionService {
+
+    private final Path stagingDir = Paths.get("uploads", ".staging");
+
+    @Value("${books.covers.rendition-threads:2}")
+    private int renditionThreads;
+
+    @Value("${books.covers.rendition-queue-capacity:50}")
+    private int renditionQueueCapacity;
+
+    @Value("${books.covers.rendition-timeout-ms:10000}")
+    private long renditionTimeoutMs;
+
+    @Value("${books.covers.rendition-quality:0.85}")
+    private float renditionQuality;
+
+    // Una sola generación por archivo destino, aunque lo pidan varias peticiones a la vez
+    private final Map<Path, CompletableFuture<Path>> inFlight = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor renderer;
+
+    @PostConstruct
+    void initialize() throws IOException {
+        Files.createDirectories(stagingDir);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        // Cola acotada y sin CallerRuns: si se llena, la petición sirve el original en lugar de esperar
+        renderer = new ThreadPoolExecutor(renditionThreads, renditionThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(renditionQueueCapacity),
+                runnable -> new Thread(runnable, "cover-renderer-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        renderer.shutdownNow();
+    }
+
+    // Las versiones se guardan por contenido, así que si existen están al día; si faltan se generan
+    // (o se espera a la generación en curso). Ante un pool saturado, un error o demasiada espera se
+    // devuelve el original marcado como fallback, para que la próxima petición vuelva a intentarlo.
+    @Override
+    public StoredCover getRendition(CoverSize size, StoredCover original) {
+        if (size == CoverSize.ORIGINAL || original.renditionBase() == null) {
+            return original;
+        }
+        Path target = renditionPath(size, original.renditionBase());
+        if (!Files.exists(target)) {
+            try {
+                render(size, original, target).get(renditionTimeoutMs, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return original.asFallback();
+            } catch (ExecutionException e) {
+                log.warn("Could not render {} cover for {}: {}", size.path(), original.fileName(), e.getCause().getMessage());
+                return original.asFallback();
+            } catch (TimeoutException e) {
+                log.warn("Timed out rendering {} cover for {}", size.path(), original.fileName());
+                return original.asFallback();
+            }
+        }
+        return StoredCover.ofFile(original.fileName(), target, null);
+    }
+
+    @Override
+    public void renderAllAsync(StoredCover original) {
+        if (original.renditionBase() == null) {
+            return;
+        }
+        for (CoverSize size : CoverSize.values()) {
+            Path target = size == CoverSize.ORIGINAL ? null : renditionPath(size, original.renditionBase());
+            if (target != null && !Files.exists(target)) {
+                render(size, original, target);
+            }
+        }
+    }
+
+    @Override
+    public void deleteRenditions(Path renditionBase) {
+        for (CoverSize size : CoverSize.values()) {
+            if (size == CoverSize.ORIGINAL) {
+                continue;
+            }
+            try {
+                Files.deleteIfExists(renditionPath(size, renditionBase));
+            } catch (IOException e) {
+                log.warn("Could not delete {} cover for {}: {}", size.path(), renditionBase.getFileName(), e.getMessage());
+            }
+        }
+    }
+
+    private CompletableFuture<Path> render(CoverSize size, StoredCover original, Path target) {
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> running = inFlight.putIfAbsent(target, created);
+        if (running != null) {
+            return running;
+        }
+        try {
+            renderer.execute(() -> {
+                try {
+                    created.complete(writeRendition(size, original, target));
+                } catch (Throwable e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    inFlight.remove(target, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inFlight.remove(target, created);
+            created.completeExceptionally(e);
+        }
+        return created;
+    }
+
+    private Path writeRendition(CoverSize size, StoredCover original, Path target) throws IOException {
+        if (Files.exists(target)) {
+            return target;
+        }
+
+        Path temp = Files.createTempFile(stagingDir, "rendition-", ".tmp");
+        try {
+            BufferedImage image;
+            try (ImageInputStream input = openImage(original)) {
+                image = readScaled(input, size.width());
+            }
+            if (image == null) {
+                // El original ya es más pequeño que esta versión
+                copy(original, temp);
+            } else {
+                writeJpeg(image, temp);
+            }
+            Files.createDirectories(target.getParent());
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        log.debug("Rendered {} cover for {}", size.path(), original.fileName());
+        return target;
+    }
+
+    private static ImageInputStream openImage(StoredCover original) throws IOException {
+        if (!original.inMemory()) {
+            return new FileImageInputStream(original.file().toFile());
+        }
+        return new MemoryCacheImageInputStream(new ByteArrayInputStream(bytes(original.content())));
+    }
+
+    private static void copy(StoredCover original, Path target) throws IOException {
+        if (original.inMemory()) {
+            Files.write(target, bytes(original.content()));
+        } else {
+            Files.copy(original.file(), target, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static byte[] bytes(ByteBuffer content) {
+        byte[] bytes = new byte[content.remaining()];
+        content.duplicate().get(bytes);
+        return bytes;
+    }
+
+    // Decodifica con submuestreo para no tener en memoria la imagen completa y termina de reducir
+    // por mitades con interpolación bilineal. Devuelve null si no hace falta reducir.
+    private static BufferedImage readScaled(ImageInputStream input, int targetWidth) throws IOException {
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(input);
+        if (!readers.hasNext()) {
+            throw new IOException("Unsupported image format");
+        }
+        ImageReader reader = readers.next();
+        try {
+            reader.setInput(input, true, true);
+            int width = reader.getWidth(0);
+            if (width <= targetWidth) {
+                return null;
+            }
+            ImageReadParam param = reader.getDefaultReadParam();
+            int subsampling = Math.max(1, width / (targetWidth * 2));
+            param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+            return scale(reader.read(0, param), targetWidth);
+        } finally {
+            reader.dispose();
+        }
+    }
+
+    private static BufferedImage scale(BufferedImage source, int targetWidth) {
+        int targetHeight = Math.max(1, (int) Math.round((double) source.getHeight() * targetWidth / source.getWidth()));
+        BufferedImage current = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage next = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            Graphics2D graphics = next.createGraphics();
+            try {
+                graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                graphics.drawImage(current, 0, 0, width, height, null);
+            } finally {
+                graphics.dispose();
+            }
+            current = next;
+        } while (width != targetWidth || height != targetHeight);
+        return current;
+    }
+
+    private void writeJpeg(BufferedImage image, Path file) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try (ImageOutputStream output = ImageIO.createImageOutputStream(file.toFile())) {
+            writer.setOutput(output);
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(renditionQuality);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    private static Path renditionPath(CoverSize size, Path renditionBase) {
+        return renditionBase.resolveSibling(renditionBase.getFileName() + "-" + size.path() + ".jpg");
+    }
+}
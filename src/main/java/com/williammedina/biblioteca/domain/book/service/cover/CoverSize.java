@@ -0,0 +1,42 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import org.springframework.http.HttpStatus;
+
+import java.util.Locale;
+
+// Versiones de una portada; width es el ancho máximo en píxeles (0 = archivo original)
+public enum CoverSize {
+
+    THUMB(160),
+    MEDIUM(480),
+    ORIGINAL(0);
+
+    private final int width;
+
+    CoverSize(int width) {
+        this.width = width;
+    }
+
+    public int width() {
+        return width;
+    }
+
+    // Sufijo del archivo de la versión y prefijo de la clave en la caché
+    public String path() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    public String cacheKey(String fileName) {
+        return this == ORIGINAL ? fileName : path() + "/" + fileName;
+    }
+
+    public static CoverSize fromPath(String value) {
+        for (CoverSize size : values()) {
+            if (size.path().equalsIgnoreCase(value)) {
+                return size;
+            }
+        }
+        throw new AppException("Tamaño de portada no válido: " + value, HttpStatus.NOT_FOUND);
+    }
+}
@@ -0,0 +1,13 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+public enum CoverStatus {
+
+    // Sin portada guardada
+    NONE,
+    // Subida aceptada; el archivo todavía se está moviendo a uploads/covers
+    PENDING,
+    READY,
+    // La escritura falló; el libro quedó guardado pero sin esta portada
+    FAILED
+
+}
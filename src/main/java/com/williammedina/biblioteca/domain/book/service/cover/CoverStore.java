@@ -0,0 +1,23 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.Set;
+
+// Almacenamiento de las portadas originales, por nombre de archivo ({isbn}.jpg). La implementación
+// se elige con books.covers.store.
+public interface CoverStore {
+
+    // Publica el archivo preparado como portada de fileName; el archivo deja de pertenecer al que llama
+    void put(String fileName, Path stagedFile) throws IOException;
+
+    Optional<StoredCover> find(String fileName);
+
+    boolean exists(String fileName);
+
+    // Vista de solo lectura de los nombres guardados
+    Set<String> fileNames();
+
+    boolean delete(String fileName) throws IOException;
+}
@@ -0,0 +1,49 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.cfg.MapperConfig;
+import com.fasterxml.jackson.databind.introspect.AnnotatedClass;
+import com.fasterxml.jackson.databind.introspect.BeanPropertyDefinition;
+import com.fasterxml.jackson.databind.ser.VirtualBeanPropertyWriter;
+import com.fasterxml.jackson.databind.util.Annotations;
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+import com.williammedina.biblioteca.domain.book.dto.BookLocationDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+
+// Propiedad "hasCover" de BookDTO y BookLocationDTO (@JsonAppend). Se calcula al serializar desde
+// el conjunto de portadas en memoria, así los DTOs del catálogo no se copian cuando cambia una portada.
+// Spring crea la instancia con SpringHandlerInstantiator; Jackson la copia con withConfig.
+public class HasCoverPropertyWriter extends VirtualBeanPropertyWriter {
+
+    private final transient BookCoverService bookCoverService;
+
+    @Autowired
+    public HasCoverPropertyWriter(BookCoverService bookCoverService) {
+        this.bookCoverService = bookCoverService;
+    }
+
+    private HasCoverPropertyWriter(BeanPropertyDefinition propDef, Annotations contextAnnotations,
+                                   JavaType declaredType, BookCoverService bookCoverService) {
+        super(propDef, contextAnnotations, declaredType);
+        this.bookCoverService = bookCoverService;
+    }
+
+    @Override
+    protected Object value(Object bean, JsonGenerator gen, SerializerProvider prov) {
+        Long isbn = null;
+        if (bean instanceof BookDTO book) {
+            isbn = book.isbn();
+        } else if (bean instanceof BookLocationDTO book) {
+            isbn = book.isbn();
+        }
+        return bookCoverService.hasCover(isbn);
+    }
+
+    @Override
+    public VirtualBeanPropertyWriter withConfig(MapperConfig<?> config, AnnotatedClass declaringClass,
+                                                BeanPropertyDefinition propDef, JavaType type) {
+        return new HasCoverPropertyWriter(propDef, declaringClass.getAnnotations(), type, bookCoverService);
+    }
+}
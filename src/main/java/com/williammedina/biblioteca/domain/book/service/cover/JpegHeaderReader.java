@@ -0,0 +1,108 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+// Lee del flujo solo los bytes necesarios para comprobar que es un JPEG (SOI) y llegar a su
+// cabecera SOF, de donde salen ancho y alto. Lo leído queda en buffer para copiarlo después.
+final class JpegHeaderReader {
+
+    private final InputStream input;
+    private final int maxHeaderBytes;
+    private byte[] buffer = new byte[4096];
+    private int count;
+
+    JpegHeaderReader(InputStream input, int maxHeaderBytes) {
+        this.input = input;
+        this.maxHeaderBytes = maxHeaderBytes;
+    }
+
+    // Devuelve {ancho, alto}
+    int[] readDimensions() throws IOException {
+        ensure(2);
+        if (unsigned(0) != 0xFF || unsigned(1) != 0xD8) {
+            throw invalid();
+        }
+        int position = 2;
+        while (true) {
+            ensure(position + 2);
+            if (unsigned(position) != 0xFF) {
+                throw invalid();
+            }
+            int marker = unsigned(position + 1);
+            if (marker == 0xFF) {
+                // Bytes de relleno antes de un marcador
+                position++;
+                continue;
+            }
+            position += 2;
+            if (marker == 0x01 || (marker >= 0xD0 && marker <= 0xD8)) {
+                continue;
+            }
+            // Fin de imagen o comienzo de datos sin haber visto el tamaño
+            if (marker == 0xD9 || marker == 0xDA) {
+                throw invalid();
+            }
+            ensure(position + 2);
+            int length = unsigned16(position);
+            if (length < 2) {
+                throw invalid();
+            }
+            if (isStartOfFrame(marker)) {
+                ensure(position + 7);
+                int height = unsigned16(position + 3);
+                int width = unsigned16(position + 5);
+                if (width == 0 || height == 0) {
+                    throw invalid();
+                }
+                return new int[]{width, height};
+            }
+            position += length;
+        }
+    }
+
+    byte[] buffer() {
+        return buffer;
+    }
+
+    int count() {
+        return count;
+    }
+
+    // SOF0..SOF15 salvo DHT (C4), JPG (C8) y DAC (CC), que comparten el rango
+    private static boolean isStartOfFrame(int marker) {
+        return marker >= 0xC0 && marker <= 0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC;
+    }
+
+    private void ensure(int needed) throws IOException {
+        if (needed > maxHeaderBytes) {
+            throw new AppException("La cabecera de la portada es demasiado grande", HttpStatus.BAD_REQUEST);
+        }
+        if (needed > buffer.length) {
+            buffer = Arrays.copyOf(buffer, Math.min(maxHeaderBytes, Math.max(needed, buffer.length * 2)));
+        }
+        while (count < needed) {
+            int read = input.read(buffer, count, buffer.length - count);
+            if (read < 0) {
+                throw invalid();
+            }
+            count += read;
+        }
+    }
+
+    private int unsigned(int index) {
+        return buffer[index] & 0xFF;
+    }
+
+    private int unsigned16(int index) {
+        return (unsigned(index) << 8) | unsigned(index + 1);
+    }
+
+    private static AppException invalid() {
+        return new AppException("La portada no es una imagen JPEG válida", HttpStatus.BAD_REQUEST);
+    }
+}
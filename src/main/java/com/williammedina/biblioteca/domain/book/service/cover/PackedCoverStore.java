@@ -0,0 +1,532 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+// Guarda las portadas como registros añadidos al final de segmentos grandes (uploads/covers/packs)
+// y las sirve desde slices de los segmentos mapeados en memoria: tras el primer acceso, leer una
+// portada no hace llamadas al sistema. Los segmentos son el propio journal: al arrancar se recorren
+// sus cabeceras para reconstruir el índice. Un borrado añade una lápida; la compactación copia los
+// registros vivos de los segmentos con mucho espacio muerto al segmento activo y borra el resto.
+// La primera vez que se activa importa las portadas del almacenamiento sharded. Las versiones
+// reducidas no van en los segmentos: son archivos en uploads/covers/renditions, por hash del original,
+// y se leen del disco como en el almacenamiento sharded.
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "books.covers.store", havingValue = "packed")
+public class PackedCoverStore implements CoverStore {
+
+    private static final int MAGIC = 0x434F5652;
+    private static final byte PUT = 1;
+    private static final byte DELETE = 2;
+    private static final int HASH_BYTES = 32;
+    // magic, tipo, fecha, hash, longitud de los datos y longitud del nombre
+    private static final int HEADER_BYTES = 4 + 1 + 8 + HASH_BYTES + 4 + 2;
+    private static final int MAX_NAME_BYTES = 255;
+    // Tamaño mínimo de cada mapeo de un segmento; después crece al doble
+    private static final long MIN_MAPPING_BYTES = 1 << 20;
+
+    private final Path coversDir;
+    private final Path packsDir;
+    private final Path renditionsDir;
+    // Marca de que ya se importaron las portadas del almacenamiento sharded
+    private final Path importedMarker;
+
+    private final CoverRenditionService coverRenditionService;
+
+    @Value("${books.covers.pack.segment-bytes:268435456}")
+    private long segmentBytes;
+
+    @Value("${books.covers.pack.compaction-threshold:0.5}")
+    private double compactionThreshold;
+
+    private record Location(Segment segment, int recordOffset, int dataOffset, int length, long lastModified, String hash) {
+
+        int recordBytes() {
+            return dataOffset - recordOffset + length;
+        }
+    }
+
+    private interface RecordVisitor {
+        void visit(byte type, String name, long lastModified, String hash, int recordOffset, int dataOffset, int length) throws IOException;
+    }
+
+    private final Map<String, Location> index = new ConcurrentHashMap<>();
+    // Lo que sigue solo se modifica con el lock del store
+    private final Map<String, Integer> references = new HashMap<>();
+    private final TreeMap<Integer, Segment> segments = new TreeMap<>();
+    private Segment active;
+
+    @Autowired
+    public PackedCoverStore(CoverRenditionService coverRenditionService) {
+        this(coverRenditionService, Paths.get("uploads", "covers"));
+    }
+
+    PackedCoverStore(CoverRenditionService coverRenditionService, Path coversDir) {
+        this.coverRenditionService = coverRenditionService;
+        this.coversDir = coversDir;
+        this.packsDir = coversDir.resolve("packs");
+        this.renditionsDir = coversDir.resolve("renditions");
+        this.importedMarker = packsDir.resolve("imported");
+    }
+
+    // Para los tests, sin Spring
+    PackedCoverStore(CoverRenditionService coverRenditionService, Path coversDir, long segmentBytes, double compactionThreshold) {
+        this(coverRenditionService, coversDir);
+        this.segmentBytes = segmentBytes;
+        this.compactionThreshold = compactionThreshold;
+    }
+
+    @PostConstruct
+    void initialize() throws IOException {
+        Files.createDirectories(packsDir);
+        Files.createDirectories(renditionsDir);
+        // Offsets de 32 bits dentro de cada segmento
+        segmentBytes = Math.min(segmentBytes, Integer.MAX_VALUE);
+
+        List<Integer> ids = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(packsDir, "segment-*.pack")) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                ids.add(Integer.parseInt(name, "segment-".length(), name.length() - ".pack".length(), 10));
+            }
+        }
+        ids.sort(null);
+        synchronized (this) {
+            for (int id : ids) {
+                Segment segment = Segment.open(id, segmentPath(id), segmentBytes);
+                segments.put(id, segment);
+                recover(segment);
+                segment.sealed = true;
+            }
+            if (segments.isEmpty()) {
+                active = roll();
+            } else {
+                active = segments.lastEntry().getValue();
+                active.sealed = false;
+            }
+            // Solo con el estado final de cada nombre se sabe qué versiones reducidas ya no se usan
+            removeOrphanRenditions();
+        }
+        importShardedCovers();
+        log.info("Packed cover store ready: {} covers in {} segments", index.size(), segments.size());
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        for (Segment segment : segments.values()) {
+            segment.channel.close();
+        }
+    }
+
+    @Override
+    public void put(String fileName, Path stagedFile) throws IOException {
+        store(fileName, stagedFile);
+        Files.deleteIfExists(stagedFile);
+    }
+
+    private void store(String fileName, Path source) throws IOException {
+        byte[] name = name(fileName);
+        ByteBuffer data;
+        try (FileChannel staged = FileChannel.open(source, StandardOpenOption.READ)) {
+            data = staged.map(FileChannel.MapMode.READ_ONLY, 0, staged.size());
+        }
+        byte[] hash = sha256(data.duplicate());
+        synchronized (this) {
+            Location location = append(PUT, name, System.currentTimeMillis(), hash, data);
+            Location previous = index.put(fileName, location);
+            references.merge(location.hash(), 1, Integer::sum);
+            if (previous != null) {
+                discard(previous);
+            }
+        }
+    }
+
+    @Override
+    public Optional<StoredCover> find(String fileName) {
+        Location location = index.get(fileName);
+        if (location == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(toCover(fileName, location));
+        } catch (IOException e) {
+            // La compactación pudo cerrar el segmento entre la búsqueda y el mapeo. Con el lock del
+            // store ya terminó, así que el índice apunta a la copia en el segmento activo.
+            synchronized (this) {
+                Location current = index.get(fileName);
+                if (current == null) {
+                    return Optional.empty();
+                }
+                try {
+                    return Optional.of(toCover(fileName, current));
+                } catch (IOException retry) {
+                    log.error("Could not map cover segment {}: {}", current.segment().id, retry.getMessage());
+                    return Optional.empty();
+                }
+            }
+        }
+    }
+
+    private StoredCover toCover(String fileName, Location location) throws IOException {
+        ByteBuffer content = location.segment().slice(location.dataOffset(), location.length());
+        return StoredCover.ofContent(fileName, content, location.lastModified(), renditionBase(location.hash()));
+    }
+
+    @Override
+    public boolean exists(String fileName) {
+        return index.containsKey(fileName);
+    }
+
+    @Override
+    public Set<String> fileNames() {
+        return Collections.unmodifiableSet(index.keySet());
+    }
+
+    @Override
+    public synchronized boolean delete(String fileName) throws IOException {
+        if (!index.containsKey(fileName)) {
+            return false;
+        }
+        Location tombstone = append(DELETE, name(fileName), System.currentTimeMillis(), new byte[HASH_BYTES], ByteBuffer.allocate(0));
+        // Una lápida no se lee nunca: cuenta como espacio muerto desde el principio
+        tombstone.segment().garbage += tombstone.recordBytes();
+        discard(index.remove(fileName));
+        return true;
+    }
+
+    @Scheduled(fixedDelayString = "${books.covers.pack.compaction-interval-ms:600000}")
+    public void compact() {
+        List<Segment> candidates;
+        synchronized (this) {
+            candidates = segments.values().stream()
+                    .filter(segment -> segment != active && segment.garbage >= segment.size * compactionThreshold)
+                    .toList();
+        }
+        for (Segment segment : candidates) {
+            try {
+                synchronized (this) {
+                    compact(segment);
+                }
+            } catch (IOException e) {
+                log.error("Failed to compact cover segment {}: {}", segment.id, e.getMessage());
+            }
+        }
+    }
+
+    // Copia al segmento activo los registros que el índice todavía usa y las lápidas que aún ocultan
+    // registros de segmentos más antiguos; después el segmento se puede borrar
+    private void compact(Segment segment) throws IOException {
+        boolean olderSegments = segments.firstKey() < segment.id;
+        long[] copied = new long[1];
+        forEachRecord(segment, (type, name, lastModified, hash, recordOffset, dataOffset, length) -> {
+            if (type == PUT) {
+                Location live = index.get(name);
+                if (live != null && live.segment() == segment && live.dataOffset() == dataOffset) {
+                    Location moved = append(PUT, name(name), lastModified, HexFormat.of().parseHex(hash),
+                            segment.slice(dataOffset, length));
+                    index.put(name, moved);
+                    copied[0] += moved.recordBytes();
+                }
+            } else if (olderSegments && !index.containsKey(name)) {
+                Location tombstone = append(DELETE, name(name), lastModified, new byte[HASH_BYTES], ByteBuffer.allocate(0));
+                tombstone.segment().garbage += tombstone.recordBytes();
+            }
+        });
+
+        segments.remove(segment.id);
+        segment.channel.close();
+        // Los slices ya entregados siguen siendo válidos: el mapeo se libera cuando el GC los recoge
+        Files.deleteIfExists(segment.file);
+        log.info("Compacted cover segment {}: kept {} of {} bytes", segment.id, copied[0], segment.size);
+    }
+
+    private Location append(byte type, byte[] name, long lastModified, byte[] hash, ByteBuffer data) throws IOException {
+        int length = data.remaining();
+        int recordBytes = HEADER_BYTES + name.length + length;
+        if (active.size > 0 && active.size + recordBytes > segmentBytes) {
+            active = roll();
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + name.length);
+        header.putInt(MAGIC).put(type).putLong(lastModified).put(hash).putInt(length).putShort((short) name.length).put(name).flip();
+        long position = active.size;
+        writeFully(active.channel, header, position);
+        writeFully(active.channel, data.duplicate(), position + header.capacity());
+        active.channel.force(false);
+        active.size = position + recordBytes;
+        return new Location(active, (int) position, (int) position + header.capacity(), length, lastModified, HexFormat.of().formatHex(hash));
+    }
+
+    private void discard(Location location) {
+        if (release(location)) {
+            coverRenditionService.deleteRenditions(renditionBase(location.hash()));
+        }
+    }
+
+    // Cuenta el registro como espacio muerto y devuelve si su contenido se quedó sin nombres
+    private boolean release(Location location) {
+        location.segment().garbage += location.recordBytes();
+        int remaining = references.merge(location.hash(), -1, Integer::sum);
+        if (remaining > 0) {
+            return false;
+        }
+        references.remove(location.hash());
+        return true;
+    }
+
+    private Segment roll() throws IOException {
+        int id = segments.isEmpty() ? 1 : segments.lastKey() + 1;
+        Segment segment = Segment.open(id, segmentPath(id), segmentBytes);
+        if (active != null) {
+            active.sealed = true;
+        }
+        segments.put(id, segment);
+        return segment;
+    }
+
+    // Reconstruye el índice con los registros del segmento. Un registro incompleto al final (corte
+    // durante una escritura) o la parte reservada por el mapeo y sin escribir se descartan truncando
+    // el archivo. Los estados intermedios no borran versiones reducidas: un contenido puede quedarse
+    // sin nombres en un segmento y volver a tenerlos en el siguiente.
+    private void recover(Segment segment) throws IOException {
+        long valid = forEachRecord(segment, (type, name, lastModified, hash, recordOffset, dataOffset, length) -> {
+            Location previous;
+            if (type == PUT) {
+                Location location = new Location(segment, recordOffset, dataOffset, length, lastModified, hash);
+                previous = index.put(name, location);
+                references.merge(hash, 1, Integer::sum);
+            } else {
+                previous = index.remove(name);
+                segment.garbage += dataOffset - recordOffset;
+            }
+            if (previous != null) {
+                release(previous);
+            }
+        });
+        if (valid < segment.channel.size()) {
+            if (isUnwritten(segment, valid)) {
+                log.debug("Truncating cover segment {} at {} (unused mapped space)", segment.id, valid);
+            } else {
+                log.warn("Truncating cover segment {} at {} (incomplete record)", segment.id, valid);
+            }
+            segment.channel.truncate(valid);
+        }
+        segment.size = valid;
+    }
+
+    private static boolean isUnwritten(Segment segment, long position) throws IOException {
+        ByteBuffer magic = ByteBuffer.allocate(Integer.BYTES);
+        segment.channel.read(magic, position);
+        return magic.position() == Integer.BYTES && magic.flip().getInt() == 0;
+    }
+
+    // Versiones reducidas de contenidos que ya no tiene ningún nombre
+    private void removeOrphanRenditions() throws IOException {
+        List<Path> orphans;
+        try (Stream<Path> files = Files.find(renditionsDir, 3, (path, attributes) -> attributes.isRegularFile())) {
+            orphans = files.filter(path -> !references.containsKey(renditionHash(path))).toList();
+        }
+        for (Path orphan : orphans) {
+            Files.deleteIfExists(orphan);
+        }
+        if (!orphans.isEmpty()) {
+            log.info("Removed {} orphan cover renditions", orphans.size());
+        }
+    }
+
+    // Importa las portadas del almacenamiento sharded (y las sueltas del formato anterior) sin
+    // borrarlas, así se puede volver a él. Solo se hace una vez: una portada borrada después no debe
+    // reaparecer en el próximo arranque. Si se corta a medias, se sigue con las que falten.
+    private void importShardedCovers() throws IOException {
+        if (Files.exists(importedMarker)) {
+            return;
+        }
+        Map<String, Path> existing = new TreeMap<>();
+        Path blobsDir = coversDir.resolve("blobs");
+        ShardedCoverStore.readJournal(coversDir.resolve("index.log"))
+                .forEach((name, hash) -> existing.put(name, ShardedCoverStore.blobPath(blobsDir, hash)));
+        try (DirectoryStream<Path> flat = Files.newDirectoryStream(coversDir, "*.jpg")) {
+            for (Path file : flat) {
+                existing.put(file.getFileName().toString(), file);
+            }
+        }
+
+        int imported = 0;
+        for (Map.Entry<String, Path> cover : existing.entrySet()) {
+            if (!index.containsKey(cover.getKey()) && Files.isRegularFile(cover.getValue())) {
+                store(cover.getKey(), cover.getValue());
+                imported++;
+            }
+        }
+        Files.createFile(importedMarker);
+        if (imported > 0) {
+            log.info("Imported {} covers into the packed cover store", imported);
+        }
+    }
+
+    // Devuelve hasta dónde llegan los registros válidos
+    private static long forEachRecord(Segment segment, RecordVisitor visitor) throws IOException {
+        long size = segment.channel.size();
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES + MAX_NAME_BYTES);
+        byte[] hash = new byte[HASH_BYTES];
+        while (position + HEADER_BYTES <= size) {
+            header.clear().limit(HEADER_BYTES);
+            readFully(segment.channel, header, position);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                break;
+            }
+            byte type = header.get();
+            long lastModified = header.getLong();
+            header.get(hash);
+            int length = header.getInt();
+            int nameLength = header.getShort();
+            long end = position + HEADER_BYTES + nameLength + length;
+            if ((type != PUT && type != DELETE) || length < 0 || nameLength <= 0 || nameLength > MAX_NAME_BYTES || end > size) {
+                break;
+            }
+            header.clear().limit(nameLength);
+            readFully(segment.channel, header, position + HEADER_BYTES);
+            String name = new String(header.array(), 0, nameLength, StandardCharsets.US_ASCII);
+
+            visitor.visit(type, name, lastModified, HexFormat.of().formatHex(hash),
+                    (int) position, (int) position + HEADER_BYTES + nameLength, length);
+            position = end;
+        }
+        return position;
+    }
+
+    private Path segmentPath(int id) {
+        return packsDir.resolve(String.format("segment-%06d.pack", id));
+    }
+
+    // Las versiones reducidas se guardan como archivos, por hash del original
+    private Path renditionBase(String hash) {
+        return renditionsDir.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    // <hash>-<tamaño>.jpg (o un temporal de una generación a medias)
+    private static String renditionHash(Path file) {
+        String name = file.getFileName().toString();
+        int end = name.indexOf('-');
+        return end >= 0 ? name.substring(0, end) : name;
+    }
+
+    private static byte[] name(String fileName) {
+        byte[] name = fileName.getBytes(StandardCharsets.US_ASCII);
+        if (name.length == 0 || name.length > MAX_NAME_BYTES) {
+            throw new IllegalArgumentException("Invalid cover name: " + fileName);
+        }
+        return name;
+    }
+
+    private static byte[] sha256(ByteBuffer data) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(data);
+            return digest.digest();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of cover segment");
+            }
+            position += read;
+        }
+    }
+
+    private static final class Segment {
+
+        private final int id;
+        private final Path file;
+        private final FileChannel channel;
+        private final long maxBytes;
+        // Bytes escritos y bytes de registros reemplazados o borrados (con el lock del store)
+        private long size;
+        private long garbage;
+        // Un segmento cerrado ya no crece: se mapea entero, solo hasta su último registro
+        private volatile boolean sealed;
+        // Se vuelve a mapear solo cuando se pide un registro fuera del último mapeo
+        private volatile MappedByteBuffer mapped;
+
+        private Segment(int id, Path file, FileChannel channel, long maxBytes) {
+            this.id = id;
+            this.file = file;
+            this.channel = channel;
+            this.maxBytes = maxBytes;
+        }
+
+        static Segment open(int id, Path file, long maxBytes) throws IOException {
+            return new Segment(id, file, FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE), maxBytes);
+        }
+
+        ByteBuffer slice(int offset, int length) throws IOException {
+            MappedByteBuffer current = mapped;
+            if (current == null || current.capacity() < offset + length) {
+                current = remap(offset + length);
+            }
+            return current.slice(offset, length).asReadOnlyBuffer();
+        }
+
+        // El segmento activo se mapea por tramos que duplican el anterior (hasta el tamaño máximo del
+        // segmento), no uno nuevo por registro. Mapear más allá del final reserva ese espacio con ceros
+        // en el archivo; las escrituras siguientes lo ocupan y aparecen en el mapeo, y al arrancar se
+        // trunca lo que quedó sin usar.
+        private synchronized MappedByteBuffer remap(long needed) throws IOException {
+            MappedByteBuffer current = mapped;
+            if (current == null || current.capacity() < needed) {
+                long capacity = Math.max(needed, size);
+                if (!sealed) {
+                    long grown = current == null ? MIN_MAPPING_BYTES : current.capacity() * 2L;
+                    capacity = Math.max(needed, Math.min(maxBytes, grown));
+                }
+                current = channel.map(FileChannel.MapMode.READ_ONLY, 0, capacity);
+                mapped = current;
+            }
+            return current;
+        }
+    }
+}
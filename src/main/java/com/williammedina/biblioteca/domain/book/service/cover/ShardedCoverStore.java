@@ -0,0 +1,318 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Guarda cada imagen una sola vez bajo su SHA-256 en uploads/covers/blobs/ab/cd/<hash>.jpg y un
+// journal (index.log) con la relación nombre -> hash. Cuántos nombres apuntan a un hash se cuenta
+// en memoria; cuando llega a cero se borra el blob junto con sus versiones reducidas, con un margen
+// para que terminen los envíos en curso (sendfile abre el archivo después de que el controlador responde).
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(name = "books.covers.store", havingValue = "sharded", matchIfMissing = true)
+public class ShardedCoverStore implements CoverStore {
+
+    private static final String PUT = "PUT";
+    private static final String DELETE = "DEL";
+
+    private final Path coversDir = Paths.get("uploads", "covers");
+    private final Path blobsDir = coversDir.resolve("blobs");
+    private final Path journalFile = coversDir.resolve("index.log");
+
+    private final CoverRenditionService coverRenditionService;
+
+    private final Map<String, String> hashes = new ConcurrentHashMap<>();
+    // Solo se modifican con el lock del store
+    private final Map<String, Integer> references = new HashMap<>();
+    // Blobs sin referencias y el instante (nanoTime) en que dejaron de tenerlas
+    private final Map<String, Long> pendingDeletes = new HashMap<>();
+    private FileChannel journal;
+
+    @Value("${books.covers.blob-delete-delay-ms:60000}")
+    private long blobDeleteDelayMs;
+
+    @PostConstruct
+    void initialize() throws IOException {
+        Files.createDirectories(blobsDir);
+        loadJournal();
+        compactJournal();
+        journal = FileChannel.open(journalFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        migrateFlatCovers();
+        removeOrphanBlobs();
+        log.info("Cover store ready: {} covers in {} blobs", hashes.size(), references.size());
+    }
+
+    @PreDestroy
+    synchronized void close() throws IOException {
+        journal.close();
+    }
+
+    // El archivo de origen se borra solo después de que el blob está en disco y registrado en el journal:
+    // en la migración el {isbn}.jpg suelto es la única copia, y un corte en cualquier punto deja o bien
+    // el original (que se vuelve a migrar) o bien el blob ya registrado.
+    @Override
+    public void put(String fileName, Path stagedFile) throws IOException {
+        String hash = hash(stagedFile);
+        synchronized (this) {
+            if (hash.equals(hashes.get(fileName))) {
+                Files.deleteIfExists(stagedFile);
+                return;
+            }
+            Path blob = blobPath(hash);
+            // Si ya existe es la misma imagen que otra portada: no se guarda dos veces
+            if (!Files.exists(blob)) {
+                storeBlob(stagedFile, blob);
+            }
+            append(PUT, fileName, hash);
+            Files.deleteIfExists(stagedFile);
+
+            String previous = hashes.put(fileName, hash);
+            references.merge(hash, 1, Integer::sum);
+            pendingDeletes.remove(hash);
+            if (previous != null) {
+                release(previous);
+            }
+        }
+    }
+
+    // Enlace duro (sin copiar) o, si el origen está en otro sistema de archivos, copia a un temporal y
+    // rename atómico, para que nunca quede un blob a medio escribir con el nombre definitivo
+    private void storeBlob(Path source, Path blob) throws IOException {
+        Files.createDirectories(blob.getParent());
+        try {
+            Files.createLink(blob, source);
+        } catch (IOException | UnsupportedOperationException e) {
+            Path temp = blob.resolveSibling(blob.getFileName() + ".tmp");
+            Files.copy(source, temp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(temp, blob, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        }
+        try (FileChannel channel = FileChannel.open(blob, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    @Override
+    public Optional<StoredCover> find(String fileName) {
+        String hash = hashes.get(fileName);
+        return hash == null ? Optional.empty() : Optional.of(StoredCover.ofFile(fileName, blobPath(hash), renditionBase(hash)));
+    }
+
+    @Override
+    public boolean exists(String fileName) {
+        return hashes.containsKey(fileName);
+    }
+
+    @Override
+    public Set<String> fileNames() {
+        return Collections.unmodifiableSet(hashes.keySet());
+    }
+
+    @Override
+    public synchronized boolean delete(String fileName) throws IOException {
+        if (!hashes.containsKey(fileName)) {
+            return false;
+        }
+        append(DELETE, fileName, "-");
+        release(hashes.remove(fileName));
+        return true;
+    }
+
+    private void release(String hash) {
+        int remaining = references.merge(hash, -1, Integer::sum);
+        if (remaining > 0) {
+            return;
+        }
+        references.remove(hash);
+        pendingDeletes.put(hash, System.nanoTime());
+    }
+
+    // Borra los blobs que siguen sin referencias pasado el margen. Si el proceso termina antes,
+    // removeOrphanBlobs los borra en el siguiente arranque.
+    @Scheduled(fixedDelayString = "${books.covers.blob-delete-delay-ms:60000}")
+    synchronized void deleteReleasedBlobs() {
+        long now = System.nanoTime();
+        Iterator<Map.Entry<String, Long>> pending = pendingDeletes.entrySet().iterator();
+        while (pending.hasNext()) {
+            Map.Entry<String, Long> entry = pending.next();
+            if (now - entry.getValue() < TimeUnit.MILLISECONDS.toNanos(blobDeleteDelayMs)) {
+                continue;
+            }
+            pending.remove();
+            String hash = entry.getKey();
+            try {
+                Files.deleteIfExists(blobPath(hash));
+                coverRenditionService.deleteRenditions(renditionBase(hash));
+                log.debug("Cover blob {} deleted", hash);
+            } catch (IOException e) {
+                log.warn("Could not delete cover blob {}: {}", hash, e.getMessage());
+            }
+        }
+    }
+
+    private void append(String operation, String fileName, String hash) throws IOException {
+        byte[] line = (operation + " " + fileName + " " + hash + "\n").getBytes(StandardCharsets.US_ASCII);
+        journal.write(ByteBuffer.wrap(line));
+        journal.force(false);
+    }
+
+    private void loadJournal() throws IOException {
+        hashes.putAll(readJournal(journalFile));
+        hashes.values().forEach(hash -> references.merge(hash, 1, Integer::sum));
+    }
+
+    // Portadas registradas en un journal (nombre -> hash), sin abrir el store. También lo usa
+    // PackedCoverStore para importar las portadas la primera vez que se activa.
+    static Map<String, String> readJournal(Path journalFile) throws IOException {
+        Map<String, String> entries = new HashMap<>();
+        if (!Files.exists(journalFile)) {
+            return entries;
+        }
+        try (Stream<String> lines = Files.lines(journalFile, StandardCharsets.US_ASCII)) {
+            lines.forEach(line -> {
+                String[] parts = line.split(" ");
+                // Una última línea incompleta por un corte se ignora
+                if (parts.length != 3) {
+                    return;
+                }
+                if (PUT.equals(parts[0])) {
+                    entries.put(parts[1], parts[2]);
+                } else if (DELETE.equals(parts[0])) {
+                    entries.remove(parts[1]);
+                }
+            });
+        }
+        return entries;
+    }
+
+    // Reescribe el journal con una línea por portada viva, para que no crezca con cada reemplazo
+    private void compactJournal() throws IOException {
+        Path temp = coversDir.resolve("index.log.tmp");
+        try (BufferedWriter writer = Files.newBufferedWriter(temp, StandardCharsets.US_ASCII)) {
+            for (Map.Entry<String, String> entry : hashes.entrySet()) {
+                writer.write(PUT + " " + entry.getKey() + " " + entry.getValue() + "\n");
+            }
+        }
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+            channel.force(true);
+        }
+        Files.move(temp, journalFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    // Convierte en el sitio la estructura anterior ({isbn}.jpg sueltos en uploads/covers). Cada archivo
+    // se borra después de registrarlo, así que una migración interrumpida sigue donde quedó en el próximo arranque.
+    private void migrateFlatCovers() throws IOException {
+        int migrated = 0;
+        try (DirectoryStream<Path> flat = Files.newDirectoryStream(coversDir, "*.jpg")) {
+            for (Path file : flat) {
+                if (Files.isRegularFile(file)) {
+                    put(file.getFileName().toString(), file);
+                    migrated++;
+                }
+            }
+        }
+        // Versiones reducidas del formato anterior; se vuelven a generar junto a cada blob
+        for (CoverSize size : CoverSize.values()) {
+            Path legacyDir = coversDir.resolve(size.path());
+            if (size != CoverSize.ORIGINAL && Files.isDirectory(legacyDir)) {
+                try (Stream<Path> legacy = Files.list(legacyDir)) {
+                    for (Path file : legacy.toList()) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+                Files.deleteIfExists(legacyDir);
+            }
+        }
+        if (migrated > 0) {
+            log.info("Migrated {} covers to the sharded cover store", migrated);
+        }
+    }
+
+    // Blobs que quedaron sin entrada en el journal por un corte entre la copia y el registro, o sin
+    // referencias cuando el proceso terminó antes de borrarlos (también temporales de copias a medias)
+    private void removeOrphanBlobs() throws IOException {
+        List<Path> orphans;
+        try (Stream<Path> files = Files.find(blobsDir, 3, (path, attributes) -> attributes.isRegularFile())) {
+            orphans = files.filter(path -> !references.containsKey(blobHash(path))).toList();
+        }
+        for (Path orphan : orphans) {
+            Files.deleteIfExists(orphan);
+        }
+        if (!orphans.isEmpty()) {
+            log.warn("Removed {} orphan cover files", orphans.size());
+        }
+    }
+
+    private Path blobPath(String hash) {
+        return blobPath(blobsDir, hash);
+    }
+
+    static Path blobPath(Path blobsDir, String hash) {
+        return renditionBase(blobsDir, hash).resolveSibling(hash + ".jpg");
+    }
+
+    private Path renditionBase(String hash) {
+        return renditionBase(blobsDir, hash);
+    }
+
+    // Las versiones reducidas van junto al blob: <hash>-<tamaño>.jpg
+    private static Path renditionBase(Path blobsDir, String hash) {
+        return blobsDir.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    // Nombre del blob del que sale un archivo del árbol: <hash>.jpg o <hash>-<tamaño>.jpg
+    private static String blobHash(Path file) {
+        String name = file.getFileName().toString();
+        int end = name.indexOf('-');
+        return name.substring(0, end >= 0 ? end : name.lastIndexOf('.'));
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream input = Files.newInputStream(file)) {
+            int read;
+            while ((read = input.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+}
@@ -0,0 +1,7 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import java.nio.file.Path;
+
+// Portada ya copiada a un archivo temporal, a la espera de que se confirme la transacción
+public record StagedCover(Long isbn, String fileName, Path file) {
+}
@@ -0,0 +1,35 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+
+// Portada lista para enviar: o un archivo en disco (file), o bytes ya en memoria (content, de solo
+// lectura, con su fecha de modificación). renditionBase es la ruta sin extensión junto a la que se
+// guardan sus versiones reducidas; las versiones no tienen a su vez versiones (null).
+// fallback indica que se pidió una versión reducida pero se entrega el original porque no se pudo
+// generar a tiempo: no debe guardarse en ninguna caché.
+public record StoredCover(
+        String fileName,
+        Path file,
+        ByteBuffer content,
+        long lastModified,
+        Path renditionBase,
+        boolean fallback
+) {
+
+    public static StoredCover ofFile(String fileName, Path file, Path renditionBase) {
+        return new StoredCover(fileName, file, null, 0L, renditionBase, false);
+    }
+
+    public static StoredCover ofContent(String fileName, ByteBuffer content, long lastModified, Path renditionBase) {
+        return new StoredCover(fileName, null, content, lastModified, renditionBase, false);
+    }
+
+    public StoredCover asFallback() {
+        return new StoredCover(fileName, file, content, lastModified, renditionBase, true);
+    }
+
+    public boolean inMemory() {
+        return content != null;
+    }
+}
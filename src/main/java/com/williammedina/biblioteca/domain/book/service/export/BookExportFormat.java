@@ -0,0 +1,27 @@
+package com.williammedina.biblioteca.domain.book.service.export;
+
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+import java.util.Locale;
+
+@Getter
+@AllArgsConstructor
+public enum BookExportFormat {
+
+    NDJSON("application/x-ndjson", "ndjson"),
+    CSV("text/csv", "csv");
+
+    private final String contentType;
+    private final String extension;
+
+    public static BookExportFormat fromParam(String format) {
+        return switch (format.toLowerCase(Locale.ROOT)) {
+            case "ndjson" -> NDJSON;
+            case "csv" -> CSV;
+            default -> throw new AppException("Formato de exportación no soportado: " + format, HttpStatus.BAD_REQUEST);
+        };
+    }
+}
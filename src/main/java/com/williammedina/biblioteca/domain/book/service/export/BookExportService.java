@@ -0,0 +1,9 @@
+package com.williammedina.biblioteca.domain.book.service.export;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+public interface BookExportService {
+
+    StreamingResponseBody exportBooks(BookExportFormat format);
+
+}
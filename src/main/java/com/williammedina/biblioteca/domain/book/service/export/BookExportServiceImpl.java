@@ -0,0 +1,147 @@
+package com.williammedina.biblioteca.domain.book.service.export;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+import com.williammedina.biblioteca.domain.book.repository.BookRepository;
+import com.williammedina.biblioteca.infrastructure.exception.RetryLaterException;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+// Cada exportación ocupa una conexión y un cursor de MySQL mientras dura, así que hay un número
+// máximo de exportaciones simultáneas (429 al superarlo) y un tiempo máximo por exportación.
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookExportServiceImpl implements BookExportService {
+
+    private static final String CSV_HEADER = "id,isbn,title,author,publisher,publication_year,location";
+
+    // Cada cuántas filas se envía al cliente lo que hay en el buffer
+    private static final int FLUSH_INTERVAL = 500;
+
+    private final BookRepository bookRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    @Value("${books.export.max-concurrent:2}")
+    private int maxConcurrentExports;
+
+    @Value("${books.export.timeout-seconds:120}")
+    private long exportTimeoutSeconds;
+
+    @Value("${books.export.retry-after-seconds:30}")
+    private long retryAfterSeconds;
+
+    private Semaphore exportSlots;
+    private TransactionTemplate readOnlyTransaction;
+
+    @PostConstruct
+    void initialize() {
+        exportSlots = new Semaphore(maxConcurrentExports);
+        readOnlyTransaction = new TransactionTemplate(transactionTemplate.getTransactionManager());
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @Override
+    public StreamingResponseBody exportBooks(BookExportFormat format) {
+        // Se reserva antes de responder, así el rechazo todavía puede ser un 429 y no una respuesta cortada
+        if (!exportSlots.tryAcquire()) {
+            throw new RetryLaterException("Hay demasiadas exportaciones en curso. Inténtalo de nuevo más tarde.",
+                    HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds);
+        }
+        return outputStream -> {
+            try {
+                readOnlyTransaction.executeWithoutResult(status -> {
+                    try {
+                        writeCatalog(format, outputStream);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            } finally {
+                exportSlots.release();
+            }
+        };
+    }
+
+    private void writeCatalog(BookExportFormat format, OutputStream outputStream) throws IOException {
+        log.info("Exporting book catalog as {}", format);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(exportTimeoutSeconds);
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+        if (format == BookExportFormat.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+
+        long rows = 0;
+        // La consulta proyecta a DTO, así que ningún libro queda retenido en el contexto de persistencia
+        try (Stream<BookDTO> books = bookRepository.streamAllOrderById()) {
+            Iterator<BookDTO> iterator = books.iterator();
+            while (iterator.hasNext()) {
+                writeRow(writer, format, iterator.next());
+                rows++;
+
+                // La primera fila sale de inmediato; después se agrupan para no vaciar el buffer en cada libro
+                if (rows == 1 || rows % FLUSH_INTERVAL == 0) {
+                    writer.flush();
+                    // Un cliente lento no puede retener la conexión más allá del límite: se corta la respuesta
+                    if (System.nanoTime() - deadline > 0) {
+                        log.warn("Book catalog export timed out after {} books", rows);
+                        throw new IOException("Export exceeded " + exportTimeoutSeconds + "s");
+                    }
+                }
+            }
+        }
+        writer.flush();
+        log.info("Book catalog export finished: {} books", rows);
+    }
+
+    private void writeRow(Writer writer, BookExportFormat format, BookDTO book) throws IOException {
+        if (format == BookExportFormat.NDJSON) {
+            writer.write(objectMapper.writeValueAsString(book));
+        } else {
+            writer.write(String.valueOf(book.id()));
+            writer.write(',');
+            writer.write(String.valueOf(book.isbn()));
+            writer.write(',');
+            writer.write(csvField(book.title()));
+            writer.write(',');
+            writer.write(csvField(book.author()));
+            writer.write(',');
+            writer.write(csvField(book.publisher()));
+            writer.write(',');
+            writer.write(csvField(book.publication_year()));
+            writer.write(',');
+            writer.write(csvField(book.location()));
+        }
+        writer.write('\n');
+    }
+
+    // Comillas solo cuando el valor las necesita (RFC 4180)
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -1,9 +1,10 @@
 package com.williammedina.biblioteca.domain.book.service.finder;
 
-import com.williammedina.biblioteca.domain.book.entity.BookEntity;
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
 
 public interface BookFinder {
 
-    BookEntity findBookByIsbn(Long isbn);
+    BookDTO findCurrentBook(Long isbn);
+    BookDTO findBookDetailsByIsbn(Long isbn);
 
 }
@@ -1,7 +1,8 @@
 package com.williammedina.biblioteca.domain.book.service.finder;
 
-import com.williammedina.biblioteca.domain.book.entity.BookEntity;
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
 import com.williammedina.biblioteca.domain.book.repository.BookRepository;
+import com.williammedina.biblioteca.domain.book.service.catalog.BookCatalog;
 import com.williammedina.biblioteca.infrastructure.exception.AppException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -14,10 +15,22 @@ import org.springframework.stereotype.Service;
 public class BookFinderImpl implements BookFinder {
 
     private final BookRepository bookRepository;
+    private final BookCatalog bookCatalog;
 
+    // Id y versión para escribir: primero el catálogo en memoria y, si otro nodo lo acaba de crear, la base de datos
     @Override
-    public BookEntity findBookByIsbn(Long isbn) {
-        return bookRepository.findByIsbn(isbn)
+    public BookDTO findCurrentBook(Long isbn) {
+        return bookCatalog.findByIsbn(isbn)
+                .or(() -> bookRepository.findDetailsByIsbn(isbn))
+                .orElseThrow(() -> {
+                    log.error("Book not found with ISBN: {}", isbn);
+                    return new AppException("Book not found.", HttpStatus.NOT_FOUND);
+                });
+    }
+
+    @Override
+    public BookDTO findBookDetailsByIsbn(Long isbn) {
+        return bookRepository.findDetailsByIsbn(isbn)
                 .orElseThrow(() -> {
                     log.error("Book not found with ISBN: {}", isbn);
                     return new AppException("Book not found.", HttpStatus.NOT_FOUND);
@@ -0,0 +1,24 @@
+package com.williammedina.biblioteca.domain.book.service.importer;
+
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+
+public enum BookImportFormat {
+
+    NDJSON,
+    CSV;
+
+    public static BookImportFormat fromContentType(String contentType) {
+        if (contentType != null) {
+            MediaType mediaType = MediaType.parseMediaType(contentType);
+            if (mediaType.isCompatibleWith(MediaType.parseMediaType("application/x-ndjson"))) {
+                return NDJSON;
+            }
+            if (mediaType.isCompatibleWith(MediaType.parseMediaType("text/csv"))) {
+                return CSV;
+            }
+        }
+        throw new AppException("Formato de importación no soportado: " + contentType, HttpStatus.UNSUPPORTED_MEDIA_TYPE);
+    }
+}
@@ -0,0 +1,6 @@
+package com.williammedina.biblioteca.domain.book.service.importer;
+
+// Fila tal como viene en el archivo; los campos tienen los mismos nombres que la exportación
+record BookImportRow(Long isbn, String title, String author, String publisher,
+                     String publication_year, String location) {
+}
@@ -0,0 +1,12 @@
+package com.williammedina.biblioteca.domain.book.service.importer;
+
+import com.williammedina.biblioteca.domain.book.dto.BookImportReportDTO;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+public interface BookImportService {
+
+    BookImportReportDTO importBooks(BookImportFormat format, InputStream inputStream) throws IOException;
+
+}
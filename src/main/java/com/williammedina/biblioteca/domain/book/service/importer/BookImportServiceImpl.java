@@ -0,0 +1,306 @@
+package com.williammedina.biblioteca.domain.book.service.importer;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.williammedina.biblioteca.domain.book.dto.BookImportErrorDTO;
+import com.williammedina.biblioteca.domain.book.dto.BookImportReportDTO;
+import com.williammedina.biblioteca.domain.book.dto.InputBookDTO;
+import com.williammedina.biblioteca.domain.book.event.CatalogChangedEvent;
+import com.williammedina.biblioteca.domain.book.service.catalog.BookSortKeys;
+import com.williammedina.biblioteca.domain.book.service.location.BookLocationParser;
+import com.williammedina.biblioteca.domain.book.service.location.ParsedLocation;
+import com.williammedina.biblioteca.domain.book.service.utils.BookUtils;
+import com.williammedina.biblioteca.domain.book.service.validator.BookValidator;
+import com.williammedina.biblioteca.domain.book.service.version.CatalogVersionService;
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.Ordered;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Types;
+import java.util.*;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookImportServiceImpl implements BookImportService {
+
+    private static final String INSERT_BOOK = "INSERT INTO books " +
+            "(isbn, title, author, publisher, publication_year, location, location_key, " +
+            "location_shelf, location_section, location_position, title_sort_key, author_sort_key, " +
+            "publisher_sort_key, publication_year_sort_key, author_unknown, publisher_unknown, " +
+            "publication_year_unknown, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    // Largos de las columnas de BookEntity: en el alta individual los controla la base de datos,
+    // aquí se revisan antes para que una fila larga no haga fallar el lote completo
+    private static final int MAX_TITLE_LENGTH = 120;
+    private static final int MAX_AUTHOR_LENGTH = 100;
+    private static final int MAX_PUBLISHER_LENGTH = 50;
+
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final BookValidator bookValidator;
+    private final CatalogVersionService catalogVersionService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${books.import.batch-size:500}")
+    private int batchSize;
+
+    @Value("${books.import.max-rows:10000}")
+    private int maxRows;
+
+    private record ParsedRow(long line, BookImportRow row, List<String> errors) {
+    }
+
+    private record NewBook(long line, Long isbn, String title, String author, String publisher,
+                           String publicationYear, String location, boolean locationProvided) {
+    }
+
+    @Override
+    public BookImportReportDTO importBooks(BookImportFormat format, InputStream inputStream) throws IOException {
+        log.info("Importing books from {}", format);
+        BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        List<ParsedRow> rows = format == BookImportFormat.CSV ? readCsv(reader) : readNdjson(reader);
+
+        // Las reglas de InputBookDTO no dependen de otras filas, así que se revisan en paralelo
+        List<ParsedRow> validated = rows.parallelStream().map(this::validate).toList();
+
+        List<BookImportErrorDTO> rejected = new ArrayList<>();
+        List<NewBook> candidates = new ArrayList<>();
+        for (ParsedRow row : validated) {
+            if (row.errors().isEmpty()) {
+                candidates.add(normalize(row));
+            } else {
+                rejected.add(new BookImportErrorDTO(row.line(), row.row() != null ? row.row().isbn() : null, row.errors()));
+            }
+        }
+
+        List<NewBook> accepted = checkUniqueness(candidates, rejected);
+        insert(accepted);
+
+        rejected.sort(Comparator.comparingLong(BookImportErrorDTO::line));
+        log.info("Book import finished: {} received, {} imported, {} rejected", rows.size(), accepted.size(), rejected.size());
+        return new BookImportReportDTO(rows.size(), accepted.size(), rejected);
+    }
+
+    private List<ParsedRow> readNdjson(BufferedReader reader) throws IOException {
+        List<ParsedRow> rows = new ArrayList<>();
+        long lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            ensureRowLimit(rows.size());
+            try {
+                rows.add(new ParsedRow(lineNumber, objectMapper.readValue(line, BookImportRow.class), List.of()));
+            } catch (JsonProcessingException e) {
+                rows.add(new ParsedRow(lineNumber, null, List.of("La fila no es un JSON válido.")));
+            }
+        }
+        return rows;
+    }
+
+    private List<ParsedRow> readCsv(Reader reader) throws IOException {
+        CsvRecordReader csv = new CsvRecordReader(reader);
+        List<String> header = csv.next();
+        if (header == null) {
+            return List.of();
+        }
+
+        // Las columnas se ubican por nombre, así el archivo de la exportación (con id) sirve tal cual
+        Map<String, Integer> columns = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            columns.put(header.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!columns.containsKey("isbn") || !columns.containsKey("title")) {
+            throw new AppException("El CSV debe tener una cabecera con al menos las columnas isbn y title.", HttpStatus.BAD_REQUEST);
+        }
+
+        List<ParsedRow> rows = new ArrayList<>();
+        List<String> fields;
+        while ((fields = csv.next()) != null) {
+            ensureRowLimit(rows.size());
+            String isbn = column(fields, columns, "isbn");
+            try {
+                BookImportRow row = new BookImportRow(
+                        isbn == null || isbn.isBlank() ? null : Long.valueOf(isbn.trim()),
+                        column(fields, columns, "title"),
+                        column(fields, columns, "author"),
+                        column(fields, columns, "publisher"),
+                        column(fields, columns, "publication_year"),
+                        column(fields, columns, "location"));
+                rows.add(new ParsedRow(csv.recordLine(), row, List.of()));
+            } catch (NumberFormatException e) {
+                rows.add(new ParsedRow(csv.recordLine(), null, List.of("El ISBN debe ser numérico.")));
+            }
+        }
+        return rows;
+    }
+
+    private static String column(List<String> fields, Map<String, Integer> columns, String name) {
+        Integer index = columns.get(name);
+        return index != null && index < fields.size() ? fields.get(index) : null;
+    }
+
+    private void ensureRowLimit(int rows) {
+        if (rows >= maxRows) {
+            log.warn("Book import rejected: more than {} rows", maxRows);
+            throw new AppException("Se permiten como máximo " + maxRows + " filas por importación.", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Mismas restricciones que el alta individual (anotaciones de InputBookDTO)
+    private ParsedRow validate(ParsedRow parsed) {
+        if (parsed.row() == null) {
+            return parsed;
+        }
+
+        BookImportRow row = parsed.row();
+        InputBookDTO input = new InputBookDTO(row.isbn(), row.title(), row.author(), row.publisher(),
+                row.publication_year(), row.location(), null, null);
+
+        List<String> errors = new ArrayList<>();
+        for (ConstraintViolation<InputBookDTO> violation : validator.validate(input)) {
+            errors.add(violation.getMessage());
+        }
+        if (row.title() != null && row.title().length() > MAX_TITLE_LENGTH) {
+            errors.add("El título no puede tener más de " + MAX_TITLE_LENGTH + " caracteres");
+        }
+        if (row.author() != null && row.author().trim().length() > MAX_AUTHOR_LENGTH) {
+            errors.add("El autor no puede tener más de " + MAX_AUTHOR_LENGTH + " caracteres");
+        }
+        if (row.publisher() != null && row.publisher().trim().length() > MAX_PUBLISHER_LENGTH) {
+            errors.add("La editorial no puede tener más de " + MAX_PUBLISHER_LENGTH + " caracteres");
+        }
+        return errors.isEmpty() ? parsed : new ParsedRow(parsed.line(), row, errors);
+    }
+
+    // Mismos valores por defecto que addNewBook
+    private static NewBook normalize(ParsedRow parsed) {
+        BookImportRow row = parsed.row();
+        String location = BookUtils.normalizeOrDefault(row.location(), "---");
+        return new NewBook(parsed.line(), row.isbn(), row.title(),
+                BookUtils.normalizeOrDefault(row.author(), "S.A"),
+                BookUtils.normalizeOrDefault(row.publisher(), "S.E"),
+                BookUtils.normalizeOrDefault(row.publication_year(), "S.F"),
+                location, !location.equals("---"));
+    }
+
+    // ISBN y ubicación únicos: contra la base de datos con dos consultas por conjunto y contra
+    // las filas anteriores del mismo archivo. Los libros sin ubicación comparten "---" (así llegan en la exportación).
+    // Las ubicaciones se comparan como la clave única location_key, sin distinguir mayúsculas ni acentos:
+    // "a-b12" choca con "A-B12" y se rechaza aquí en lugar de hacer fallar el lote completo.
+    private List<NewBook> checkUniqueness(List<NewBook> candidates, List<BookImportErrorDTO> rejected) {
+        Set<Long> existingIsbns = bookValidator.findExistingIsbns(candidates.stream().map(NewBook::isbn).toList());
+        Set<ByteBuffer> occupiedLocations = new HashSet<>();
+        for (String location : bookValidator.findOccupiedLocations(candidates.stream()
+                .filter(NewBook::locationProvided)
+                .map(NewBook::location)
+                .toList())) {
+            occupiedLocations.add(locationIdentity(location));
+        }
+
+        Set<Long> seenIsbns = new HashSet<>();
+        Map<ByteBuffer, Long> seenLocations = new HashMap<>();
+        List<NewBook> accepted = new ArrayList<>(candidates.size());
+        for (NewBook book : candidates) {
+            List<String> errors = new ArrayList<>(2);
+            if (existingIsbns.contains(book.isbn()) || !seenIsbns.add(book.isbn())) {
+                errors.add("Un libro con ese ISBN ya existe.");
+            }
+            if (book.locationProvided()) {
+                ByteBuffer location = locationIdentity(book.location());
+                Long previousLine = seenLocations.putIfAbsent(location, book.line());
+                if (occupiedLocations.contains(location)) {
+                    errors.add("Un libro ya tiene esa ubicación.");
+                } else if (previousLine != null) {
+                    errors.add("La fila de la línea " + previousLine + " ya usa esa ubicación.");
+                }
+            }
+
+            if (errors.isEmpty()) {
+                accepted.add(book);
+            } else {
+                rejected.add(new BookImportErrorDTO(book.line(), book.isbn(), errors));
+            }
+        }
+        return accepted;
+    }
+
+    // Misma igualdad que la collation de la columna (utf8mb4_0900_ai_ci)
+    private static ByteBuffer locationIdentity(String location) {
+        return ByteBuffer.wrap(BookSortKeys.key(location));
+    }
+
+    // Inserción directa por JDBC en lotes: con IDENTITY, Hibernate insertaría fila por fila
+    private void insert(List<NewBook> books) {
+        if (books.isEmpty()) {
+            return;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(INSERT_BOOK, books, batchSize, (statement, book) -> {
+                    ParsedLocation location = BookLocationParser.parse(book.location());
+                    statement.setLong(1, book.isbn());
+                    statement.setString(2, book.title());
+                    statement.setString(3, book.author());
+                    statement.setString(4, book.publisher());
+                    statement.setString(5, book.publicationYear());
+                    statement.setString(6, book.location());
+                    statement.setString(7, BookLocationParser.locationKey(book.location()));
+                    statement.setString(8, location != null ? location.shelf() : null);
+                    statement.setString(9, location != null ? location.section() : null);
+                    if (location != null) {
+                        statement.setInt(10, location.position());
+                    } else {
+                        statement.setNull(10, Types.INTEGER);
+                    }
+                    statement.setBytes(11, BookSortKeys.key(book.title()));
+                    statement.setBytes(12, BookSortKeys.key(book.author()));
+                    statement.setBytes(13, BookSortKeys.key(book.publisher()));
+                    statement.setBytes(14, BookSortKeys.key(book.publicationYear()));
+                    statement.setBoolean(15, BookSortKeys.isUnknown(book.author(), BookSortKeys.UNKNOWN_AUTHOR));
+                    statement.setBoolean(16, BookSortKeys.isUnknown(book.publisher(), BookSortKeys.UNKNOWN_PUBLISHER));
+                    statement.setBoolean(17, BookSortKeys.isUnknown(book.publicationYear(), BookSortKeys.UNKNOWN_PUBLICATION_YEAR));
+                });
+
+                long version = catalogVersionService.incrementVersion();
+                // Las copias en memoria se recargan antes de que avance la versión local (ETag)
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public int getOrder() {
+                        return Ordered.HIGHEST_PRECEDENCE;
+                    }
+
+                    @Override
+                    public void afterCommit() {
+                        eventPublisher.publishEvent(new CatalogChangedEvent(version));
+                    }
+                });
+            });
+        } catch (DuplicateKeyException e) {
+            log.warn("Book import aborted: a concurrent write stored one of the ISBNs or locations", e);
+            throw new AppException("Otro usuario registró uno de los ISBN o ubicaciones durante la importación. Vuelve a intentarlo.", HttpStatus.CONFLICT);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.williammedina.biblioteca.domain.book.service.importer;
+
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// Lector CSV (RFC 4180) por registro: admite comillas, comillas dobles escapadas y saltos de línea
+// dentro de un campo, que es exactamente lo que produce la exportación
+final class CsvRecordReader {
+
+    private final Reader reader;
+    private int pending = -2;
+    private long line = 1;
+    private long recordLine;
+
+    CsvRecordReader(Reader reader) {
+        this.reader = reader;
+    }
+
+    // Línea del archivo donde empieza el último registro leído
+    long recordLine() {
+        return recordLine;
+    }
+
+    List<String> next() throws IOException {
+        int c = read();
+        // Se ignoran las líneas vacías entre registros
+        while (c == '\r' || c == '\n') {
+            c = read();
+        }
+        if (c < 0) {
+            return null;
+        }
+
+        recordLine = line;
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+
+        while (true) {
+            if (quoted) {
+                if (c < 0) {
+                    throw new AppException("Campo entre comillas sin cerrar en la línea " + recordLine + ".", HttpStatus.BAD_REQUEST);
+                }
+                if (c == '"') {
+                    int following = read();
+                    if (following == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = following;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.isEmpty()) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c < 0 || c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    int following = read();
+                    if (following != '\n') {
+                        unread(following);
+                    }
+                }
+                fields.add(field.toString());
+                return fields;
+            } else {
+                field.append((char) c);
+            }
+            c = read();
+        }
+    }
+
+    private int read() throws IOException {
+        int c;
+        if (pending != -2) {
+            c = pending;
+            pending = -2;
+        } else {
+            c = reader.read();
+        }
+        if (c == '\n') {
+            line++;
+        }
+        return c;
+    }
+
+    private void unread(int c) {
+        if (c == '\n') {
+            line--;
+        }
+        pending = c;
+    }
+}
@@ -0,0 +1,102 @@
+package com.williammedina.biblioteca.domain.book.service.location;
+
+import com.williammedina.biblioteca.domain.book.entity.BookEntity;
+import com.williammedina.biblioteca.domain.book.event.CatalogChangedEvent;
+import com.williammedina.biblioteca.domain.book.repository.BookRepository;
+import com.williammedina.biblioteca.domain.book.service.version.CatalogVersionService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+
+// Completa las columnas de ubicación de los libros guardados antes de que existieran.
+// Avanza por id en lotes cortos, cada uno en su propia transacción.
+// Guardar las entidades incrementa su @Version, así que cada lote que cambia filas también avanza
+// la versión del catálogo y al final se recargan las copias en memoria (como tras una importación).
+// Los libros con una ubicación no válida o repetida se vuelven a leer en cada arranque, pero no
+// cambian: si ningún libro cambia no se avanza la versión ni se recarga nada.
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookLocationBackfill implements ApplicationRunner {
+
+    private static final int BATCH_SIZE = 500;
+
+    private final BookRepository bookRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long lastId = 0;
+        int updated = 0;
+        long version = 0;
+
+        while (true) {
+            long afterId = lastId;
+            long[] batchVersion = {0};
+            int[] batchUpdated = {0};
+            List<BookEntity> batch = transactionTemplate.execute(status -> {
+                List<BookEntity> books = bookRepository.findPendingLocationBackfill(afterId, PageRequest.of(0, BATCH_SIZE));
+                batchUpdated[0] = assignComponents(books);
+                if (batchUpdated[0] > 0) {
+                    batchVersion[0] = catalogVersionService.incrementVersion();
+                }
+                return books;
+            });
+
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            updated += batchUpdated[0];
+            lastId = batch.getLast().getId();
+            if (batchVersion[0] > 0) {
+                version = batchVersion[0];
+            }
+        }
+
+        if (version > 0) {
+            log.info("Backfilled location columns for {} books", updated);
+            // Una petición pudo cargar el catálogo o el árbol de ubicaciones antes de terminar el relleno
+            eventPublisher.publishEvent(new CatalogChangedEvent(version));
+        }
+    }
+
+    // Las entidades quedan administradas: los cambios se guardan al confirmar el lote.
+    // Si datos antiguos repiten una ubicación, solo el primer libro recibe la clave única.
+    // Devuelve cuántos libros cambiaron.
+    private int assignComponents(List<BookEntity> books) {
+        List<String> newKeys = books.stream()
+                .filter(book -> book.getLocationKey() == null)
+                .map(book -> BookLocationParser.locationKey(book.getLocation()))
+                .filter(Objects::nonNull)
+                .toList();
+        Set<String> takenKeys = newKeys.isEmpty() ? new HashSet<>() : new HashSet<>(bookRepository.findTakenLocationKeys(newKeys));
+
+        int changed = 0;
+        for (BookEntity book : books) {
+            List<Object> before = Arrays.asList(book.getLocationKey(), book.getShelf(), book.getSection(), book.getPosition());
+            boolean hadKey = book.getLocationKey() != null;
+            BookLocationParser.assignComponents(book);
+            if (!hadKey && book.getLocationKey() != null && !takenKeys.add(book.getLocationKey())) {
+                log.warn("Book ID {} shares location {} with another book; it is left without a unique key", book.getId(), book.getLocation());
+                book.setLocationKey(null);
+            }
+            if (!before.equals(Arrays.asList(book.getLocationKey(), book.getShelf(), book.getSection(), book.getPosition()))) {
+                changed++;
+            }
+        }
+        return changed;
+    }
+}
@@ -0,0 +1,72 @@
+package com.williammedina.biblioteca.domain.book.service.location;
+
+import com.williammedina.biblioteca.domain.book.entity.BookEntity;
+
+// Único punto donde se interpreta el texto de la ubicación. Se usa al escribir, así las
+// lecturas trabajan con las columnas ya separadas y nunca vuelven a partir el texto.
+public final class BookLocationParser {
+
+    // Las secciones son una sola letra; se reutilizan las cadenas en lugar de crear una por libro
+    private static final String[] ASCII_SECTIONS = new String[128];
+
+    static {
+        for (char c = 0; c < ASCII_SECTIONS.length; c++) {
+            ASCII_SECTIONS[c] = String.valueOf(c).intern();
+        }
+    }
+
+    private BookLocationParser() {}
+
+    // Devuelve null si la ubicación está incompleta o la posición no es un número válido.
+    // Respeta la interpretación histórica de split("-"): estantería antes del primer guion,
+    // sección y posición hasta el siguiente guion o el final.
+    public static ParsedLocation parse(String location) {
+        if (location == null) {
+            return null;
+        }
+
+        int shelfEnd = location.indexOf('-');
+        if (shelfEnd <= 0) {
+            return null;
+        }
+
+        int positionStart = shelfEnd + 1;
+        int positionEnd = location.indexOf('-', positionStart);
+        if (positionEnd < 0) {
+            positionEnd = location.length();
+        }
+        if (positionEnd - positionStart <= 1) {
+            return null;
+        }
+
+        int number;
+        try {
+            number = Integer.parseInt(location, positionStart + 1, positionEnd, 10);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+        if (number == 0) {
+            return null;
+        }
+
+        return new ParsedLocation(location.substring(0, shelfEnd), section(location.charAt(positionStart)), number);
+    }
+
+    // Valor de la columna única location_key: la ubicación por defecto no ocupa lugar
+    public static String locationKey(String location) {
+        return location == null || location.equals(BookEntity.DEFAULT_LOCATION) ? null : location;
+    }
+
+    // Copia los componentes de la ubicación actual del libro a sus columnas
+    public static void assignComponents(BookEntity book) {
+        book.setLocationKey(locationKey(book.getLocation()));
+        ParsedLocation parsed = parse(book.getLocation());
+        book.setShelf(parsed != null ? parsed.shelf() : null);
+        book.setSection(parsed != null ? parsed.section() : null);
+        book.setPosition(parsed != null ? parsed.position() : null);
+    }
+
+    private static String section(char c) {
+        return c < ASCII_SECTIONS.length ? ASCII_SECTIONS[c] : String.valueOf(c);
+    }
+}
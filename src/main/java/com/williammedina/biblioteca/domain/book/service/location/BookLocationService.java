@@ -1,12 +1,15 @@
 package com.williammedina.biblioteca.domain.book.service.location;
 
 import com.williammedina.biblioteca.domain.book.dto.LocationDTO;
-import com.williammedina.biblioteca.domain.book.entity.BookEntity;
+import com.williammedina.biblioteca.domain.book.dto.SectionDTO;
 
 import java.util.List;
 
 public interface BookLocationService {
 
-    List<LocationDTO> organizeBookLocations(List<BookEntity> books);
+    List<LocationDTO> getBookLocations();
+    LocationDTO getShelf(String shelf);
+    SectionDTO getSection(String shelf, String section);
+    void reload();
 
 }
@@ -3,90 +3,126 @@ package com.williammedina.biblioteca.domain.book.service.location;
 import com.williammedina.biblioteca.domain.book.dto.BookLocationDTO;
 import com.williammedina.biblioteca.domain.book.dto.LocationDTO;
 import com.williammedina.biblioteca.domain.book.dto.SectionDTO;
-import com.williammedina.biblioteca.domain.book.entity.BookEntity;
+import com.williammedina.biblioteca.domain.book.dto.ShelvedBookDTO;
+import com.williammedina.biblioteca.domain.book.event.BookDeletedEvent;
+import com.williammedina.biblioteca.domain.book.event.BookSavedEvent;
+import com.williammedina.biblioteca.domain.book.event.CatalogChangedEvent;
+import com.williammedina.biblioteca.domain.book.repository.BookRepository;
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
 
-import java.util.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
 
+// Mantiene armada la estructura de ubicaciones: se carga en la primera lectura y después
+// solo se rearma la estantería afectada por cada escritura confirmada.
 @Slf4j
 @Service
+@RequiredArgsConstructor
 public class BookLocationServiceImpl implements BookLocationService {
 
-    @Override
-    public List<LocationDTO> organizeBookLocations(List<BookEntity> books) {
-        Map<String, LocationDTO> locationBooks = new HashMap<>();
-
-        for (BookEntity book : books) {
-            String location = book.getLocation();
+    private final BookRepository bookRepository;
+    private final Object writeLock = new Object();
+    private LocationTree tree;
 
-            // Validar que la ubicación tenga el formato adecuado
-            if (location != null && location.contains("-")) {
-                String[] parts = location.split("-");
+    // Lista ya armada e inmutable; las lecturas no toman el lock
+    private volatile List<LocationDTO> locations;
 
-                // Verificar que la ubicación tenga al menos dos partes (estantería y posición)
-                if (parts.length >= 2) {
-                    String shelf = parts[0];
-                    String position = parts[1];
-
-                    // Obtener la sección y el número de posición
-                    if (position.length() > 1) {
-                        String section = position.substring(0, 1);
-                        int number;
+    @Override
+    public List<LocationDTO> getBookLocations() {
+        List<LocationDTO> current = locations;
+        if (current == null) {
+            synchronized (writeLock) {
+                if (locations == null) {
+                    reload();
+                }
+                current = locations;
+            }
+        }
+        return current;
+    }
 
-                        try {
-                            number = Integer.parseInt(position.substring(1));
-                        } catch (NumberFormatException e) {
-                            log.warn("Invalid position number for book ID {}: {}", book.getId(), position);
-                            continue; // Si no se puede convertir a número, ignorar el libro
-                        }
+    @Override
+    @Transactional(readOnly = true)
+    public LocationDTO getShelf(String shelf) {
+        TreeMap<String, List<BookLocationDTO>> sections = new TreeMap<>();
+        for (ShelvedBookDTO book : bookRepository.findShelvedBooksByShelf(shelf)) {
+            if (book.shelf().equals(shelf)) {
+                sections.computeIfAbsent(book.section(), section -> new ArrayList<>()).add(book.toBookLocation());
+            }
+        }
 
-                        // Ignorar si no hay información válida
-                        if (shelf.isEmpty() || section.isEmpty() || number == 0) {
-                            log.warn("Incomplete location data for book ID: {}", book.getId());
-                            continue;
-                        }
+        if (sections.isEmpty()) {
+            log.warn("No books found on shelf: {}", shelf);
+            throw new AppException("No hay libros en la estantería " + shelf + ".", HttpStatus.NOT_FOUND);
+        }
 
-                        // Si no existe la estantería, crearla
-                        locationBooks.putIfAbsent(shelf, new LocationDTO(shelf, new ArrayList<>()));
+        List<SectionDTO> sectionViews = new ArrayList<>(sections.size());
+        sections.forEach((section, books) -> sectionViews.add(new SectionDTO(section, books)));
+        return new LocationDTO(shelf, sectionViews);
+    }
 
-                        // Obtener la sección y agregar el libro a la sección
-                        LocationDTO shelfGroup = locationBooks.get(shelf);
-                        List<SectionDTO> sections = shelfGroup.sections();
-                        Optional<SectionDTO> sectionOpt = sections.stream()
-                                .filter(s -> s.section().equals(section))
-                                .findFirst();
+    @Override
+    @Transactional(readOnly = true)
+    public SectionDTO getSection(String shelf, String section) {
+        // La base de datos compara sin distinguir mayúsculas; el árbol completo sí las distingue
+        List<BookLocationDTO> books = bookRepository.findShelvedBooksBySection(shelf, section).stream()
+                .filter(book -> book.shelf().equals(shelf) && book.section().equals(section))
+                .map(ShelvedBookDTO::toBookLocation)
+                .toList();
+
+        if (books.isEmpty()) {
+            log.warn("No books found on shelf {} section {}", shelf, section);
+            throw new AppException("No hay libros en la sección " + section + " de la estantería " + shelf + ".", HttpStatus.NOT_FOUND);
+        }
+        return new SectionDTO(section, books);
+    }
 
-                        SectionDTO sectionGroup;
-                        if (sectionOpt.isPresent()) {
-                            sectionGroup = sectionOpt.get();
-                        } else {
-                            sectionGroup = new SectionDTO(section, new ArrayList<>());
-                            sections.add(sectionGroup);
-                        }
+    @Override
+    public void reload() {
+        synchronized (writeLock) {
+            log.debug("Building book location structure");
+            List<ShelvedBookDTO> books = bookRepository.findAllShelvedBooks();
+            tree = LocationTree.of(books);
+            locations = tree.locations();
+            log.info("Book location structure assembled successfully: {} shelves", locations.size());
+        }
+    }
 
-                        sectionGroup.books().add(new BookLocationDTO(book.getId(), book.getIsbn(), book.getTitle(),
-                                book.getAuthor(), book.getPublisher(), book.getPublicationYear(),
-                                book.getLocation(), number));
-                    }
-                }
+    @TransactionalEventListener
+    public void onBookSaved(BookSavedEvent event) {
+        synchronized (writeLock) {
+            // Si aún no se cargó, la primera lectura ya verá el cambio confirmado
+            if (tree != null) {
+                tree.put(event.previousIsbn(), event.book());
+                locations = tree.locations();
             }
         }
+    }
 
-        // Ordenar las estanterías, secciones y libros
-        log.debug("Sorting shelves, sections, and books");
-        List<LocationDTO> sortedLocationBooks = new ArrayList<>(locationBooks.values());
-        sortedLocationBooks.sort(Comparator.comparing(LocationDTO::shelf));
-
-        for (LocationDTO shelfGroup : sortedLocationBooks) {
-            shelfGroup.sections().sort(Comparator.comparing(SectionDTO::section));
-
-            for (SectionDTO sectionGroup : shelfGroup.sections()) {
-                sectionGroup.books().sort(Comparator.comparingInt(BookLocationDTO::number));
+    @TransactionalEventListener
+    public void onBookDeleted(BookDeletedEvent event) {
+        synchronized (writeLock) {
+            if (tree != null) {
+                tree.remove(event.isbn());
+                locations = tree.locations();
             }
         }
+    }
 
-        log.info("Book location structure assembled successfully");
-        return sortedLocationBooks;
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        synchronized (writeLock) {
+            if (tree != null) {
+                reload();
+            }
+        }
     }
 }
@@ -0,0 +1,133 @@
+package com.williammedina.biblioteca.domain.book.service.location;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+import com.williammedina.biblioteca.domain.book.dto.BookLocationDTO;
+import com.williammedina.biblioteca.domain.book.dto.LocationDTO;
+import com.williammedina.biblioteca.domain.book.dto.SectionDTO;
+import com.williammedina.biblioteca.domain.book.dto.ShelvedBookDTO;
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.*;
+
+// Árbol estantería -> sección -> libros que se mantiene al día con cada escritura.
+// No es seguro para hilos: BookLocationServiceImpl lo modifica solo dentro de su lock.
+@Slf4j
+final class LocationTree {
+
+    // Los libros de una sección van de izquierda a derecha; el id desempata como el orden de la tabla
+    private static final Comparator<BookLocationDTO> POSITION_ORDER =
+            Comparator.comparingInt(BookLocationDTO::number).thenComparingLong(BookLocationDTO::id);
+
+    private record Placement(String shelf, String section, BookLocationDTO book) {
+    }
+
+    private final Map<Long, Placement> byIsbn = new HashMap<>();
+    private final TreeMap<String, TreeMap<String, TreeSet<BookLocationDTO>>> shelves = new TreeMap<>();
+
+    // Vista inmutable de cada estantería; solo se rearma la estantería que cambió
+    private final TreeMap<String, LocationDTO> shelfViews = new TreeMap<>();
+    private List<LocationDTO> locations = List.of();
+
+    // Las filas llegan con la ubicación ya separada en columnas, no se interpreta ningún texto
+    static LocationTree of(List<ShelvedBookDTO> books) {
+        LocationTree tree = new LocationTree();
+        books.forEach(book -> tree.place(new Placement(book.shelf(), book.section(), book.toBookLocation())));
+        tree.shelves.keySet().forEach(tree::refreshShelf);
+        tree.refreshLocations();
+        return tree;
+    }
+
+    List<LocationDTO> locations() {
+        return locations;
+    }
+
+    // Inserta o reemplaza un libro; previousIsbn indica la entrada a retirar si cambió de ISBN
+    void put(Long previousIsbn, BookDTO book) {
+        Set<String> changedShelves = new HashSet<>();
+        if (previousIsbn != null) {
+            removePlacement(previousIsbn, changedShelves);
+        }
+        removePlacement(book.isbn(), changedShelves);
+
+        Placement placement = placeBook(book);
+        if (placement != null) {
+            changedShelves.add(placement.shelf());
+        }
+        refresh(changedShelves);
+    }
+
+    void remove(Long isbn) {
+        Set<String> changedShelves = new HashSet<>();
+        removePlacement(isbn, changedShelves);
+        refresh(changedShelves);
+    }
+
+    private Placement placeBook(BookDTO book) {
+        Placement placement = parse(book);
+        if (placement != null) {
+            place(placement);
+        }
+        return placement;
+    }
+
+    private void place(Placement placement) {
+        byIsbn.put(placement.book().isbn(), placement);
+        shelves.computeIfAbsent(placement.shelf(), shelf -> new TreeMap<>())
+                .computeIfAbsent(placement.section(), section -> new TreeSet<>(POSITION_ORDER))
+                .add(placement.book());
+    }
+
+    private void removePlacement(Long isbn, Set<String> changedShelves) {
+        Placement placement = byIsbn.remove(isbn);
+        if (placement == null) {
+            return;
+        }
+
+        TreeMap<String, TreeSet<BookLocationDTO>> sections = shelves.get(placement.shelf());
+        TreeSet<BookLocationDTO> books = sections.get(placement.section());
+        books.remove(placement.book());
+        if (books.isEmpty()) {
+            sections.remove(placement.section());
+        }
+        if (sections.isEmpty()) {
+            shelves.remove(placement.shelf());
+        }
+        changedShelves.add(placement.shelf());
+    }
+
+    private void refresh(Set<String> changedShelves) {
+        if (!changedShelves.isEmpty()) {
+            changedShelves.forEach(this::refreshShelf);
+            refreshLocations();
+        }
+    }
+
+    private void refreshShelf(String shelf) {
+        TreeMap<String, TreeSet<BookLocationDTO>> sections = shelves.get(shelf);
+        if (sections == null) {
+            shelfViews.remove(shelf);
+            return;
+        }
+
+        List<SectionDTO> sectionViews = new ArrayList<>(sections.size());
+        sections.forEach((section, books) -> sectionViews.add(new SectionDTO(section, List.copyOf(books))));
+        shelfViews.put(shelf, new LocationDTO(shelf, List.copyOf(sectionViews)));
+    }
+
+    private void refreshLocations() {
+        locations = List.copyOf(shelfViews.values());
+    }
+
+    // Los libros que llegan por eventos se ubican con el mismo parser que llenó las columnas
+    private static Placement parse(BookDTO book) {
+        ParsedLocation parsed = BookLocationParser.parse(book.location());
+        if (parsed == null) {
+            log.debug("Book ID {} has no valid location: {}", book.id(), book.location());
+            return null;
+        }
+
+        BookLocationDTO bookLocation = new BookLocationDTO(book.id(), book.isbn(), book.title(),
+                book.author(), book.publisher(), book.publication_year(), book.location(), parsed.position());
+        return new Placement(parsed.shelf(), parsed.section(), bookLocation);
+    }
+}
@@ -0,0 +1,5 @@
+package com.williammedina.biblioteca.domain.book.service.location;
+
+// Componentes de una ubicación "estantería-<sección><posición>", por ejemplo "P-A12" -> (P, A, 12)
+public record ParsedLocation(String shelf, String section, int position) {
+}
@@ -0,0 +1,69 @@
+package com.williammedina.biblioteca.domain.book.service.pagination;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+import com.williammedina.biblioteca.domain.book.service.catalog.BookSort;
+import com.williammedina.biblioteca.domain.book.service.catalog.BookSortKeys;
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Posición de la última fila entregada: clave de ordenamiento, título e id.
+// Viaja al cliente como texto opaco en base64url.
+record BookCursor(
+        String scope,
+        String key,
+        String title,
+        Long id
+) {
+
+    private static final String SEPARATOR = "\u001F";
+    static final String SEARCH_SCOPE = "SEARCH";
+
+    static BookCursor of(BookSort sort, BookDTO book) {
+        String key = switch (sort) {
+            case AUTHOR -> book.author();
+            case PUBLISHER -> book.publisher();
+            case PUBLICATION_YEAR -> book.publication_year();
+            case TITLE, ID -> "";
+        };
+        return new BookCursor(sort.name(), key, book.title(), book.id());
+    }
+
+    static BookCursor ofSearch(BookDTO book) {
+        return new BookCursor(SEARCH_SCOPE, "", "", book.id());
+    }
+
+    // El cursor solo es válido para el mismo orden (o búsqueda) con el que se generó
+    static BookCursor decode(String cursor, String expectedScope) {
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = decoded.split(SEPARATOR, -1);
+            if (parts.length == 4 && parts[0].equals(expectedScope)) {
+                return new BookCursor(parts[0], parts[1], parts[2], Long.parseLong(parts[3]));
+            }
+        } catch (IllegalArgumentException e) {
+            // Se responde igual que con un cursor de otro orden
+        }
+        throw new AppException("El cursor de paginación no es válido.", HttpStatus.BAD_REQUEST);
+    }
+
+    String encode() {
+        String raw = String.join(SEPARATOR, scope, key, title, String.valueOf(id));
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    boolean unknown(String placeholder) {
+        return BookSortKeys.isUnknown(key, placeholder);
+    }
+
+    // Las consultas comparan las claves de ordenamiento, que se derivan de los valores del cursor
+    byte[] sortKey() {
+        return BookSortKeys.key(key);
+    }
+
+    byte[] titleSortKey() {
+        return BookSortKeys.key(title);
+    }
+}
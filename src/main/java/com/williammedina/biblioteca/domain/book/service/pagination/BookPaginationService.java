@@ -0,0 +1,11 @@
+package com.williammedina.biblioteca.domain.book.service.pagination;
+
+import com.williammedina.biblioteca.domain.book.dto.BookPageDTO;
+import com.williammedina.biblioteca.domain.book.service.catalog.BookSort;
+
+public interface BookPaginationService {
+
+    BookPageDTO getBooksPage(BookSort sort, int limit, String after);
+    BookPageDTO getBooksByKeywordPage(String keyword, int limit, String after);
+
+}
@@ -0,0 +1,106 @@
+package com.williammedina.biblioteca.domain.book.service.pagination;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+import com.williammedina.biblioteca.domain.book.dto.BookPageDTO;
+import com.williammedina.biblioteca.domain.book.repository.BookRepository;
+import com.williammedina.biblioteca.domain.book.service.catalog.BookSort;
+import com.williammedina.biblioteca.domain.book.service.catalog.BookSortKeys;
+import com.williammedina.biblioteca.domain.book.service.search.BookSearchIndex;
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.function.Function;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookPaginationServiceImpl implements BookPaginationService {
+
+    private final BookRepository bookRepository;
+    private final BookSearchIndex bookSearchIndex;
+
+    @Value("${books.pagination.max-limit:500}")
+    private int maxLimit;
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookPageDTO getBooksPage(BookSort sort, int limit, String after) {
+        ensureLimitIsValid(limit);
+        BookCursor cursor = after != null ? BookCursor.decode(after, sort.name()) : null;
+
+        // Se pide una fila de más para saber si existe una página siguiente
+        Pageable pageable = PageRequest.of(0, limit + 1);
+        List<BookDTO> books = cursor == null ? findFirstPage(sort, pageable) : findPageAfter(sort, cursor, pageable);
+
+        return toPage(books, limit, book -> BookCursor.of(sort, book));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public BookPageDTO getBooksByKeywordPage(String keyword, int limit, String after) {
+        ensureLimitIsValid(limit);
+        BookCursor cursor = after != null ? BookCursor.decode(after, BookCursor.SEARCH_SCOPE) : null;
+
+        List<BookDTO> books;
+        if (keyword.equals("+")) {
+            Pageable pageable = PageRequest.of(0, limit + 1);
+            books = cursor == null
+                    ? bookRepository.findAllOrderByIdAsc(pageable)
+                    : bookRepository.findAllOrderByIdAscAfter(cursor.id(), pageable);
+        } else {
+            // Los resultados del índice ya vienen ordenados por id ascendente
+            books = bookSearchIndex.search(keyword).stream()
+                    .filter(book -> cursor == null || book.id() > cursor.id())
+                    .limit(limit + 1L)
+                    .toList();
+        }
+
+        return toPage(books, limit, BookCursor::ofSearch);
+    }
+
+    private List<BookDTO> findFirstPage(BookSort sort, Pageable pageable) {
+        return switch (sort) {
+            case AUTHOR -> bookRepository.findAllOrderByAuthor(pageable);
+            case PUBLISHER -> bookRepository.findAllOrderByPublisher(pageable);
+            case PUBLICATION_YEAR -> bookRepository.findAllOrderByPublicationYear(pageable);
+            case ID -> bookRepository.findAllOrderById(pageable);
+            case TITLE -> bookRepository.findAllOrderByTitle(pageable);
+        };
+    }
+
+    private List<BookDTO> findPageAfter(BookSort sort, BookCursor cursor, Pageable pageable) {
+        return switch (sort) {
+            case AUTHOR -> bookRepository.findAllOrderByAuthorAfter(cursor.unknown(BookSortKeys.UNKNOWN_AUTHOR),
+                    cursor.sortKey(), cursor.titleSortKey(), cursor.id(), pageable);
+            case PUBLISHER -> bookRepository.findAllOrderByPublisherAfter(cursor.unknown(BookSortKeys.UNKNOWN_PUBLISHER),
+                    cursor.sortKey(), cursor.titleSortKey(), cursor.id(), pageable);
+            case PUBLICATION_YEAR -> bookRepository.findAllOrderByPublicationYearAfter(cursor.unknown(BookSortKeys.UNKNOWN_PUBLICATION_YEAR),
+                    cursor.sortKey(), cursor.titleSortKey(), cursor.id(), pageable);
+            case ID -> bookRepository.findAllOrderByIdAfter(cursor.id(), pageable);
+            case TITLE -> bookRepository.findAllOrderByTitleAfter(cursor.titleSortKey(), cursor.id(), pageable);
+        };
+    }
+
+    private BookPageDTO toPage(List<BookDTO> books, int limit, Function<BookDTO, BookCursor> cursorFactory) {
+        if (books.size() <= limit) {
+            return new BookPageDTO(books, null);
+        }
+        List<BookDTO> page = books.subList(0, limit);
+        return new BookPageDTO(page, cursorFactory.apply(page.getLast()).encode());
+    }
+
+    private void ensureLimitIsValid(int limit) {
+        if (limit < 1 || limit > maxLimit) {
+            log.warn("Invalid page limit requested: {}", limit);
+            throw new AppException("El límite debe estar entre 1 y " + maxLimit + ".", HttpStatus.BAD_REQUEST);
+        }
+    }
+}
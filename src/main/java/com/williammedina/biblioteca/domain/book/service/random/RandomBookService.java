@@ -0,0 +1,11 @@
+package com.williammedina.biblioteca.domain.book.service.random;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+
+import java.util.List;
+
+public interface RandomBookService {
+
+    List<BookDTO> getRandomBooks(long count);
+
+}
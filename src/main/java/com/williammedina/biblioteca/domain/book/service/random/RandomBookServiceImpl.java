@@ -0,0 +1,37 @@
+package com.williammedina.biblioteca.domain.book.service.random;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+import com.williammedina.biblioteca.domain.book.service.catalog.BookCatalog;
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class RandomBookServiceImpl implements RandomBookService {
+
+    private final BookCatalog bookCatalog;
+
+    @Value("${books.random.max-count:50}")
+    private int maxCount;
+
+    @Override
+    public List<BookDTO> getRandomBooks(long count) {
+        ensureCountIsValid(count);
+        // Se muestrea sobre el catálogo en memoria en lugar de ordenar la tabla con ORDER BY RAND()
+        return bookCatalog.sample((int) count);
+    }
+
+    private void ensureCountIsValid(long count) {
+        if (count < 1 || count > maxCount) {
+            log.warn("Invalid random book count requested: {}", count);
+            throw new AppException("La cantidad debe estar entre 1 y " + maxCount + ".", HttpStatus.BAD_REQUEST);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.williammedina.biblioteca.domain.book.service.search;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+
+import java.util.List;
+
+public interface BookSearchIndex {
+
+    List<BookDTO> search(String keyword);
+    void reload();
+
+}
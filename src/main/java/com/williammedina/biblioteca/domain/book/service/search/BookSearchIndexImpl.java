@@ -0,0 +1,124 @@
+package com.williammedina.biblioteca.domain.book.service.search;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+import com.williammedina.biblioteca.domain.book.event.BookDeletedEvent;
+import com.williammedina.biblioteca.domain.book.event.BookSavedEvent;
+import com.williammedina.biblioteca.domain.book.event.CatalogChangedEvent;
+import com.williammedina.biblioteca.domain.book.repository.BookRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BookSearchIndexImpl implements BookSearchIndex {
+
+    // Por debajo de este número de libros eliminados no vale la pena reconstruir el índice
+    private static final int MIN_DEAD_DOCS_TO_COMPACT = 1024;
+
+    private final BookRepository bookRepository;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private TrigramIndex index;
+
+    @Override
+    public List<BookDTO> search(String keyword) {
+        ensureLoaded();
+        lock.readLock().lock();
+        try {
+            return index.search(keyword);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void reload() {
+        lock.writeLock().lock();
+        try {
+            log.debug("Building book search index");
+            List<BookDTO> books = bookRepository.findAllBooks();
+            index = TrigramIndex.of(books);
+            log.info("Book search index built: {} books", books.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookSaved(BookSavedEvent event) {
+        lock.writeLock().lock();
+        try {
+            // Si aún no se construyó, la primera búsqueda ya verá el cambio confirmado
+            if (index != null) {
+                if (event.previousIsbn() != null) {
+                    index.remove(event.previousIsbn());
+                }
+                index.add(event.book());
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener
+    public void onBookDeleted(BookDeletedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                index.remove(event.isbn());
+                compactIfNeeded();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            if (index != null) {
+                reload();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void ensureLoaded() {
+        lock.readLock().lock();
+        try {
+            if (index != null) {
+                return;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            if (index == null) {
+                reload();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Las actualizaciones y borrados dejan documentos muertos en las listas; se reconstruye
+    // cuando ya son más que los vigentes para que la memoria no crezca sin límite
+    private void compactIfNeeded() {
+        if (index.deadCount() > MIN_DEAD_DOCS_TO_COMPACT && index.deadCount() > index.liveCount()) {
+            log.debug("Compacting book search index ({} removed entries)", index.deadCount());
+            index = TrigramIndex.of(index.liveBooks());
+        }
+    }
+}
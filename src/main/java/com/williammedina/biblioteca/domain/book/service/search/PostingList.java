@@ -0,0 +1,32 @@
+package com.williammedina.biblioteca.domain.book.service.search;
+
+import java.util.Arrays;
+
+// Lista de documentos de un trigrama. Los ids se asignan en orden creciente,
+// así que agregar al final mantiene el arreglo ordenado.
+final class PostingList {
+
+    private int[] docs = new int[4];
+    private int size;
+
+    void add(int doc) {
+        if (size == docs.length) {
+            docs = Arrays.copyOf(docs, size + (size >> 1) + 1);
+        }
+        docs[size++] = doc;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int get(int index) {
+        return docs[index];
+    }
+
+    void trim() {
+        if (docs.length > size) {
+            docs = Arrays.copyOf(docs, size);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.williammedina.biblioteca.domain.book.service.search;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+
+import java.util.*;
+
+// Índice invertido de trigramas sobre título, autor, editorial, año y ubicación.
+// No es thread-safe: BookSearchIndexImpl se encarga de sincronizar el acceso.
+final class TrigramIndex {
+
+    static final int GRAM_SIZE = 3;
+
+    // Separa los campos dentro del texto de un libro; una palabra clave nunca lo contiene,
+    // así que ninguna coincidencia puede abarcar dos campos
+    private static final char FIELD_SEPARATOR = '\u0000';
+
+    private final Map<Long, PostingList> postings = new HashMap<>();
+    private final Map<Long, Integer> docsByIsbn = new HashMap<>();
+    private final BitSet liveDocs = new BitSet();
+    private BookDTO[] books = new BookDTO[16];
+    private String[] texts = new String[16];
+    private int docCount;
+
+    static TrigramIndex of(Collection<BookDTO> books) {
+        TrigramIndex index = new TrigramIndex();
+        books.forEach(index::add);
+        index.postings.values().forEach(PostingList::trim);
+        return index;
+    }
+
+    int liveCount() {
+        return docsByIsbn.size();
+    }
+
+    int deadCount() {
+        return docCount - docsByIsbn.size();
+    }
+
+    List<BookDTO> liveBooks() {
+        List<BookDTO> result = new ArrayList<>(liveCount());
+        for (int doc = liveDocs.nextSetBit(0); doc >= 0; doc = liveDocs.nextSetBit(doc + 1)) {
+            result.add(books[doc]);
+        }
+        return result;
+    }
+
+    void add(BookDTO book) {
+        remove(book.isbn());
+
+        int doc = docCount++;
+        if (doc == books.length) {
+            books = Arrays.copyOf(books, doc * 2);
+            texts = Arrays.copyOf(texts, doc * 2);
+        }
+
+        String text = String.join(String.valueOf(FIELD_SEPARATOR),
+                SearchText.fold(book.title()),
+                SearchText.fold(book.author()),
+                SearchText.fold(book.publisher()),
+                SearchText.fold(book.publication_year()),
+                SearchText.fold(book.location()));
+
+        books[doc] = book;
+        texts[doc] = text;
+        liveDocs.set(doc);
+        docsByIsbn.put(book.isbn(), doc);
+
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= text.length(); i++) {
+            if (text.charAt(i) != FIELD_SEPARATOR && text.charAt(i + 1) != FIELD_SEPARATOR
+                    && text.charAt(i + 2) != FIELD_SEPARATOR) {
+                grams.add(SearchText.trigram(text, i));
+            }
+        }
+        grams.forEach(gram -> postings.computeIfAbsent(gram, key -> new PostingList()).add(doc));
+    }
+
+    // Solo marca el documento como eliminado; sus entradas se descartan al compactar
+    void remove(Long isbn) {
+        Integer doc = docsByIsbn.remove(isbn);
+        if (doc != null) {
+            liveDocs.clear(doc);
+            books[doc] = null;
+            texts[doc] = null;
+        }
+    }
+
+    // Mismo criterio que la antigua consulta findByKeyword: ISBN exacto o subcadena de algún campo
+    List<BookDTO> search(String keyword) {
+        String folded = SearchText.fold(keyword);
+        List<BookDTO> result = new ArrayList<>();
+
+        Integer isbnDoc = findByIsbnText(keyword);
+        if (isbnDoc != null) {
+            result.add(books[isbnDoc]);
+        }
+
+        if (folded.length() < GRAM_SIZE) {
+            // Demasiado corta para usar trigramas: se recorre el texto de todos los libros vigentes
+            for (int doc = liveDocs.nextSetBit(0); doc >= 0; doc = liveDocs.nextSetBit(doc + 1)) {
+                addIfMatches(result, doc, folded, isbnDoc);
+            }
+        } else {
+            int[] candidates = candidates(folded);
+            for (int doc : candidates) {
+                addIfMatches(result, doc, folded, isbnDoc);
+            }
+        }
+
+        result.sort(Comparator.comparing(BookDTO::id));
+        return result;
+    }
+
+    private void addIfMatches(List<BookDTO> result, int doc, String folded, Integer isbnDoc) {
+        if (liveDocs.get(doc) && (isbnDoc == null || doc != isbnDoc) && texts[doc].contains(folded)) {
+            result.add(books[doc]);
+        }
+    }
+
+    // Intersección de las listas de todos los trigramas de la palabra, empezando por la más corta
+    private int[] candidates(String folded) {
+        Set<Long> grams = new HashSet<>();
+        for (int i = 0; i + GRAM_SIZE <= folded.length(); i++) {
+            grams.add(SearchText.trigram(folded, i));
+        }
+
+        List<PostingList> lists = new ArrayList<>(grams.size());
+        for (Long gram : grams) {
+            PostingList list = postings.get(gram);
+            if (list == null) {
+                return new int[0];
+            }
+            lists.add(list);
+        }
+        lists.sort(Comparator.comparingInt(PostingList::size));
+
+        PostingList smallest = lists.getFirst();
+        int[] candidates = new int[smallest.size()];
+        int count = 0;
+        for (int i = 0; i < smallest.size(); i++) {
+            int doc = smallest.get(i);
+            if (liveDocs.get(doc)) {
+                candidates[count++] = doc;
+            }
+        }
+
+        for (int l = 1; l < lists.size() && count > 0; l++) {
+            count = intersect(candidates, count, lists.get(l));
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    private static int intersect(int[] candidates, int count, PostingList list) {
+        int kept = 0;
+        int position = 0;
+        for (int i = 0; i < count && position < list.size(); i++) {
+            int doc = candidates[i];
+            while (position < list.size() && list.get(position) < doc) {
+                position++;
+            }
+            if (position < list.size() && list.get(position) == doc) {
+                candidates[kept++] = doc;
+            }
+        }
+        return kept;
+    }
+
+    // Equivale a CAST(isbn AS string) = :keyword
+    private Integer findByIsbnText(String keyword) {
+        if (keyword.isEmpty() || keyword.length() > 19) {
+            return null;
+        }
+        for (int i = 0; i < keyword.length(); i++) {
+            char c = keyword.charAt(i);
+            if (c < '0' || c > '9') {
+                return null;
+            }
+        }
+        try {
+            long isbn = Long.parseLong(keyword);
+            return String.valueOf(isbn).equals(keyword) ? docsByIsbn.get(isbn) : null;
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+}
@@ -1,8 +1,14 @@
 package com.williammedina.biblioteca.domain.book.service.validator;
 
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.util.Collection;
+import java.util.Set;
+
 public interface BookValidator {
 
-    void ensureIsbnIsUnique(Long isbn);
-    void ensureLocationIsAvailable(String location);
+    RuntimeException toConflict(DataIntegrityViolationException exception);
+    Set<Long> findExistingIsbns(Collection<Long> isbns);
+    Set<String> findOccupiedLocations(Collection<String> locations);
 
 }
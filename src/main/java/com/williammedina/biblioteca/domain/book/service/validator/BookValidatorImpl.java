@@ -1,32 +1,76 @@
 package com.williammedina.biblioteca.domain.book.service.validator;
 
+import com.williammedina.biblioteca.domain.book.entity.BookEntity;
 import com.williammedina.biblioteca.domain.book.repository.BookRepository;
 import com.williammedina.biblioteca.infrastructure.exception.AppException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 
+import java.util.*;
+import java.util.function.Function;
+
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class BookValidatorImpl implements BookValidator {
 
+    // Tamaño de cada lista IN, para no armar consultas enormes con importaciones grandes
+    private static final int LOOKUP_CHUNK_SIZE = 1000;
+
+    // Código de error de MySQL para una clave única repetida (SQLState 23000)
+    private static final int DUPLICATE_ENTRY_ERROR_CODE = 1062;
+
     private final BookRepository bookRepository;
 
+    // La unicidad de ISBN y ubicación la garantizan las restricciones de la tabla; aquí se traduce
+    // la violación al mismo 409 que devolvían las comprobaciones previas. Otros errores se devuelven tal cual.
     @Override
-    public void ensureIsbnIsUnique(Long isbn) {
-        if (bookRepository.existsByIsbn(isbn)) {
-            log.warn("A book with ISBN {} already exists", isbn);
-            throw new AppException("Un libro con ese ISBN ya existe.", HttpStatus.CONFLICT);
+    public RuntimeException toConflict(DataIntegrityViolationException exception) {
+        ConstraintViolationException violation = findViolation(exception);
+        if (violation == null || violation.getErrorCode() != DUPLICATE_ENTRY_ERROR_CODE) {
+            return exception;
         }
+
+        // MySQL 8 informa la clave como "books.uk_books_location_key"
+        String constraint = violation.getConstraintName();
+        if (constraint != null && constraint.endsWith(BookEntity.LOCATION_KEY_CONSTRAINT)) {
+            log.warn("A book already exists at that location: {}", violation.getSQLException().getMessage());
+            return new AppException("Un libro ya tiene esa ubicación.", HttpStatus.CONFLICT);
+        }
+        log.warn("A book with that ISBN already exists: {}", violation.getSQLException().getMessage());
+        return new AppException("Un libro con ese ISBN ya existe.", HttpStatus.CONFLICT);
+    }
+
+    private static ConstraintViolationException findViolation(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof ConstraintViolationException violation) {
+                return violation;
+            }
+        }
+        return null;
+    }
+
+    // Comprobaciones por conjunto para la importación masiva: una consulta por cada bloque de valores
+    @Override
+    public Set<Long> findExistingIsbns(Collection<Long> isbns) {
+        return findInChunks(isbns, bookRepository::findExistingIsbns);
     }
 
     @Override
-    public void ensureLocationIsAvailable(String location) {
-        if (bookRepository.existsByLocation(location)) {
-            log.warn("A book already exists at location: {}", location);
-            throw new AppException("Un libro ya tiene esa ubicación.", HttpStatus.CONFLICT);
+    public Set<String> findOccupiedLocations(Collection<String> locations) {
+        return findInChunks(locations, bookRepository::findExistingLocations);
+    }
+
+    private static <T> Set<T> findInChunks(Collection<T> values, Function<Collection<T>, List<T>> query) {
+        List<T> distinct = List.copyOf(new LinkedHashSet<>(values));
+        Set<T> found = new HashSet<>();
+        for (int from = 0; from < distinct.size(); from += LOOKUP_CHUNK_SIZE) {
+            found.addAll(query.apply(distinct.subList(from, Math.min(from + LOOKUP_CHUNK_SIZE, distinct.size()))));
         }
+        return found;
     }
 }
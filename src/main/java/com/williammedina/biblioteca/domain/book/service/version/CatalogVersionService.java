@@ -0,0 +1,8 @@
+package com.williammedina.biblioteca.domain.book.service.version;
+
+public interface CatalogVersionService {
+
+    long getCurrentVersion();
+    long incrementVersion();
+
+}
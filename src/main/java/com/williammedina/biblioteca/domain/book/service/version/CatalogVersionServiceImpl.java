@@ -0,0 +1,108 @@
+package com.williammedina.biblioteca.domain.book.service.version;
+
+import com.williammedina.biblioteca.domain.book.entity.CatalogVersionEntity;
+import com.williammedina.biblioteca.domain.book.event.BookDeletedEvent;
+import com.williammedina.biblioteca.domain.book.event.BookSavedEvent;
+import com.williammedina.biblioteca.domain.book.event.CatalogChangedEvent;
+import com.williammedina.biblioteca.domain.book.repository.CatalogVersionRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CatalogVersionServiceImpl implements CatalogVersionService {
+
+    private static final Long CATALOG_ID = 1L;
+
+    private final CatalogVersionRepository catalogVersionRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Última versión conocida por este nodo; las lecturas la usan sin ir a la base de datos
+    private final AtomicLong currentVersion = new AtomicLong();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!catalogVersionRepository.existsById(CATALOG_ID)) {
+            try {
+                catalogVersionRepository.save(new CatalogVersionEntity(CATALOG_ID, 1L));
+            } catch (DataIntegrityViolationException e) {
+                log.debug("Catalog version row was created by another node");
+            }
+        }
+        advanceTo(catalogVersionRepository.findVersion(CATALOG_ID).orElse(1L));
+        log.info("Catalog version initialized: {}", currentVersion.get());
+    }
+
+    @Override
+    public long getCurrentVersion() {
+        return currentVersion.get();
+    }
+
+    // Debe llamarse dentro de la transacción de escritura: la versión avanza solo si esta se confirma
+    @Override
+    public long incrementVersion() {
+        if (catalogVersionRepository.incrementVersion(CATALOG_ID) == 0) {
+            catalogVersionRepository.save(new CatalogVersionEntity(CATALOG_ID, 1L));
+        }
+        long version = catalogVersionRepository.findVersion(CATALOG_ID).orElseThrow();
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                // La fila de versión se bloquea hasta el commit, así que la escritura anterior a esta es la
+                // version - 1. Si este nodo no la conoce, otro nodo escribió en medio: no basta con aplicar
+                // el cambio propio y se recarga todo (una escritura local concurrente que aún no avanzó
+                // la versión solo provoca una recarga de más)
+                long known = currentVersion.get();
+                if (version - 1 > known) {
+                    log.info("Catalog version skipped external writes ({} -> {}), reloading in-memory copies", known, version);
+                    eventPublisher.publishEvent(new CatalogChangedEvent(version));
+                }
+                advanceTo(version);
+            }
+        });
+        return version;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBookSaved(BookSavedEvent event) {
+        incrementVersion();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onBookDeleted(BookDeletedEvent event) {
+        incrementVersion();
+    }
+
+    // Detecta escrituras hechas por otros nodos que comparten la base de datos
+    @Scheduled(fixedDelayString = "${books.catalog.version-refresh-ms:5000}")
+    public void refreshVersion() {
+        long version = catalogVersionRepository.findVersion(CATALOG_ID).orElse(0L);
+        long previous = currentVersion.get();
+        if (version > previous) {
+            log.info("Catalog version changed externally ({} -> {}), reloading in-memory copies", previous, version);
+            // Primero se recargan las copias y después se publica la versión, para que ningún
+            // cliente reciba el ETag nuevo junto con datos viejos
+            eventPublisher.publishEvent(new CatalogChangedEvent(version));
+            advanceTo(version);
+        }
+    }
+
+    // La versión nunca retrocede, aunque las confirmaciones y el sondeo lleguen en otro orden
+    private void advanceTo(long version) {
+        currentVersion.accumulateAndGet(version, Math::max);
+    }
+}
@@ -3,9 +3,11 @@ package com.williammedina.biblioteca.domain.user.service;
 import com.williammedina.biblioteca.domain.user.dto.LoginUserDTO;
 import com.williammedina.biblioteca.domain.user.dto.UserDTO;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface UserService {
 
-    String authenticateAndGenerateToken(LoginUserDTO data);
+    CompletableFuture<String> authenticateAndGenerateToken(LoginUserDTO data);
     UserDTO getCurrentUser();
 
 }
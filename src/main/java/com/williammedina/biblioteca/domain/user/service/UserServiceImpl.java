@@ -3,44 +3,82 @@ package com.williammedina.biblioteca.domain.user.service;
 import com.williammedina.biblioteca.domain.user.dto.LoginUserDTO;
 import com.williammedina.biblioteca.domain.user.dto.UserDTO;
 import com.williammedina.biblioteca.domain.user.entity.UserEntity;
+import com.williammedina.biblioteca.domain.user.repository.UserRepository;
 import com.williammedina.biblioteca.domain.user.service.context.AuthenticatedUserProvider;
+import com.williammedina.biblioteca.domain.user.service.password.PasswordHashingService;
 import com.williammedina.biblioteca.domain.user.service.validator.UserValidator;
 import com.williammedina.biblioteca.infrastructure.security.TokenService;
-import lombok.AllArgsConstructor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.core.Authentication;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
-@AllArgsConstructor
+@RequiredArgsConstructor
 public class UserServiceImpl implements UserService {
 
     private final TokenService tokenService;
-    private final AuthenticationManager authenticationManager;
+    private final UserRepository userRepository;
+    private final PasswordHashingService passwordHashingService;
     private final AuthenticatedUserProvider authenticatedUserProvider;
     private final UserValidator validator;
 
+    @Value("${auth.login.completion-threads:2}")
+    private int completionThreads;
+
+    // Guardar el hash actualizado y firmar el token no ocupan los hilos de BCrypt, que solo hashean.
+    // La cola no necesita límite: solo llegan logins que ya pasaron por el pool acotado de hashing
+    private ExecutorService loginCompletion;
+
+    @PostConstruct
+    void initialize() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        loginCompletion = Executors.newFixedThreadPool(completionThreads,
+                runnable -> new Thread(runnable, "login-completion-" + threadNumber.incrementAndGet()));
+    }
+
+    @PreDestroy
+    void shutdown() {
+        loginCompletion.shutdown();
+    }
+
+    // Sin transacción: no se retiene una conexión mientras se verifica la contraseña.
+    // La verificación sigue en el pool de hashing, el resto en loginCompletion, y el hilo de la petición queda libre.
     @Override
-    @Transactional
-    public String authenticateAndGenerateToken(LoginUserDTO data) {
+    public CompletableFuture<String> authenticateAndGenerateToken(LoginUserDTO data) {
         log.info("Attempting to authenticate user: {}", data.email());
 
-        validator.ensureUserExists(data.email());
-        Authentication authenticationToken = new UsernamePasswordAuthenticationToken(data.email(), data.password());
-        Authentication authenticatedUser = authenticationManager.authenticate(authenticationToken);
-        UserEntity user = (UserEntity) authenticatedUser.getPrincipal();
+        UserEntity user = validator.ensureUserExists(data.email());
+        return passwordHashingService.matches(data.password(), user.getPassword())
+                .thenCompose(matches -> {
+                    if (!matches) {
+                        throw new BadCredentialsException("Bad credentials");
+                    }
+                    return passwordHashingService.rehashIfNeeded(data.password(), user.getPassword());
+                })
+                .thenApplyAsync(rehashed -> {
+                    rehashed.ifPresent(password -> {
+                        user.setPassword(password);
+                        userRepository.save(user);
+                        log.info("Password hash upgraded. ID: {}", user.getId());
+                    });
 
-        log.info("User authenticated successfully. ID: {}", user.getId());
+                    log.info("User authenticated successfully. ID: {}", user.getId());
 
-        return tokenService.generateToken((UserEntity) authenticatedUser.getPrincipal());
+                    return tokenService.generateToken(user);
+                }, loginCompletion);
     }
 
     @Override
-    @Transactional(readOnly = true)
     public UserDTO getCurrentUser() {
         UserEntity currentUser = authenticatedUserProvider.getAuthenticatedUser();
         log.debug("Retrieving user data. ID: {}", currentUser.getId());
@@ -0,0 +1,11 @@
+package com.williammedina.biblioteca.domain.user.service.password;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+public interface PasswordHashingService {
+
+    CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword);
+    CompletableFuture<Optional<String>> rehashIfNeeded(String rawPassword, String encodedPassword);
+
+}
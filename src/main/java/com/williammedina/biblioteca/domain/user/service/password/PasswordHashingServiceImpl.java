@@ -0,0 +1,104 @@
+package com.williammedina.biblioteca.domain.user.service.password;
+
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import com.williammedina.biblioteca.infrastructure.exception.RetryLaterException;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// BCrypt se ejecuta en un pool propio y acotado, y el resultado llega como CompletableFuture: el hilo
+// de Tomcat no espera al hash. Si la cola está llena se rechaza en el acto con 429 y si el hash no
+// termina a tiempo, con 503, ambos con Retry-After.
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PasswordHashingServiceImpl implements PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+
+    @Value("${auth.password.threads:2}")
+    private int hashingThreads;
+
+    @Value("${auth.password.queue-capacity:20}")
+    private int hashingQueueCapacity;
+
+    @Value("${auth.password.timeout-ms:5000}")
+    private long hashingTimeoutMs;
+
+    @Value("${auth.password.retry-after-seconds:2}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor hasher;
+
+    @PostConstruct
+    void initialize() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        hasher = new ThreadPoolExecutor(hashingThreads, hashingThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(hashingQueueCapacity),
+                runnable -> new Thread(runnable, "password-hasher-" + threadNumber.incrementAndGet()),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        hasher.shutdownNow();
+    }
+
+    @Override
+    public CompletableFuture<Boolean> matches(String rawPassword, String encodedPassword) {
+        return run(() -> passwordEncoder.matches(rawPassword, encodedPassword));
+    }
+
+    // Si el hash se generó con un costo menor al configurado, se recalcula con la contraseña ya verificada
+    @Override
+    public CompletableFuture<Optional<String>> rehashIfNeeded(String rawPassword, String encodedPassword) {
+        if (!passwordEncoder.upgradeEncoding(encodedPassword)) {
+            return CompletableFuture.completedFuture(Optional.empty());
+        }
+        return run(() -> Optional.of(passwordEncoder.encode(rawPassword)));
+    }
+
+    private <T> CompletableFuture<T> run(Supplier<T> task) {
+        CompletableFuture<T> future;
+        try {
+            future = CompletableFuture.supplyAsync(task, hasher);
+        } catch (RejectedExecutionException e) {
+            log.warn("Password hashing queue is full ({} pending)", hasher.getQueue().size());
+            return CompletableFuture.failedFuture(new RetryLaterException(
+                    "Demasiados inicios de sesión simultáneos. Inténtalo de nuevo en unos segundos.",
+                    HttpStatus.TOO_MANY_REQUESTS, retryAfterSeconds));
+        }
+
+        // Al vencer el plazo el future se completa con error y la tarea, si aún no empezó, ya no se ejecuta
+        return future.orTimeout(hashingTimeoutMs, TimeUnit.MILLISECONDS)
+                .exceptionally(e -> {
+                    throw translate(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                });
+    }
+
+    private RuntimeException translate(Throwable e) {
+        if (e instanceof TimeoutException) {
+            log.warn("Timed out after {} ms waiting for password hashing", hashingTimeoutMs);
+            return new RetryLaterException("El servicio de autenticación está ocupado. Inténtalo de nuevo en unos segundos.",
+                    HttpStatus.SERVICE_UNAVAILABLE, retryAfterSeconds);
+        }
+        log.error("Password hashing failed", e);
+        return new AppException("Error al verificar la contraseña", HttpStatus.INTERNAL_SERVER_ERROR);
+    }
+}
@@ -1,7 +1,9 @@
 package com.williammedina.biblioteca.domain.user.service.validator;
 
+import com.williammedina.biblioteca.domain.user.entity.UserEntity;
+
 public interface UserValidator {
 
-    void ensureUserExists(String email);
+    UserEntity ensureUserExists(String email);
 
 }
@@ -1,5 +1,6 @@
 package com.williammedina.biblioteca.domain.user.service.validator;
 
+import com.williammedina.biblioteca.domain.user.entity.UserEntity;
 import com.williammedina.biblioteca.domain.user.repository.UserRepository;
 import com.williammedina.biblioteca.infrastructure.exception.AppException;
 import lombok.RequiredArgsConstructor;
@@ -15,10 +16,12 @@ public class UserValidatorImpl implements UserValidator {
     private final UserRepository userRepository;
 
     @Override
-    public void ensureUserExists(String email) {
-        if (!userRepository.existsByEmail(email)) {
-            log.error("Email not registered: {}", email);
-            throw new AppException("Usuario no registrado", HttpStatus.CONFLICT);
-        }
+    public UserEntity ensureUserExists(String email) {
+        // Una sola consulta: la misma fila sirve luego para verificar la contraseña
+        return userRepository.findByEmail(email)
+                .orElseThrow(() -> {
+                    log.error("Email not registered: {}", email);
+                    return new AppException("Usuario no registrado", HttpStatus.CONFLICT);
+                });
     }
 }
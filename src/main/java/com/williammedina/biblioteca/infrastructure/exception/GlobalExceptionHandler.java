@@ -2,6 +2,7 @@ package com.williammedina.biblioteca.infrastructure.exception;
 
 import jakarta.servlet.http.HttpServletRequest;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -47,6 +48,14 @@ public class GlobalExceptionHandler {
         );
     }
 
+    @ExceptionHandler(RetryLaterException.class)
+    public ResponseEntity<ApiErrorResponse> handleRetryLater(RetryLaterException ex, HttpServletRequest request) {
+        log.warn("RetryLaterException: {}", ex.getMessage());
+        return ResponseEntity.status(ex.getHttpStatus())
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(buildError(ex.getHttpStatus(), ex.getMessage(), request.getRequestURI(), null));
+    }
+
     @ExceptionHandler(Exception.class)
     public ResponseEntity<ApiErrorResponse> handleGeneric(Exception ex, HttpServletRequest request) {
         log.error("Unexpected error", ex);
@@ -0,0 +1,15 @@
+package com.williammedina.biblioteca.infrastructure.exception;
+
+import lombok.Getter;
+import org.springframework.http.HttpStatus;
+
+// Error temporal por saturación: además del estado se indica al cliente cuándo reintentar
+@Getter
+public class RetryLaterException extends AppException {
+    private final long retryAfterSeconds;
+
+    public RetryLaterException(String message, HttpStatus httpStatus, long retryAfterSeconds) {
+        super(message, httpStatus);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,199 @@
+package com.williammedina.biblioteca.infrastructure.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.williammedina.biblioteca.infrastructure.exception.ApiErrorResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Límite de peticiones por cliente (id del usuario o, si no se conoce, IP) con una cubeta de
+// fichas por cliente y ruta. Cada cubeta es un solo AtomicLong con el instante teórico en que
+// vuelve a estar llena (GCRA): consumir una ficha es un compareAndSet, sin bloqueos.
+// Se ejecuta antes de SecurityFilter, así que una ráfaga de tokens inválidos se corta aquí sin
+// verificar ninguna firma. Detrás de un proxy la IP es la de X-Forwarded-For, que Tomcat solo
+// acepta de los proxies de confianza (server.tomcat.remoteip.internal-proxies).
+@Slf4j
+@Component
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    static final class RouteLimit {
+        private final String method;
+        private final String url;
+        private final long intervalNanos;
+        private final long burstNanos;
+        // ConcurrentHashMap ya reparte sus bloqueos por celda; las lecturas no bloquean
+        private final Map<Object, AtomicLong> buckets = new ConcurrentHashMap<>();
+        private Counter allowed;
+        private Counter rejected;
+
+        RouteLimit(String method, String url, long capacity, double refillPerSecond) {
+            this.method = method;
+            this.url = url;
+            this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / refillPerSecond);
+            this.burstNanos = intervalNanos * capacity;
+        }
+    }
+
+    private final ObjectMapper objectMapper;
+    private final TokenService tokenService;
+    private final RouteMatcher<RouteLimit> routes;
+    private final List<RouteLimit> limits;
+
+    public RateLimitFilter(@Value("${ratelimit.enabled:true}") boolean enabled,
+                           @Value("${ratelimit.routes:}") String[] routeLimits,
+                           ObjectMapper objectMapper,
+                           TokenService tokenService,
+                           MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.tokenService = tokenService;
+        this.limits = new ArrayList<>();
+        if (enabled) {
+            for (String routeLimit : routeLimits) {
+                if (!routeLimit.isBlank()) {
+                    limits.add(parse(routeLimit.trim()));
+                }
+            }
+        }
+        this.routes = new RouteMatcher<>(limits, limit -> limit.url, limit -> limit.method);
+
+        for (RouteLimit limit : limits) {
+            String route = limit.method + " " + limit.url;
+            limit.allowed = Counter.builder("ratelimit.requests")
+                    .tag("route", route).tag("result", "allowed").register(meterRegistry);
+            limit.rejected = Counter.builder("ratelimit.requests")
+                    .tag("route", route).tag("result", "rejected").register(meterRegistry);
+            Gauge.builder("ratelimit.buckets", limit.buckets, Map::size)
+                    .tag("route", route).register(meterRegistry);
+        }
+        log.info("Rate limiting {} routes", limits.size());
+    }
+
+    // Formato: "METODO ruta capacidad fichas-por-segundo", p. ej. "GET /api/books/search/{keyword} 20 5"
+    private static RouteLimit parse(String routeLimit) {
+        String[] parts = routeLimit.split("\\s+");
+        try {
+            if (parts.length == 4) {
+                long capacity = Long.parseLong(parts[2]);
+                double refillPerSecond = Double.parseDouble(parts[3]);
+                if (capacity > 0 && refillPerSecond > 0) {
+                    return new RouteLimit(parts[0].toUpperCase(), parts[1], capacity, refillPerSecond);
+                }
+            }
+        } catch (NumberFormatException e) {
+            // Se informa abajo con el mismo mensaje
+        }
+        throw new IllegalArgumentException("Límite de ruta inválido: '" + routeLimit
+                + "' (se espera 'METODO ruta capacidad fichas-por-segundo')");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain) throws ServletException, IOException {
+        RouteLimit limit = routes.find(request.getRequestURI(), request.getMethod());
+        if (limit == null) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        long waitNanos = tryAcquire(limit, bucketFor(limit, clientKey(request)), System.nanoTime());
+        if (waitNanos == 0) {
+            limit.allowed.increment();
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        limit.rejected.increment();
+        sendTooManyRequestsResponse(request, response, Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999)));
+    }
+
+    // Usuario (por id, el mismo en cualquier IP) si su token ya se verificó antes; si no, la IP del
+    // cliente. Un token nuevo o inválido cuenta para su IP, así que inventarlos no abre cubetas nuevas.
+    private Object clientKey(HttpServletRequest request) {
+        String authHeader = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authHeader != null) {
+            Long userId = tokenService.findVerifiedClaims(authHeader.replace("Bearer ", ""))
+                    .map(TokenClaims::id)
+                    .orElse(null);
+            if (userId != null) {
+                return userId;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+
+    private static AtomicLong bucketFor(RouteLimit limit, Object client) {
+        AtomicLong bucket = limit.buckets.get(client);
+        if (bucket == null) {
+            // Una cubeta nueva empieza llena
+            bucket = limit.buckets.computeIfAbsent(client, key -> new AtomicLong(System.nanoTime()));
+        }
+        return bucket;
+    }
+
+    // Devuelve 0 si se consumió una ficha o los nanosegundos que faltan para la siguiente
+    static long tryAcquire(RouteLimit limit, AtomicLong bucket, long now) {
+        while (true) {
+            long full = bucket.get();
+            long next = Math.max(full, now) + limit.intervalNanos;
+            long excess = next - now - limit.burstNanos;
+            if (excess > 0) {
+                return excess;
+            }
+            if (bucket.compareAndSet(full, next)) {
+                return 0;
+            }
+        }
+    }
+
+    // Una cubeta que ya se volvió a llenar equivale a una nueva, así que se puede descartar sin
+    // cambiar ningún límite (a lo sumo se pierde la ficha de una petición concurrente)
+    @Scheduled(fixedDelayString = "${ratelimit.eviction-interval-ms:60000}")
+    void evictIdleBuckets() {
+        long now = System.nanoTime();
+        for (RouteLimit limit : limits) {
+            int before = limit.buckets.size();
+            limit.buckets.values().removeIf(bucket -> bucket.get() - now <= 0);
+            int evicted = before - limit.buckets.size();
+            if (evicted > 0) {
+                log.debug("Evicted {} idle rate limit buckets for {} {}", evicted, limit.method, limit.url);
+            }
+        }
+    }
+
+    private void sendTooManyRequestsResponse(HttpServletRequest request, HttpServletResponse response, long retryAfterSeconds) throws IOException {
+        log.debug("Rate limit exceeded for {} {} from {}", request.getMethod(), request.getRequestURI(), request.getRemoteAddr());
+
+        ApiErrorResponse errorResponse = ApiErrorResponse.builder()
+                .timestamp(LocalDateTime.now())
+                .status(HttpStatus.TOO_MANY_REQUESTS.value())
+                .error(HttpStatus.TOO_MANY_REQUESTS.name())
+                .message("Demasiadas peticiones. Inténtalo de nuevo en unos segundos.")
+                .errors(null)
+                .path(request.getRequestURI())
+                .build();
+
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType("application/json; charset=UTF-8");
+        response.getWriter().write(objectMapper.writeValueAsString(errorResponse));
+    }
+}
@@ -0,0 +1,135 @@
+package com.williammedina.biblioteca.infrastructure.security;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Trie de segmentos por método HTTP, construido una sola vez con una tabla de rutas.
+// Reglas iguales a las de la expresión regular anterior: "{variable}" es un segmento no vacío
+// y "**" al final acepta cualquier resto (incluso vacío) después de la barra.
+// Ante varias coincidencias gana la más específica: primero literales, luego variables y al final "**".
+// La búsqueda recorre la URI por índices y no crea objetos.
+final class RouteMatcher<T> {
+
+    private static final class Node<T> {
+        private final List<String> literalSegments = new ArrayList<>();
+        private final List<Node<T>> literalChildren = new ArrayList<>();
+        private String[] segments = new String[0];
+        private Node<T>[] children;
+        private Node<T> variable;
+        // Ruta que termina en este nodo y ruta que termina en "/**" desde este nodo
+        private T terminal;
+        private T catchAll;
+
+        private Node<T> literal(String segment) {
+            int index = literalSegments.indexOf(segment);
+            if (index >= 0) {
+                return literalChildren.get(index);
+            }
+            Node<T> child = new Node<>();
+            literalSegments.add(segment);
+            literalChildren.add(child);
+            return child;
+        }
+
+        @SuppressWarnings("unchecked")
+        private void freeze() {
+            segments = literalSegments.toArray(new String[0]);
+            children = literalChildren.toArray(new Node[0]);
+            for (Node<T> child : children) {
+                child.freeze();
+            }
+            if (variable != null) {
+                variable.freeze();
+            }
+        }
+    }
+
+    private final Map<String, Node<T>> roots = new HashMap<>();
+
+    RouteMatcher(List<T> routes, Function<T, String> url, Function<T, String> method) {
+        for (T route : routes) {
+            add(url.apply(route), method.apply(route), route);
+        }
+        roots.values().forEach(Node::freeze);
+    }
+
+    // Devuelve la ruta que coincide o null
+    T find(String requestUri, String requestMethod) {
+        Node<T> root = roots.get(requestMethod);
+        if (root == null || requestUri.isEmpty() || requestUri.charAt(0) != '/') {
+            return null;
+        }
+        T route = find(root, requestUri, 1);
+        return route != null ? route : root.catchAll;
+    }
+
+    boolean matches(String requestUri, String requestMethod) {
+        return find(requestUri, requestMethod) != null;
+    }
+
+    // start es el inicio del segmento actual, justo después de una barra
+    private static <T> T find(Node<T> node, String uri, int start) {
+        int end = uri.indexOf('/', start);
+        if (end < 0) {
+            end = uri.length();
+        }
+        int length = end - start;
+
+        for (int i = 0; i < node.segments.length; i++) {
+            String segment = node.segments[i];
+            if (segment.length() == length && uri.regionMatches(start, segment, 0, length)) {
+                T route = findRest(node.children[i], uri, end);
+                if (route != null) {
+                    return route;
+                }
+            }
+        }
+        return length > 0 && node.variable != null ? findRest(node.variable, uri, end) : null;
+    }
+
+    private static <T> T findRest(Node<T> node, String uri, int end) {
+        if (end == uri.length()) {
+            return node.terminal;
+        }
+        T route = find(node, uri, end + 1);
+        return route != null ? route : node.catchAll;
+    }
+
+    private void add(String url, String method, T route) {
+        if (!url.startsWith("/")) {
+            throw new IllegalArgumentException("La ruta debe empezar con '/': " + url);
+        }
+
+        Node<T> node = roots.computeIfAbsent(method, key -> new Node<>());
+        String[] parts = url.substring(1).split("/", -1);
+        for (int i = 0; i < parts.length; i++) {
+            String part = parts[i];
+            if (part.equals("**")) {
+                if (i != parts.length - 1) {
+                    throw new IllegalArgumentException("'**' solo se admite al final de la ruta: " + url);
+                }
+                if (node.catchAll == null) {
+                    node.catchAll = route;
+                }
+                return;
+            }
+            if (part.contains("*")) {
+                throw new IllegalArgumentException("Comodín no soportado en la ruta: " + url);
+            }
+            if (part.startsWith("{") && part.endsWith("}")) {
+                if (node.variable == null) {
+                    node.variable = new Node<>();
+                }
+                node = node.variable;
+            } else {
+                node = node.literal(part);
+            }
+        }
+        if (node.terminal == null) {
+            node.terminal = route;
+        }
+    }
+}
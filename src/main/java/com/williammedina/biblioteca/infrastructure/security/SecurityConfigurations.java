@@ -5,8 +5,6 @@ import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
@@ -29,20 +27,29 @@ import java.util.List;
 public class SecurityConfigurations {
 
     private final SecurityFilter securityFilter;
+    private final RateLimitFilter rateLimitFilter;
 
     @Value("${frontend.url:http://localhost:5173}")
     private String frontendUrl;
 
+    @Value("${auth.password.bcrypt-strength:10}")
+    private int bcryptStrength;
+
     public static final List<PublicEndpoint> PUBLIC_ENDPOINTS = List.of(
             new PublicEndpoint("/api/auth/login", HttpMethod.POST),
             new PublicEndpoint("/api/books", HttpMethod.GET),
             new PublicEndpoint("/api/books/count", HttpMethod.GET),
+            new PublicEndpoint("/api/books/export", HttpMethod.GET),
             new PublicEndpoint("/api/books/random/{count}", HttpMethod.GET),
             new PublicEndpoint("/api/books/location", HttpMethod.GET),
+            new PublicEndpoint("/api/books/location/{shelf}", HttpMethod.GET),
+            new PublicEndpoint("/api/books/location/{shelf}/{section}", HttpMethod.GET),
             new PublicEndpoint("/api/books/{sortBy}", HttpMethod.GET),
             new PublicEndpoint("/api/books/search/{keyword}", HttpMethod.GET),
             new PublicEndpoint("/api/books/isbn/{isbn}", HttpMethod.GET),
             new PublicEndpoint("/api/covers/{filename}", HttpMethod.GET),
+            new PublicEndpoint("/api/covers/{size}/{filename}", HttpMethod.GET),
+            new PublicEndpoint("/api/covers/status/{isbn}", HttpMethod.GET),
             new PublicEndpoint("/api/docs", HttpMethod.GET),
             new PublicEndpoint("/api/docs/swagger-config", HttpMethod.GET),
             new PublicEndpoint("/api/docs/swagger-ui/**", HttpMethod.GET),
@@ -62,7 +69,9 @@ public class SecurityConfigurations {
                     );
                     auth.anyRequest().authenticated();
                 })
-                .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class);
+                .addFilterBefore(securityFilter, UsernamePasswordAuthenticationFilter.class)
+                // Antes de SecurityFilter: se limita antes de verificar el token
+                .addFilterBefore(rateLimitFilter, SecurityFilter.class);
 
         return httpSecurity.build();
     }
@@ -81,14 +90,9 @@ public class SecurityConfigurations {
         return source;
     }
 
-    @Bean
-    public AuthenticationManager authenticationManager(AuthenticationConfiguration authenticationConfiguration) throws Exception {
-        return authenticationConfiguration.getAuthenticationManager();
-    }
-
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        return new BCryptPasswordEncoder(bcryptStrength);
     }
 
 }
@@ -2,6 +2,7 @@ package com.williammedina.biblioteca.infrastructure.security;
 
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.williammedina.biblioteca.domain.user.entity.UserEntity;
 import com.williammedina.biblioteca.domain.user.repository.UserRepository;
 import com.williammedina.biblioteca.infrastructure.exception.ApiErrorResponse;
 import jakarta.servlet.FilterChain;
@@ -12,6 +13,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Component;
@@ -30,20 +32,12 @@ public class SecurityFilter extends OncePerRequestFilter {
     private final UserRepository userRepository;
     private final ObjectMapper objectMapper;
 
-    private static final List<PublicEndpoint> PUBLIC_ENDPOINTS = SecurityConfigurations.PUBLIC_ENDPOINTS;
+    // Rutas públicas compiladas una sola vez al cargar la clase
+    private static final RouteMatcher<PublicEndpoint> PUBLIC_ROUTES = new RouteMatcher<>(
+            SecurityConfigurations.PUBLIC_ENDPOINTS, PublicEndpoint::url, endpoint -> endpoint.method().name());
 
     private boolean isPublicUrl(String requestUri, String requestMethod) {
-        return PUBLIC_ENDPOINTS.stream().anyMatch(endpoint -> {
-            String uriPattern = endpoint.url()
-                    .replace("{isbn}", "[^/]+")
-                    .replace("{keyword}", "[^/]+")
-                    .replace("{sortBy}", "[^/]+")
-                    .replace("{count}", "[^/]+")
-                    .replace("{filename}", "[^/]+")
-                    .replace("**", ".*");
-
-            return requestUri.matches(uriPattern) && requestMethod.equals(endpoint.method().name());
-        });
+        return PUBLIC_ROUTES.matches(requestUri, requestMethod);
     }
 
 
@@ -64,13 +58,12 @@ public class SecurityFilter extends OncePerRequestFilter {
             var token = authHeader.replace("Bearer ", "");
 
             try{
-                var email = tokenService.getSubjectFromToken(token);
-                if (email != null) {
-                    // Token valido
-                    var user = userRepository.findByEmail(email)
-                            .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+                var claims = tokenService.getClaimsFromToken(token);
+                if (claims != null) {
+                    // Token valido: el principal se arma con los claims, sin consultar la base de datos
+                    var user = toPrincipal(claims);
                     var authentication = new UsernamePasswordAuthenticationToken(user, null,
-                            user.getAuthorities());
+                            List.of(new SimpleGrantedAuthority(claims.role())));
                     SecurityContextHolder.getContext().setAuthentication(authentication);
                 }
             } catch (JWTVerificationException e) {
@@ -82,6 +75,16 @@ public class SecurityFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private UserEntity toPrincipal(TokenClaims claims) {
+        if (claims.id() == null) {
+            // Tokens sin el claim "id": se resuelve el usuario por email
+            log.debug("Token without id claim, loading user by email");
+            return userRepository.findByEmail(claims.email())
+                    .orElseThrow(() -> new UsernameNotFoundException("Usuario no encontrado"));
+        }
+        return new UserEntity(claims.id(), claims.email(), null);
+    }
+
     private void sendUnauthorizedResponse(HttpServletRequest request, HttpServletResponse response, String message) throws IOException {
         log.warn("Authentication failure response: {}", message);
 
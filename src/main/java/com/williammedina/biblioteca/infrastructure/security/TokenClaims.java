@@ -0,0 +1,8 @@
+package com.williammedina.biblioteca.infrastructure.security;
+
+public record TokenClaims(
+        Long id,
+        String email,
+        String role
+) {
+}
@@ -5,14 +5,25 @@ import com.auth0.jwt.algorithms.Algorithm;
 import com.auth0.jwt.exceptions.JWTCreationException;
 import com.auth0.jwt.exceptions.JWTVerificationException;
 import com.auth0.jwt.interfaces.DecodedJWT;
+import com.auth0.jwt.interfaces.JWTVerifier;
 import com.williammedina.biblioteca.domain.user.entity.UserEntity;
+import jakarta.annotation.PostConstruct;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 
 @Slf4j
 @Service
@@ -21,13 +32,49 @@ public class TokenService {
     @Value("${jwt.secret}")
     private String jwtSecret;
 
+    @Value("${jwt.verified-cache-size:10000}")
+    private int verifiedCacheSize;
+
+    // Algorithm y JWTVerifier son inmutables y seguros entre hilos: se crean una sola vez
+    private Algorithm algorithm;
+    private JWTVerifier verifier;
+
+    // Rol asumido para los tokens emitidos antes de incluir el claim "role"
+    private static final String DEFAULT_ROLE = "ROLE_USER";
+
+    private record VerifiedToken(TokenClaims claims, long expiresAtMillis) {
+    }
+
+    // Tokens ya verificados, por SHA-256 del token para no guardar credenciales en memoria.
+    // Cada entrada vale solo hasta el exp del token.
+    private final Map<String, VerifiedToken> verifiedTokens = new ConcurrentHashMap<>();
+
+    private static final ThreadLocal<MessageDigest> SHA_256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    @PostConstruct
+    void initialize() {
+        algorithm = Algorithm.HMAC256(jwtSecret);
+        verifier = JWT.require(algorithm)
+                .withIssuer("Biblioteca")
+                .build();
+    }
+
     public String generateToken(UserEntity user) {
         try {
-            Algorithm algorithm = Algorithm.HMAC256(jwtSecret);
             return JWT.create()
                     .withIssuer("Biblioteca")
                     .withSubject(user.getEmail())
                     .withClaim("id", user.getId())
+                    .withClaim("role", user.getAuthorities().stream()
+                            .map(GrantedAuthority::getAuthority)
+                            .findFirst()
+                            .orElse(DEFAULT_ROLE))
                     .withExpiresAt(generateExpirationDate())
                     .sign(algorithm);
         } catch (JWTCreationException exception) {
@@ -36,19 +83,24 @@ public class TokenService {
         }
     }
 
-    public String getSubjectFromToken(String token) {
+    public TokenClaims getClaimsFromToken(String token) {
         if (token == null) {
             log.warn("Token is null. Cannot extract subject.");
             throw new IllegalArgumentException("El token no puede ser nulo");
         }
 
+        String key = digest(token);
+        VerifiedToken cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (cached.expiresAtMillis() > System.currentTimeMillis()) {
+                return cached.claims();
+            }
+            verifiedTokens.remove(key, cached);
+        }
+
         DecodedJWT decodedJWT = null;
         try {
-            Algorithm algorithm = Algorithm.HMAC256(jwtSecret);
-            decodedJWT = JWT.require(algorithm)
-                    .withIssuer("Biblioteca")
-                    .build()
-                    .verify(token);
+            decodedJWT = verifier.verify(token);
         } catch (JWTVerificationException exception) {
             log.warn("Token verification failed: {}", exception.getMessage());
             //throw new RuntimeException("Token inválido: " + exception.getMessage(), exception);
@@ -59,7 +111,46 @@ public class TokenService {
             log.error("Token is invalid: Subject is missing.");
             throw new RuntimeException("Token inválido: El campo 'sujeto' no está presente");
         }
-        return decodedJWT.getSubject();
+
+        String role = decodedJWT.getClaim("role").asString();
+        TokenClaims claims = new TokenClaims(
+                decodedJWT.getClaim("id").asLong(),
+                decodedJWT.getSubject(),
+                role != null ? role : DEFAULT_ROLE
+        );
+        if (decodedJWT.getExpiresAtAsInstant() != null) {
+            remember(key, new VerifiedToken(claims, decodedJWT.getExpiresAtAsInstant().toEpochMilli()));
+        }
+        return claims;
+    }
+
+    // Claims de un token ya verificado y aún vigente, sin verificar nada: vacío si no está en la caché
+    public Optional<TokenClaims> findVerifiedClaims(String token) {
+        VerifiedToken cached = verifiedTokens.get(digest(token));
+        if (cached == null || cached.expiresAtMillis() <= System.currentTimeMillis()) {
+            return Optional.empty();
+        }
+        return Optional.of(cached.claims());
+    }
+
+    // Al llenarse se descartan primero los vencidos y, si no alcanza, entradas cualquiera
+    private void remember(String key, VerifiedToken verified) {
+        if (verifiedTokens.size() >= verifiedCacheSize) {
+            long now = System.currentTimeMillis();
+            verifiedTokens.values().removeIf(entry -> entry.expiresAtMillis() <= now);
+            Iterator<String> keys = verifiedTokens.keySet().iterator();
+            while (verifiedTokens.size() >= verifiedCacheSize && keys.hasNext()) {
+                keys.next();
+                keys.remove();
+            }
+        }
+        verifiedTokens.put(key, verified);
+    }
+
+    private static String digest(String token) {
+        MessageDigest sha256 = SHA_256.get();
+        sha256.reset();
+        return Base64.getEncoder().encodeToString(sha256.digest(token.getBytes(StandardCharsets.US_ASCII)));
     }
 
     private Instant generateExpirationDate() {
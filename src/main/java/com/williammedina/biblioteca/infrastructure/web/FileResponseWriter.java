@@ -0,0 +1,162 @@
+package com.williammedina.biblioteca.infrastructure.web;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpRange;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.List;
+
+// Envía archivos del disco con validadores (ETag y Last-Modified), 304, rangos de bytes
+// y, si el contenedor lo permite, sendfile para que el contenido no pase por la JVM
+@Slf4j
+@Component
+public class FileResponseWriter {
+
+    // Atributos con los que Tomcat (conector NIO) acepta enviar el archivo con sendfile
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    public void write(Path file, String fileName, MediaType contentType, CacheControl cacheControl,
+                      HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        BasicFileAttributes attributes = Files.readAttributes(file, BasicFileAttributes.class);
+        long[] range = prepare(fileName, attributes.size(), attributes.lastModifiedTime().toMillis(),
+                contentType, cacheControl, request, response);
+        if (range == null) {
+            return;
+        }
+        long start = range[0];
+        long count = range[1];
+
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, start);
+            request.setAttribute(SENDFILE_END, start + count);
+            return;
+        }
+
+        // Sin sendfile el contenido sí pasa por la JVM: la salida del servlet no es un canal de socket,
+        // así que transferTo lo copia por bloques a través de un buffer intermedio
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+            long position = start;
+            long remaining = count;
+            while (remaining > 0) {
+                long sent = channel.transferTo(position, remaining, out);
+                if (sent <= 0) {
+                    break;
+                }
+                position += sent;
+                remaining -= sent;
+            }
+        }
+    }
+
+    // Mismas cabeceras y reglas que con un archivo, pero el contenido ya está en memoria
+    public void write(String fileName, ByteBuffer content, long lastModified, MediaType contentType,
+                      CacheControl cacheControl, HttpServletRequest request, HttpServletResponse response) throws IOException {
+
+        long[] range = prepare(fileName, content.remaining(), lastModified, contentType, cacheControl, request, response);
+        if (range == null) {
+            return;
+        }
+        ByteBuffer body = content.slice((int) range[0], (int) range[1]);
+        WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+        while (body.hasRemaining()) {
+            out.write(body);
+        }
+    }
+
+    // Resuelve validadores, 304/412, rango y cabeceras. Devuelve {inicio, bytes} del cuerpo a enviar,
+    // o null si la respuesta ya está completa (304, 416, HEAD o archivo vacío).
+    private long[] prepare(String fileName, long length, long lastModified, MediaType contentType, CacheControl cacheControl,
+                           HttpServletRequest request, HttpServletResponse response) {
+
+        // Las portadas se reemplazan con un rename atómico, así que tamaño y fecha cambian con el contenido
+        String etag = "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + "\"";
+
+        response.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return null;
+        }
+
+        response.setContentType(contentType.toString());
+        response.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=\"" + fileName + "\"");
+
+        long start = 0;
+        long end = length - 1;
+        String range = request.getHeader(HttpHeaders.RANGE);
+        List<HttpRange> ranges = range != null && isRangeApplicable(request, etag, lastModified) ? parseRanges(range, fileName) : null;
+        // Un solo rango se envía como 206; con varios se responde el archivo completo, como permite RFC 9110
+        if (ranges != null && ranges.size() == 1) {
+            HttpRange requested = ranges.getFirst();
+            try {
+                start = requested.getRangeStart(length);
+                end = requested.getRangeEnd(length);
+            } catch (IllegalArgumentException e) {
+                start = length;
+            }
+            // Bien formado pero fuera del archivo (p. ej. "bytes=500-" con 100 bytes o "bytes=-0")
+            if (start >= length || start > end) {
+                log.debug("Unsatisfiable range '{}' for {}", range, fileName);
+                response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + length);
+                return null;
+            }
+            response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            response.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + length);
+        }
+
+        long count = end - start + 1;
+        response.setContentLengthLong(count);
+        if (HttpMethod.HEAD.matches(request.getMethod()) || count <= 0) {
+            return null;
+        }
+        return new long[]{start, count};
+    }
+
+    // Una cabecera Range mal formada se ignora y se responde el archivo completo (RFC 9110, 14.2)
+    private static List<HttpRange> parseRanges(String range, String fileName) {
+        try {
+            return HttpRange.parseRanges(range);
+        } catch (IllegalArgumentException e) {
+            log.debug("Ignoring malformed range '{}' for {}", range, fileName);
+            return null;
+        }
+    }
+
+    // If-Range: el rango solo vale si el cliente todavía tiene esta misma versión del archivo
+    private static boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+        String ifRange = request.getHeader(HttpHeaders.IF_RANGE);
+        if (ifRange == null) {
+            return true;
+        }
+        if (ifRange.startsWith("\"")) {
+            return ifRange.equals(etag);
+        }
+        try {
+            return request.getDateHeader(HttpHeaders.IF_RANGE) / 1000 == lastModified / 1000;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.williammedina.biblioteca.domain.book.repository;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+import com.williammedina.biblioteca.domain.book.service.BookService;
+import com.williammedina.biblioteca.support.BenchmarkCatalog;
+import com.williammedina.biblioteca.support.Benchmarks;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Lectura del catálogo completo cargando entidades (con su copia para dirty checking) y copiándolas
+// a BookDTO, frente a la proyección directa a BookDTO que usan los endpoints de lectura
+@Tag("benchmark")
+@EnabledIfEnvironmentVariable(named = "DB_URL", matches = ".+")
+@SpringBootTest(properties = "jwt.secret=benchmark")
+class BookReadPathBenchmarkTest {
+
+    private static final int BOOKS = 100_000;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void seed() throws Exception {
+        BenchmarkCatalog.seed(bookService, BenchmarkCatalog.FIRST_ISBN, BOOKS);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        BenchmarkCatalog.delete(jdbcTemplate, BenchmarkCatalog.FIRST_ISBN, BOOKS);
+    }
+
+    @Test
+    void projectionReadsTheCatalogWithLessAllocationThanEntities() {
+        Benchmarks.Result entities = Benchmarks.measure("findAll() + BookDTO.fromEntity", 3, 10,
+                () -> bookRepository.findAll().stream().map(BookDTO::fromEntity).toList());
+        Benchmarks.Result projection = Benchmarks.measure("findAllBooks() (BookDTO projection)", 3, 10,
+                bookRepository::findAllBooks);
+
+        assertThat(projection.bytesPerOp()).isLessThan(entities.bytesPerOp());
+    }
+
+    @Test
+    void projectionReadsOneBookWithLessAllocationThanEntities() {
+        // Mismos libros por las dos vías: la entidad se busca por id y la proyección por ISBN (ambos índices únicos)
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM books WHERE isbn >= ? ORDER BY isbn LIMIT 1000",
+                Long.class, BenchmarkCatalog.FIRST_ISBN);
+        List<Long> isbns = jdbcTemplate.queryForList("SELECT isbn FROM books WHERE isbn >= ? ORDER BY isbn LIMIT 1000",
+                Long.class, BenchmarkCatalog.FIRST_ISBN);
+
+        int[] next = {0};
+        Benchmarks.Result entities = Benchmarks.measure("findById() + BookDTO.fromEntity", 2_000, 10_000,
+                () -> BookDTO.fromEntity(bookRepository.findById(ids.get(next[0]++ % ids.size())).orElseThrow()));
+        Benchmarks.Result projection = Benchmarks.measure("findDetailsByIsbn() (BookDTO projection)", 2_000, 10_000,
+                () -> bookRepository.findDetailsByIsbn(isbns.get(next[0]++ % isbns.size())).orElseThrow());
+
+        assertThat(projection.bytesPerOp()).isLessThan(entities.bytesPerOp());
+    }
+}
@@ -0,0 +1,67 @@
+package com.williammedina.biblioteca.domain.book.service.catalog;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Compara el orden de las claves con el ORDER BY title de antes, hecho por MySQL con la collation
+// de la columna books.title. No escribe nada: los títulos van en una tabla derivada.
+@EnabledIfEnvironmentVariable(named = "DB_URL", matches = ".+")
+@SpringBootTest(properties = "jwt.secret=test")
+class BookSortKeysMySqlTest {
+
+    private static final String[] WORDS = {"el", "la", "de", "zorro", "ella", "libro", "cien", "años", "árbol", "Á", "a", "b", "9", "100"};
+    private static final String[] SEPARATORS = {"", " ", "-", "_", ",", ".", ":", "'", "(", ")", "/", "&", "  "};
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void keysOrderTitlesLikeTheTitleColumn() {
+        String collation = jdbcTemplate.queryForObject("SELECT COLLATION_NAME FROM information_schema.COLUMNS " +
+                "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'books' AND COLUMN_NAME = 'title'", String.class);
+
+        List<String> titles = new ArrayList<>(BookSortKeysTest.MYSQL_ORDER);
+        titles.addAll(randomTitles(2_000));
+
+        // El índice de cada título desempata, igual que el id en las consultas del catálogo
+        String derived = IntStream.range(0, titles.size())
+                .mapToObj(i -> "SELECT " + i + " AS position, CAST(? AS CHAR(255)) AS title")
+                .collect(Collectors.joining(" UNION ALL "));
+        List<Integer> expected = jdbcTemplate.queryForList("SELECT position FROM (" + derived + ") t " +
+                "ORDER BY t.title COLLATE " + collation + ", t.position", Integer.class, titles.toArray());
+
+        List<Integer> actual = IntStream.range(0, titles.size()).boxed()
+                .sorted(Comparator.<Integer, byte[]>comparing(i -> BookSortKeys.key(titles.get(i)), BookSortKeys.KEY_ORDER)
+                        .thenComparing(Comparator.naturalOrder()))
+                .toList();
+
+        assertThat(actual.stream().map(titles::get).toList())
+                .containsExactlyElementsOf(expected.stream().map(titles::get).toList());
+    }
+
+    private static List<String> randomTitles(int count) {
+        Random random = new Random(7);
+        List<String> titles = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder title = new StringBuilder(WORDS[random.nextInt(WORDS.length)]);
+            int words = random.nextInt(4);
+            for (int w = 0; w < words; w++) {
+                title.append(SEPARATORS[random.nextInt(SEPARATORS.length)]).append(WORDS[random.nextInt(WORDS.length)]);
+            }
+            titles.add(random.nextBoolean() ? title.toString() : title.toString().toUpperCase());
+        }
+        return titles;
+    }
+}
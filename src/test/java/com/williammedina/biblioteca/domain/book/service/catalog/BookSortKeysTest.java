@@ -0,0 +1,80 @@
+package com.williammedina.biblioteca.domain.book.service.catalog;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BookSortKeysTest {
+
+    // Orden de ORDER BY title con utf8mb4_0900_ai_ci: espacios y signos cuentan y van antes que
+    // los dígitos y las letras (espacio < _ < - < , < ; < : < ! < ? < . < ' < " < ( ...)
+    static final List<String> MYSQL_ORDER = List.of(
+            " Espacio inicial",
+            "_Guion bajo",
+            "-Guion",
+            "'Comillas'",
+            "(Paréntesis)",
+            "100 años de soledad",
+            "9 cuentos",
+            "a b",
+            "a_b",
+            "a-b",
+            "a,b",
+            "a.b",
+            "ab",
+            "ab c",
+            "abc",
+            "Cien años",
+            "Cien-años",
+            "Cienaños",
+            "El libro",
+            "El zorro",
+            "El-zorro",
+            "Ella",
+            "Ellibro",
+            "Zorro"
+    );
+
+    @Test
+    void ordersMultiWordAndHyphenatedTitlesLikeMySql() {
+        List<String> shuffled = new ArrayList<>(MYSQL_ORDER);
+        Collections.shuffle(shuffled);
+
+        shuffled.sort(Comparator.comparing(BookSortKeys::key, BookSortKeys.KEY_ORDER));
+
+        assertThat(shuffled).containsExactlyElementsOf(MYSQL_ORDER);
+    }
+
+    @Test
+    void spacesAndPunctuationAreNotIgnored() {
+        assertThat(BookSortKeys.key("El libro")).isNotEqualTo(BookSortKeys.key("Ellibro"));
+        assertThat(BookSortKeys.key("ab c")).isNotEqualTo(BookSortKeys.key("abc"));
+        assertThat(BookSortKeys.key("a-b")).isNotEqualTo(BookSortKeys.key("ab"));
+        assertThat(BookSortKeys.key("a b")).isNotEqualTo(BookSortKeys.key("a-b"));
+        // Sin PAD SPACE: un espacio final también cuenta
+        assertThat(BookSortKeys.key("abc ")).isNotEqualTo(BookSortKeys.key("abc"));
+    }
+
+    @Test
+    void caseAndAccentsAreStillIgnored() {
+        assertThat(BookSortKeys.key("Árbol")).isEqualTo(BookSortKeys.key("arbol"));
+        assertThat(BookSortKeys.key("EL ZORRO")).isEqualTo(BookSortKeys.key("el zorro"));
+        assertThat(BookSortKeys.key("Ñandú")).isEqualTo(BookSortKeys.key("nandu"));
+        assertThat(BookSortKeys.key("Crónica de una muerte")).isEqualTo(BookSortKeys.key("cronica de una muerte"));
+    }
+
+    @Test
+    void catalogComparatorAndColumnKeysAgree() {
+        List<String> titles = new ArrayList<>(MYSQL_ORDER);
+        Collections.reverse(titles);
+
+        titles.sort((left, right) -> BookSortKeys.KEY_ORDER.compare(BookSortKeys.key(left), BookSortKeys.key(right)));
+
+        assertThat(titles).containsExactlyElementsOf(MYSQL_ORDER);
+    }
+}
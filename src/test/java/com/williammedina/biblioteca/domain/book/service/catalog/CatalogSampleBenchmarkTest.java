@@ -0,0 +1,63 @@
+package com.williammedina.biblioteca.domain.book.service.catalog;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+import com.williammedina.biblioteca.support.Benchmarks;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Muestra aleatoria de libros con 10k, 100k y 1M libros: el muestreo de Floyd sobre el snapshot
+// frente a lo que hacía ORDER BY RAND() (una clave aleatoria por fila y ordenar todo el catálogo)
+@Tag("benchmark")
+class CatalogSampleBenchmarkTest {
+
+    private static final int COUNT = 50;
+
+    @Test
+    void samplingCostDoesNotGrowWithTheCatalog() {
+        List<Benchmarks.Result> samples = new ArrayList<>();
+        for (int books : new int[] {10_000, 100_000, 1_000_000}) {
+            CatalogSnapshot snapshot = CatalogSnapshot.of(entries(books));
+            List<BookDTO> all = snapshot.view(BookSort.ID);
+
+            samples.add(Benchmarks.measure("sample(" + COUNT + ") from " + books, 10_000, 100_000,
+                    () -> snapshot.sample(COUNT)));
+            Benchmarks.Result sortAll = Benchmarks.measure("random sort of " + books, 3, 10,
+                    () -> sortByRandomKey(all));
+
+            assertThat(samples.getLast().nanosPerOp()).isLessThan(sortAll.nanosPerOp());
+        }
+        // Con 100 veces más libros la muestra no debería costar ni 10 veces más
+        assertThat(samples.getLast().nanosPerOp()).isLessThan(samples.getFirst().nanosPerOp() * 10);
+    }
+
+    private static List<CatalogEntry> entries(int books) {
+        List<CatalogEntry> entries = new ArrayList<>(books);
+        for (int i = 0; i < books; i++) {
+            entries.add(CatalogEntry.of(new BookDTO((long) i + 1, 9_780_000_000_000L + i, "Title " + i,
+                    "Author " + i % 997, "Publisher " + i % 101, String.valueOf(1900 + i % 125), "---", 0L)));
+        }
+        return entries;
+    }
+
+    private static List<BookDTO> sortByRandomKey(List<BookDTO> books) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long[] keyed = new long[books.size()];
+        for (int i = 0; i < keyed.length; i++) {
+            keyed[i] = ((long) random.nextInt() << 32) | i;
+        }
+        Arrays.sort(keyed);
+
+        List<BookDTO> sample = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            sample.add(books.get((int) keyed[i]));
+        }
+        return sample;
+    }
+}
@@ -0,0 +1,124 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import com.williammedina.biblioteca.infrastructure.exception.RetryLaterException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+class BookCoverServiceImplTest {
+
+    private static final Long ISBN = 9781234567897L;
+
+    @TempDir
+    Path tempDir;
+
+    private final CoverStore coverStore = mock(CoverStore.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private BookCoverServiceImpl service;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        when(coverStore.fileNames()).thenReturn(Set.of());
+        service = new BookCoverServiceImpl(mock(CoverCache.class), coverStore, mock(CoverRenditionService.class));
+        ReflectionTestUtils.setField(service, "stagingDir", tempDir.resolve(".staging"));
+        ReflectionTestUtils.setField(service, "writerThreads", 1);
+        ReflectionTestUtils.setField(service, "writerQueueCapacity", 1);
+        ReflectionTestUtils.setField(service, "writerRetryAfterSeconds", 5L);
+        ReflectionTestUtils.setField(service, "failedRetentionMs", 600_000L);
+        ReflectionTestUtils.setField(service, "maxUploadBytes", 1024L);
+        service.initialize();
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void rejectsUploadsBeforeTheTransactionWhenTheWriterIsFull() {
+        fillWriter();
+
+        MockMultipartFile cover = new MockMultipartFile("cover", "portada.jpg", "image/jpeg", new byte[16]);
+
+        assertThatThrownBy(() -> service.stageCover(cover, ISBN))
+                .isInstanceOfSatisfying(RetryLaterException.class, e -> {
+                    assertThat(e.getHttpStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+                    assertThat(e.getRetryAfterSeconds()).isEqualTo(5);
+                });
+    }
+
+    @Test
+    void coverRejectedByTheWriterIsMarkedFailedUntilItExpires() throws Exception {
+        fillWriter();
+        Path staged = Files.writeString(tempDir.resolve("staged.tmp"), "jpeg");
+
+        // Sin transacción se publica enseguida, desde este mismo hilo
+        service.saveCoverAfterCommit(new StagedCover(ISBN, ISBN + ".jpg", staged));
+
+        assertThat(service.getCoverStatus(ISBN)).isEqualTo(CoverStatus.FAILED);
+        assertThat(staged).doesNotExist();
+
+        service.expireFailedUploads();
+        assertThat(service.getCoverStatus(ISBN)).isEqualTo(CoverStatus.FAILED);
+
+        ReflectionTestUtils.setField(service, "failedRetentionMs", 0L);
+        service.expireFailedUploads();
+        assertThat(service.getCoverStatus(ISBN)).isEqualTo(CoverStatus.NONE);
+    }
+
+    @Test
+    void deleteWinsOverAPendingUpload() throws Exception {
+        ThreadPoolExecutor writer = writer();
+        writer.execute(this::awaitRelease);
+        Path staged = Files.writeString(tempDir.resolve("staged.tmp"), "jpeg");
+
+        service.saveCoverAfterCommit(new StagedCover(ISBN, ISBN + ".jpg", staged));
+        assertThat(service.getCoverStatus(ISBN)).isEqualTo(CoverStatus.PENDING);
+        service.deleteCoverAfterCommit(ISBN);
+        assertThat(service.getCoverStatus(ISBN)).isEqualTo(CoverStatus.NONE);
+
+        release.countDown();
+        service.shutdown();
+
+        verify(coverStore).delete(ISBN + ".jpg");
+        verify(coverStore, never()).put(anyString(), any());
+        assertThat(staged).doesNotExist();
+        assertThat(service.hasCover(ISBN)).isFalse();
+    }
+
+    // Un hilo ocupado y la cola de una posición llena
+    private void fillWriter() {
+        ThreadPoolExecutor writer = writer();
+        writer.execute(this::awaitRelease);
+        writer.execute(this::awaitRelease);
+    }
+
+    private ThreadPoolExecutor writer() {
+        return (ThreadPoolExecutor) ReflectionTestUtils.getField(service, "writer");
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
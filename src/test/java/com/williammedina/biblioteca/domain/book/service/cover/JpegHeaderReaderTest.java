@@ -0,0 +1,225 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import org.junit.jupiter.api.Test;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class JpegHeaderReaderTest {
+
+    private static final int MAX_HEADER_BYTES = 64 * 1024;
+
+    @Test
+    void readsBaselineDimensions() throws IOException {
+        assertThat(dimensions(encode(320, 480, false))).containsExactly(320, 480);
+    }
+
+    @Test
+    void readsProgressiveDimensions() throws IOException {
+        byte[] jpeg = encode(200, 300, true);
+
+        assertThat(indexOfMarker(jpeg, 0xC2)).isPositive();
+        assertThat(dimensions(jpeg)).containsExactly(200, 300);
+    }
+
+    @Test
+    void skipsExifSegmentBeforeTheFrame() throws IOException {
+        byte[] exif = new byte[10_000];
+        byte[] header = "Exif\0\0".getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(header, 0, exif, 0, header.length);
+
+        byte[] jpeg = concat(soi(), segment(0xE1, exif), segment(0xDB, new byte[65]), sof(0xC0, 1024, 768), eoi());
+
+        assertThat(dimensions(jpeg)).containsExactly(1024, 768);
+    }
+
+    @Test
+    void skipsFillBytesAndStandaloneMarkers() throws IOException {
+        byte[] jpeg = concat(soi(), new byte[]{(byte) 0xFF, (byte) 0xFF, (byte) 0xFF, 0x01}, sof(0xC2, 7, 9));
+
+        assertThat(dimensions(jpeg)).containsExactly(7, 9);
+    }
+
+    @Test
+    void doesNotTakeHuffmanTablesForAFrame() throws IOException {
+        byte[] jpeg = concat(soi(), segment(0xC4, new byte[20]), sof(0xC1, 640, 480));
+
+        assertThat(dimensions(jpeg)).containsExactly(640, 480);
+    }
+
+    @Test
+    void readsOnlyUpToTheFrameHeader() throws IOException {
+        byte[] jpeg = concat(soi(), segment(0xE0, new byte[14]), sof(0xC0, 10, 20), new byte[100_000]);
+        CountingInputStream input = new CountingInputStream(new ByteArrayInputStream(jpeg));
+
+        JpegHeaderReader reader = new JpegHeaderReader(input, MAX_HEADER_BYTES);
+        assertThat(reader.readDimensions()).containsExactly(10, 20);
+
+        assertThat(reader.count()).isEqualTo(input.read).isLessThanOrEqualTo(4096);
+        assertThat(Arrays.copyOf(reader.buffer(), reader.count())).isEqualTo(Arrays.copyOf(jpeg, reader.count()));
+    }
+
+    @Test
+    void rejectsTruncatedInputsAtEveryLength() throws IOException {
+        byte[] jpeg = concat(soi(), segment(0xE1, new byte[300]), sof(0xC2, 100, 200));
+        // Basta con leer hasta el ancho; los componentes del SOF no hacen falta
+        int headerEnd = jpeg.length - 4;
+
+        for (int length = 0; length < headerEnd; length++) {
+            byte[] truncated = Arrays.copyOf(jpeg, length);
+            assertThatThrownBy(() -> dimensions(truncated))
+                    .as("truncado a %d bytes", length)
+                    .isInstanceOf(AppException.class)
+                    .hasMessageContaining("no es una imagen JPEG");
+        }
+        assertThat(dimensions(Arrays.copyOf(jpeg, headerEnd))).containsExactly(100, 200);
+    }
+
+    @Test
+    void rejectsTruncatedEncoderOutput() throws IOException {
+        byte[] jpeg = encode(50, 60, true);
+        byte[] truncated = Arrays.copyOf(jpeg, indexOfMarker(jpeg, 0xC2));
+
+        assertThatThrownBy(() -> dimensions(truncated)).isInstanceOf(AppException.class);
+    }
+
+    @Test
+    void rejectsWhatIsNotAJpeg() {
+        byte[] png = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+        assertThatThrownBy(() -> dimensions(png)).isInstanceOf(AppException.class);
+    }
+
+    @Test
+    void rejectsScanDataBeforeTheFrame() {
+        byte[] jpeg = concat(soi(), segment(0xDA, new byte[10]), sof(0xC0, 10, 10));
+
+        assertThatThrownBy(() -> dimensions(jpeg)).isInstanceOf(AppException.class);
+    }
+
+    @Test
+    void rejectsZeroDimensions() {
+        byte[] jpeg = concat(soi(), sof(0xC0, 0, 10));
+
+        assertThatThrownBy(() -> dimensions(jpeg)).isInstanceOf(AppException.class);
+    }
+
+    @Test
+    void rejectsSegmentsWithInvalidLength() {
+        byte[] jpeg = concat(soi(), new byte[]{(byte) 0xFF, (byte) 0xE0, 0, 1}, sof(0xC0, 10, 10));
+
+        assertThatThrownBy(() -> dimensions(jpeg)).isInstanceOf(AppException.class);
+    }
+
+    @Test
+    void rejectsHeadersLargerThanTheLimit() {
+        byte[] jpeg = concat(soi(), segment(0xE1, new byte[60_000]), segment(0xE2, new byte[60_000]), sof(0xC0, 10, 10));
+
+        assertThatThrownBy(() -> dimensions(jpeg))
+                .isInstanceOf(AppException.class)
+                .hasMessageContaining("demasiado grande");
+    }
+
+    private static int[] dimensions(byte[] jpeg) throws IOException {
+        return new JpegHeaderReader(new ByteArrayInputStream(jpeg), MAX_HEADER_BYTES).readDimensions();
+    }
+
+    private static byte[] encode(int width, int height, boolean progressive) throws IOException {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        ImageWriteParam param = writer.getDefaultWriteParam();
+        if (progressive) {
+            param.setProgressiveMode(ImageWriteParam.MODE_DEFAULT);
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(output)) {
+            writer.setOutput(stream);
+            writer.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            writer.dispose();
+        }
+        return output.toByteArray();
+    }
+
+    private static int indexOfMarker(byte[] jpeg, int marker) {
+        for (int i = 0; i + 1 < jpeg.length; i++) {
+            if ((jpeg[i] & 0xFF) == 0xFF && (jpeg[i + 1] & 0xFF) == marker) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static byte[] soi() {
+        return new byte[]{(byte) 0xFF, (byte) 0xD8};
+    }
+
+    private static byte[] eoi() {
+        return new byte[]{(byte) 0xFF, (byte) 0xD9};
+    }
+
+    // Precisión, alto, ancho y un solo componente
+    private static byte[] sof(int marker, int width, int height) {
+        return segment(marker, new byte[]{8, (byte) (height >> 8), (byte) height, (byte) (width >> 8), (byte) width, 1, 1, 0x11, 0});
+    }
+
+    private static byte[] segment(int marker, byte[] payload) {
+        int length = payload.length + 2;
+        byte[] segment = new byte[payload.length + 4];
+        segment[0] = (byte) 0xFF;
+        segment[1] = (byte) marker;
+        segment[2] = (byte) (length >> 8);
+        segment[3] = (byte) length;
+        System.arraycopy(payload, 0, segment, 4, payload.length);
+        return segment;
+    }
+
+    private static byte[] concat(byte[]... parts) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        for (byte[] part : parts) {
+            output.writeBytes(part);
+        }
+        return output.toByteArray();
+    }
+
+    private static final class CountingInputStream extends InputStream {
+        private final InputStream delegate;
+        private int read;
+
+        private CountingInputStream(InputStream delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int read() throws IOException {
+            int value = delegate.read();
+            if (value >= 0) {
+                read++;
+            }
+            return value;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            int count = delegate.read(buffer, offset, length);
+            if (count > 0) {
+                read += count;
+            }
+            return count;
+        }
+    }
+}
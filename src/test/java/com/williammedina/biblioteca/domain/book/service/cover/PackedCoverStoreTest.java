@@ -0,0 +1,217 @@
+package com.williammedina.biblioteca.domain.book.service.cover;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+class PackedCoverStoreTest {
+
+    // magic, tipo, fecha, hash, longitud de los datos y longitud del nombre
+    private static final int HEADER_BYTES = 4 + 1 + 8 + 32 + 4 + 2;
+
+    @TempDir
+    Path coversDir;
+
+    private PackedCoverStore store;
+    private CoverRenditionService renditions;
+
+    @AfterEach
+    void tearDown() throws IOException {
+        if (store != null) {
+            store.close();
+        }
+    }
+
+    @Test
+    void recordsAreSelfDescribing() throws Exception {
+        open(1 << 20);
+        store.put("111.jpg", staged("hello"));
+
+        ByteBuffer record = ByteBuffer.wrap(Files.readAllBytes(segment(1)));
+        assertThat(record.getInt()).isEqualTo(0x434F5652);
+        assertThat(record.get()).isEqualTo((byte) 1);
+        assertThat(record.getLong()).isPositive();
+        byte[] hash = new byte[32];
+        record.get(hash);
+        assertThat(hash).isEqualTo(sha256("hello"));
+        assertThat(record.getInt()).isEqualTo(5);
+        assertThat(record.getShort()).isEqualTo((short) 7);
+        byte[] rest = new byte[record.remaining()];
+        record.get(rest);
+        assertThat(new String(rest, StandardCharsets.US_ASCII)).isEqualTo("111.jpghello");
+    }
+
+    @Test
+    void reopeningReplaysPutsReplacementsAndDeletes() throws Exception {
+        open(1 << 20);
+        store.put("1.jpg", staged("first"));
+        store.put("2.jpg", staged("second"));
+        store.put("1.jpg", staged("replaced"));
+        assertThat(store.delete("2.jpg")).isTrue();
+        assertThat(store.delete("2.jpg")).isFalse();
+
+        reopen(1 << 20);
+
+        assertThat(content("1.jpg")).isEqualTo("replaced");
+        assertThat(store.find("2.jpg")).isEmpty();
+        assertThat(store.fileNames()).containsExactly("1.jpg");
+    }
+
+    @Test
+    void tornTailRecordIsDropped() throws Exception {
+        open(1 << 20);
+        store.put("1.jpg", staged("complete"));
+        long firstRecordEnd = Files.size(segment(1));
+        store.put("2.jpg", staged("torn write"));
+        store.close();
+        try (FileChannel channel = FileChannel.open(segment(1), StandardOpenOption.WRITE)) {
+            channel.truncate(Files.size(segment(1)) - 3);
+        }
+
+        reopen(1 << 20);
+
+        assertThat(Files.size(segment(1))).isEqualTo(firstRecordEnd);
+        assertThat(content("1.jpg")).isEqualTo("complete");
+        assertThat(store.find("2.jpg")).isEmpty();
+
+        // Lo siguiente se escribe donde terminaba el último registro válido
+        store.put("3.jpg", staged("after recovery"));
+        reopen(1 << 20);
+        assertThat(content("1.jpg")).isEqualTo("complete");
+        assertThat(content("3.jpg")).isEqualTo("after recovery");
+    }
+
+    @Test
+    void spaceReservedByTheMappingIsReleasedOnRestart() throws Exception {
+        open(1 << 20);
+        store.put("1.jpg", staged("mapped"));
+        long written = Files.size(segment(1));
+        assertThat(content("1.jpg")).isEqualTo("mapped");
+        assertThat(Files.size(segment(1))).isGreaterThan(written);
+
+        // Lo escrito después del mapeo también se lee desde él
+        store.put("2.jpg", staged("written after mapping"));
+        assertThat(content("2.jpg")).isEqualTo("written after mapping");
+
+        reopen(1 << 20);
+        assertThat(Files.size(segment(1))).isEqualTo(2L * HEADER_BYTES + 5 + "mapped".length() + 5 + "written after mapping".length());
+        assertThat(content("1.jpg")).isEqualTo("mapped");
+        assertThat(content("2.jpg")).isEqualTo("written after mapping");
+    }
+
+    @Test
+    void compactionMovesLiveRecordsAndDeletesTheSegment() throws Exception {
+        // Dos registros por segmento
+        open(2 * (HEADER_BYTES + 5 + 10));
+        store.put("1.jpg", staged("aaaaaaaaaa"));
+        store.put("2.jpg", staged("bbbbbbbbbb"));
+        store.put("3.jpg", staged("cccccccccc"));
+        ByteBuffer before = store.find("2.jpg").orElseThrow().content();
+        store.put("1.jpg", staged("dddddddddd"));
+
+        store.compact();
+
+        assertThat(segment(1)).doesNotExist();
+        assertThat(content("1.jpg")).isEqualTo("dddddddddd");
+        assertThat(content("2.jpg")).isEqualTo("bbbbbbbbbb");
+        assertThat(content("3.jpg")).isEqualTo("cccccccccc");
+        // Un slice entregado antes de compactar sigue siendo válido
+        assertThat(StandardCharsets.US_ASCII.decode(before).toString()).isEqualTo("bbbbbbbbbb");
+
+        reopen(2 * (HEADER_BYTES + 5 + 10));
+        assertThat(store.fileNames()).containsExactlyInAnyOrder("1.jpg", "2.jpg", "3.jpg");
+        assertThat(content("1.jpg")).isEqualTo("dddddddddd");
+        assertThat(content("2.jpg")).isEqualTo("bbbbbbbbbb");
+    }
+
+    @Test
+    void recoveryKeepsRenditionsOfContentThatIsStillLive() throws Exception {
+        open(1 << 20);
+        store.put("1.jpg", staged("shared"));
+        // "shared" se queda sin nombres a mitad del journal y vuelve a tenerlos después
+        store.put("1.jpg", staged("other"));
+        store.put("2.jpg", staged("shared"));
+        Path live = rendition(sha256("shared"));
+        Path orphan = rendition(sha256("deleted long ago"));
+
+        reopen(1 << 20);
+
+        verify(renditions, never()).deleteRenditions(any());
+        assertThat(live).exists();
+        assertThat(orphan).doesNotExist();
+    }
+
+    @Test
+    void importsShardedCoversOnlyOnce() throws Exception {
+        String hash = HexFormat.of().formatHex(sha256("sharded"));
+        Path blob = coversDir.resolve("blobs").resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash + ".jpg");
+        Files.createDirectories(blob.getParent());
+        Files.writeString(blob, "sharded");
+        Files.writeString(coversDir.resolve("index.log"), "PUT 5.jpg " + hash + "\nPUT 9.jpg " + hash + "\nDEL 9.jpg -\n");
+        Files.writeString(coversDir.resolve("6.jpg"), "flat");
+
+        open(1 << 20);
+
+        assertThat(store.fileNames()).containsExactlyInAnyOrder("5.jpg", "6.jpg");
+        assertThat(content("5.jpg")).isEqualTo("sharded");
+        assertThat(content("6.jpg")).isEqualTo("flat");
+        // Los archivos originales se conservan para poder volver al almacenamiento sharded
+        assertThat(blob).exists();
+        assertThat(coversDir.resolve("6.jpg")).exists();
+
+        store.delete("5.jpg");
+        reopen(1 << 20);
+        assertThat(store.fileNames()).containsExactly("6.jpg");
+    }
+
+    private void open(long segmentBytes) throws IOException {
+        renditions = mock(CoverRenditionService.class);
+        store = new PackedCoverStore(renditions, coversDir, segmentBytes, 0.5);
+        store.initialize();
+    }
+
+    private void reopen(long segmentBytes) throws IOException {
+        store.close();
+        open(segmentBytes);
+    }
+
+    private Path staged(String content) throws IOException {
+        Path staging = Files.createDirectories(coversDir.resolveSibling(coversDir.getFileName() + "-staging"));
+        return Files.writeString(Files.createTempFile(staging, "cover-", ".tmp"), content);
+    }
+
+    private String content(String fileName) {
+        return StandardCharsets.US_ASCII.decode(store.find(fileName).orElseThrow().content()).toString();
+    }
+
+    private Path segment(int id) {
+        return coversDir.resolve("packs").resolve(String.format("segment-%06d.pack", id));
+    }
+
+    private Path rendition(byte[] hash) throws IOException {
+        String hex = HexFormat.of().formatHex(hash);
+        Path file = coversDir.resolve("renditions").resolve(hex.substring(0, 2)).resolve(hex.substring(2, 4)).resolve(hex + "-thumb.jpg");
+        Files.createDirectories(file.getParent());
+        return Files.writeString(file, "rendition");
+    }
+
+    private static byte[] sha256(String content) throws Exception {
+        return MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.US_ASCII));
+    }
+}
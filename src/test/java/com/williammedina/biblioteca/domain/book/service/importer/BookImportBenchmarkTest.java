@@ -0,0 +1,59 @@
+package com.williammedina.biblioteca.domain.book.service.importer;
+
+import com.williammedina.biblioteca.domain.book.dto.InputBookDTO;
+import com.williammedina.biblioteca.domain.book.service.BookService;
+import com.williammedina.biblioteca.support.BenchmarkCatalog;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Libros por segundo del alta individual (la misma ruta que POST /api/books, una transacción por libro)
+// frente a la importación masiva con comprobaciones por conjuntos e INSERT por lotes
+@Tag("benchmark")
+@EnabledIfEnvironmentVariable(named = "DB_URL", matches = ".+")
+@SpringBootTest(properties = "jwt.secret=benchmark")
+class BookImportBenchmarkTest {
+
+    private static final int SINGLE_BOOKS = 2_000;
+    private static final int IMPORTED_BOOKS = 50_000;
+    private static final long IMPORT_FIRST_ISBN = BenchmarkCatalog.FIRST_ISBN + SINGLE_BOOKS;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        BenchmarkCatalog.delete(jdbcTemplate, BenchmarkCatalog.FIRST_ISBN, SINGLE_BOOKS + IMPORTED_BOOKS);
+    }
+
+    @Test
+    void bulkImportIsAnOrderOfMagnitudeFasterThanSingleInserts() throws Exception {
+        long start = System.nanoTime();
+        for (int i = 0; i < SINGLE_BOOKS; i++) {
+            bookService.addNewBook(new InputBookDTO(BenchmarkCatalog.FIRST_ISBN + i, "Benchmark title " + i,
+                    "Author " + i % 997, "Publisher " + i % 101, String.valueOf(1900 + i % 125), null, null, null));
+        }
+        double singlePerSecond = booksPerSecond(SINGLE_BOOKS, System.nanoTime() - start);
+
+        start = System.nanoTime();
+        BenchmarkCatalog.seed(bookService, IMPORT_FIRST_ISBN, IMPORTED_BOOKS);
+        double importPerSecond = booksPerSecond(IMPORTED_BOOKS, System.nanoTime() - start);
+
+        System.out.printf("addNewBook: %.0f books/s, bulk import: %.0f books/s (%.1fx)%n",
+                singlePerSecond, importPerSecond, importPerSecond / singlePerSecond);
+        assertThat(importPerSecond).isGreaterThan(singlePerSecond * 10);
+    }
+
+    private static double booksPerSecond(int books, long nanos) {
+        return books * 1_000_000_000.0 / nanos;
+    }
+}
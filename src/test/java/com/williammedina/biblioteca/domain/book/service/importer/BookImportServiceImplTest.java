@@ -0,0 +1,56 @@
+package com.williammedina.biblioteca.domain.book.service.importer;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.williammedina.biblioteca.domain.book.dto.BookImportErrorDTO;
+import com.williammedina.biblioteca.domain.book.dto.BookImportReportDTO;
+import com.williammedina.biblioteca.domain.book.service.validator.BookValidator;
+import com.williammedina.biblioteca.domain.book.service.version.CatalogVersionService;
+import jakarta.validation.Validation;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BookImportServiceImplTest {
+
+    private final BookValidator bookValidator = mock(BookValidator.class);
+    private final BookImportServiceImpl service = new BookImportServiceImpl(new ObjectMapper(),
+            Validation.buildDefaultValidatorFactory().getValidator(), bookValidator, mock(CatalogVersionService.class),
+            mock(JdbcTemplate.class), mock(TransactionTemplate.class), mock(ApplicationEventPublisher.class));
+
+    @Test
+    void locationsCollideRegardlessOfCaseAndAccents() throws Exception {
+        ReflectionTestUtils.setField(service, "batchSize", 500);
+        ReflectionTestUtils.setField(service, "maxRows", 100);
+        when(bookValidator.findExistingIsbns(anyCollection())).thenReturn(Set.of());
+        // La base de datos encuentra "a-c1" aunque esté guardada como "A-C1"
+        when(bookValidator.findOccupiedLocations(anyCollection())).thenReturn(Set.of("A-C1"));
+
+        BookImportReportDTO report = service.importBooks(BookImportFormat.NDJSON, ndjson(
+                "{\"isbn\": 1, \"title\": \"Uno\", \"location\": \"A-B12\"}",
+                "{\"isbn\": 2, \"title\": \"Dos\", \"location\": \"a-b12\"}",
+                "{\"isbn\": 3, \"title\": \"Tres\", \"location\": \"a-c1\"}",
+                "{\"isbn\": 4, \"title\": \"Cuatro\", \"location\": \"Á-B12\"}",
+                "{\"isbn\": 5, \"title\": \"Cinco\", \"location\": \"A-B13\"}"));
+
+        assertThat(report.imported()).isEqualTo(2);
+        assertThat(report.rejected()).extracting(BookImportErrorDTO::isbn).containsExactly(2L, 3L, 4L);
+        assertThat(report.rejected().get(0).errors()).containsExactly("La fila de la línea 1 ya usa esa ubicación.");
+        assertThat(report.rejected().get(1).errors()).containsExactly("Un libro ya tiene esa ubicación.");
+        assertThat(report.rejected().get(2).errors()).containsExactly("La fila de la línea 1 ya usa esa ubicación.");
+    }
+
+    private static ByteArrayInputStream ndjson(String... lines) {
+        return new ByteArrayInputStream(String.join("\n", lines).getBytes(StandardCharsets.UTF_8));
+    }
+}
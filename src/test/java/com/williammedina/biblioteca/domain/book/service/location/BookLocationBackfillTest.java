@@ -0,0 +1,77 @@
+package com.williammedina.biblioteca.domain.book.service.location;
+
+import com.williammedina.biblioteca.domain.book.entity.BookEntity;
+import com.williammedina.biblioteca.domain.book.event.CatalogChangedEvent;
+import com.williammedina.biblioteca.domain.book.repository.BookRepository;
+import com.williammedina.biblioteca.domain.book.service.version.CatalogVersionService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.*;
+
+class BookLocationBackfillTest {
+
+    private final BookRepository bookRepository = mock(BookRepository.class);
+    private final CatalogVersionService catalogVersionService = mock(CatalogVersionService.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final TransactionTemplate transactionTemplate = mock(TransactionTemplate.class);
+    private final BookLocationBackfill backfill =
+            new BookLocationBackfill(bookRepository, catalogVersionService, eventPublisher, transactionTemplate);
+
+    @BeforeEach
+    void setUp() {
+        when(transactionTemplate.execute(any())).thenAnswer(invocation ->
+                invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null));
+    }
+
+    @Test
+    void rowsThatCannotBeCompletedDoNotChangeTheCatalogVersion() {
+        // Ya procesados en un arranque anterior: ubicación no válida y ubicación repetida
+        BookEntity invalid = book(1L, "XYZ");
+        BookLocationParser.assignComponents(invalid);
+        BookEntity duplicate = book(2L, "A-B12");
+        BookLocationParser.assignComponents(duplicate);
+        duplicate.setLocationKey(null);
+        when(bookRepository.findPendingLocationBackfill(anyLong(), any()))
+                .thenReturn(List.of(invalid, duplicate), List.of());
+        when(bookRepository.findTakenLocationKeys(anyCollection())).thenReturn(List.of("A-B12"));
+
+        backfill.run(null);
+
+        assertThat(duplicate.getLocationKey()).isNull();
+        verify(catalogVersionService, never()).incrementVersion();
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    void changedRowsAdvanceTheVersionAndReloadTheCatalog() {
+        BookEntity pending = book(1L, "A-B12");
+        when(bookRepository.findPendingLocationBackfill(anyLong(), any()))
+                .thenReturn(List.of(pending), List.of());
+        when(bookRepository.findTakenLocationKeys(anyCollection())).thenReturn(List.of());
+        when(catalogVersionService.incrementVersion()).thenReturn(8L);
+
+        backfill.run(null);
+
+        assertThat(pending.getLocationKey()).isEqualTo("A-B12");
+        assertThat(pending.getPosition()).isEqualTo(12);
+        verify(catalogVersionService).incrementVersion();
+        verify(eventPublisher).publishEvent(new CatalogChangedEvent(8L));
+    }
+
+    private static BookEntity book(Long id, String location) {
+        BookEntity book = new BookEntity();
+        book.setId(id);
+        book.setLocation(location);
+        return book;
+    }
+}
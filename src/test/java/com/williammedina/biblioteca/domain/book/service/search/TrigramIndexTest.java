@@ -0,0 +1,149 @@
+package com.williammedina.biblioteca.domain.book.service.search;
+
+import com.williammedina.biblioteca.domain.book.dto.BookDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TrigramIndexTest {
+
+    private static BookDTO book(long id, long isbn, String title, String author, String publisher, String year, String location) {
+        return new BookDTO(id, isbn, title, author, publisher, year, location, 0L);
+    }
+
+    private static List<Long> ids(List<BookDTO> books) {
+        return books.stream().map(BookDTO::id).toList();
+    }
+
+    // Resultado esperado calculado por fuerza bruta, con el mismo criterio que la antigua consulta LIKE
+    private static List<BookDTO> bruteForce(List<BookDTO> books, String keyword) {
+        String folded = SearchText.fold(keyword);
+        List<BookDTO> result = new ArrayList<>();
+        for (BookDTO book : books) {
+            boolean matches = String.valueOf(book.isbn()).equals(keyword)
+                    || SearchText.fold(book.title()).contains(folded)
+                    || SearchText.fold(book.author()).contains(folded)
+                    || SearchText.fold(book.publisher()).contains(folded)
+                    || SearchText.fold(book.publication_year()).contains(folded)
+                    || SearchText.fold(book.location()).contains(folded);
+            if (matches) {
+                result.add(book);
+            }
+        }
+        result.sort(Comparator.comparing(BookDTO::id));
+        return result;
+    }
+
+    @Test
+    void findsSubstringsIgnoringCaseAndAccents() {
+        TrigramIndex index = TrigramIndex.of(List.of(
+                book(1, 9780000000001L, "Cien años de soledad", "Gabriel García Márquez", "Sudamericana", "1967", "P-A1"),
+                book(2, 9780000000002L, "Ficciones", "Jorge Luis Borges", "Sur", "1944", "P-A2"),
+                book(3, 9780000000003L, "Rayuela", "Julio Cortázar", "Sudamericana", "1963", "P-B1")
+        ));
+
+        assertThat(ids(index.search("GARCIA"))).containsExactly(1L);
+        assertThat(ids(index.search("cortazar"))).containsExactly(3L);
+        assertThat(ids(index.search("sudamer"))).containsExactly(1L, 3L);
+        assertThat(ids(index.search("años de"))).containsExactly(1L);
+        assertThat(index.search("tolkien")).isEmpty();
+    }
+
+    @Test
+    void shortKeywordsScanAllBooks() {
+        TrigramIndex index = TrigramIndex.of(List.of(
+                book(1, 1L, "Ab", "X", "Y", "2000", "P-A1"),
+                book(2, 2L, "Cd", "X", "Y", "2001", "P-A2")
+        ));
+
+        assertThat(ids(index.search("ab"))).containsExactly(1L);
+        assertThat(ids(index.search("x"))).containsExactly(1L, 2L);
+    }
+
+    @Test
+    void matchesExactIsbnOnlyOnce() {
+        TrigramIndex index = TrigramIndex.of(List.of(
+                book(1, 9781234567897L, "Soil Fertility", "Henry D. Foth", "Lewis", "1997", "P-A12"),
+                book(2, 1234L, "9781234567897 en el título", "Otro", "Otra", "2000", "P-A13")
+        ));
+
+        assertThat(ids(index.search("9781234567897"))).containsExactly(1L, 2L);
+        // Solo el ISBN exacto: los números del ISBN no se buscan como subcadena
+        assertThat(ids(index.search("1234"))).containsExactly(2L);
+        // Un prefijo con ceros no es el texto del ISBN
+        assertThat(ids(index.search("01234"))).isEmpty();
+    }
+
+    @Test
+    void matchesNeverSpanTwoFields() {
+        TrigramIndex index = TrigramIndex.of(List.of(
+                book(1, 1L, "abc", "def", "ghi", "2000", "P-A1")
+        ));
+
+        assertThat(index.search("cde")).isEmpty();
+        assertThat(index.search("abcdef")).isEmpty();
+        assertThat(ids(index.search("bc"))).containsExactly(1L);
+    }
+
+    @Test
+    void removedAndReplacedBooksAreNotReturned() {
+        TrigramIndex index = TrigramIndex.of(List.of(
+                book(1, 1L, "Ficciones", "Borges", "Sur", "1944", "P-A1"),
+                book(2, 2L, "El Aleph", "Borges", "Losada", "1949", "P-A2")
+        ));
+
+        index.remove(1L);
+        index.add(book(2, 2L, "El Aleph", "Jorge Luis Borges", "Emecé", "1949", "P-A2"));
+
+        assertThat(ids(index.search("borges"))).containsExactly(2L);
+        assertThat(index.search("losada")).isEmpty();
+        assertThat(ids(index.search("emece"))).containsExactly(2L);
+        assertThat(index.liveCount()).isEqualTo(1);
+        assertThat(index.deadCount()).isEqualTo(2);
+        assertThat(ids(TrigramIndex.of(index.liveBooks()).search("aleph"))).containsExactly(2L);
+    }
+
+    @Test
+    void candidatesVerifiedAgainstBruteForce() {
+        Random random = new Random(42);
+        String alphabet = "aábcdeéfgio nrstuñ";
+        List<BookDTO> books = new ArrayList<>();
+        for (int i = 1; i <= 500; i++) {
+            books.add(book(i, 1000L + i, word(random, alphabet, 12), word(random, alphabet, 8),
+                    word(random, alphabet, 6), String.valueOf(1900 + random.nextInt(120)), "P-" + (char) ('A' + random.nextInt(5)) + random.nextInt(20)));
+        }
+        TrigramIndex index = TrigramIndex.of(books);
+
+        for (int i = 0; i < 2000; i++) {
+            BookDTO source = books.get(random.nextInt(books.size()));
+            String keyword = switch (random.nextInt(4)) {
+                case 0 -> substring(random, source.title());
+                case 1 -> substring(random, source.author()).toUpperCase();
+                case 2 -> String.valueOf(source.isbn());
+                default -> word(random, alphabet, 1 + random.nextInt(4));
+            };
+            assertThat(ids(index.search(keyword)))
+                    .as("keyword '%s'", keyword)
+                    .isEqualTo(ids(bruteForce(books, keyword)));
+        }
+    }
+
+    private static String word(Random random, String alphabet, int length) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return builder.toString();
+    }
+
+    private static String substring(Random random, String text) {
+        int start = random.nextInt(text.length());
+        int end = start + 1 + random.nextInt(text.length() - start);
+        return text.substring(start, end);
+    }
+}
@@ -0,0 +1,49 @@
+package com.williammedina.biblioteca.domain.book.service.validator;
+
+import com.williammedina.biblioteca.domain.book.repository.BookRepository;
+import com.williammedina.biblioteca.infrastructure.exception.AppException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpStatus;
+
+import java.sql.SQLException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class BookValidatorImplTest {
+
+    private final BookValidatorImpl validator = new BookValidatorImpl(mock(BookRepository.class));
+
+    @Test
+    void duplicateLocationKeyIsALocationConflict() {
+        RuntimeException result = validator.toConflict(violation(1062, "books.uk_books_location_key"));
+
+        assertThat(result).isInstanceOf(AppException.class).hasMessage("Un libro ya tiene esa ubicación.");
+        assertThat(((AppException) result).getHttpStatus()).isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    @Test
+    void otherDuplicateKeysAreAnIsbnConflict() {
+        RuntimeException result = validator.toConflict(violation(1062, "books.UKkibbepcitr0a3cpk3rfr7nihn"));
+
+        assertThat(result).isInstanceOf(AppException.class).hasMessage("Un libro con ese ISBN ya existe.");
+    }
+
+    @Test
+    void otherIntegrityErrorsAreReturnedUnchanged() {
+        // 1048: columna NOT NULL sin valor, también con SQLState 23000
+        DataIntegrityViolationException notNull = violation(1048, null);
+        DataIntegrityViolationException unrelated = new DataIntegrityViolationException("Data truncation");
+
+        assertThat(validator.toConflict(notNull)).isSameAs(notNull);
+        assertThat(validator.toConflict(unrelated)).isSameAs(unrelated);
+    }
+
+    private static DataIntegrityViolationException violation(int errorCode, String constraintName) {
+        SQLException sqlException = new SQLException("Integrity constraint violation", "23000", errorCode);
+        return new DataIntegrityViolationException("could not execute statement",
+                new ConstraintViolationException("could not execute statement", sqlException, "insert into books", constraintName));
+    }
+}
@@ -0,0 +1,75 @@
+package com.williammedina.biblioteca.domain.book.service.version;
+
+import com.williammedina.biblioteca.domain.book.event.CatalogChangedEvent;
+import com.williammedina.biblioteca.domain.book.repository.CatalogVersionRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CatalogVersionServiceImplTest {
+
+    private final CatalogVersionRepository repository = mock(CatalogVersionRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final CatalogVersionServiceImpl service = new CatalogVersionServiceImpl(repository, eventPublisher);
+
+    @BeforeEach
+    void setUp() {
+        when(repository.existsById(1L)).thenReturn(true);
+        when(repository.findVersion(1L)).thenReturn(Optional.of(4L));
+        service.initialize();
+        TransactionSynchronizationManager.initSynchronization();
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void ownConsecutiveWriteOnlyAdvancesTheVersion() {
+        when(repository.incrementVersion(1L)).thenReturn(1);
+        when(repository.findVersion(1L)).thenReturn(Optional.of(5L));
+
+        service.incrementVersion();
+        commit();
+
+        assertThat(service.getCurrentVersion()).isEqualTo(5L);
+        verify(eventPublisher, never()).publishEvent(any(CatalogChangedEvent.class));
+    }
+
+    @Test
+    void writeAfterAnUnseenExternalWriteReloadsTheCatalog() {
+        // Otro nodo confirmó la 5 antes del siguiente sondeo; esta escritura obtiene la 6
+        when(repository.incrementVersion(1L)).thenReturn(1);
+        when(repository.findVersion(1L)).thenReturn(Optional.of(6L));
+
+        service.incrementVersion();
+        commit();
+
+        assertThat(service.getCurrentVersion()).isEqualTo(6L);
+        verify(eventPublisher).publishEvent(new CatalogChangedEvent(6L));
+    }
+
+    @Test
+    void pollingReloadsWhenAnotherNodeAdvancedTheVersion() {
+        when(repository.findVersion(1L)).thenReturn(Optional.of(7L));
+
+        service.refreshVersion();
+
+        assertThat(service.getCurrentVersion()).isEqualTo(7L);
+        verify(eventPublisher).publishEvent(new CatalogChangedEvent(7L));
+    }
+
+    private static void commit() {
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+    }
+}
@@ -0,0 +1,90 @@
+package com.williammedina.biblioteca.domain.user.service;
+
+import com.williammedina.biblioteca.domain.user.dto.LoginUserDTO;
+import com.williammedina.biblioteca.domain.user.entity.UserEntity;
+import com.williammedina.biblioteca.domain.user.repository.UserRepository;
+import com.williammedina.biblioteca.domain.user.service.context.AuthenticatedUserProvider;
+import com.williammedina.biblioteca.domain.user.service.password.PasswordHashingService;
+import com.williammedina.biblioteca.domain.user.service.validator.UserValidator;
+import com.williammedina.biblioteca.infrastructure.security.TokenService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class UserServiceImplTest {
+
+    private final TokenService tokenService = mock(TokenService.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final PasswordHashingService passwordHashingService = mock(PasswordHashingService.class);
+    private final UserValidator validator = mock(UserValidator.class);
+    private final ExecutorService hasher = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "password-hasher-1"));
+    private final List<String> threads = new CopyOnWriteArrayList<>();
+    private final UserEntity user = new UserEntity(7L, "reader@example.com", "old-hash");
+    private UserServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        service = new UserServiceImpl(tokenService, userRepository, passwordHashingService,
+                mock(AuthenticatedUserProvider.class), validator);
+        ReflectionTestUtils.setField(service, "completionThreads", 1);
+        service.initialize();
+
+        when(validator.ensureUserExists("reader@example.com")).thenReturn(user);
+        when(userRepository.save(any())).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return invocation.getArgument(0);
+        });
+        when(tokenService.generateToken(user)).thenAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return "token";
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        hasher.shutdownNow();
+    }
+
+    @Test
+    void savesTheUpgradedHashAndSignsTheTokenOffTheHashingPool() {
+        when(passwordHashingService.matches("secret", "old-hash"))
+                .thenReturn(CompletableFuture.supplyAsync(() -> true, hasher));
+        when(passwordHashingService.rehashIfNeeded("secret", "old-hash"))
+                .thenReturn(CompletableFuture.supplyAsync(() -> Optional.of("new-hash"), hasher));
+
+        String token = service.authenticateAndGenerateToken(new LoginUserDTO("reader@example.com", "secret")).join();
+
+        assertThat(token).isEqualTo("token");
+        assertThat(user.getPassword()).isEqualTo("new-hash");
+        assertThat(threads).hasSize(2).allMatch(name -> name.startsWith("login-completion-"));
+    }
+
+    @Test
+    void wrongPasswordFailsWithoutSigningAToken() {
+        when(passwordHashingService.matches("wrong", "old-hash"))
+                .thenReturn(CompletableFuture.supplyAsync(() -> false, hasher));
+
+        CompletableFuture<String> login = service.authenticateAndGenerateToken(new LoginUserDTO("reader@example.com", "wrong"));
+
+        assertThatThrownBy(login::join).isInstanceOf(CompletionException.class)
+                .cause().isInstanceOf(BadCredentialsException.class);
+        verifyNoInteractions(tokenService);
+        verify(userRepository, never()).save(any());
+    }
+}
@@ -0,0 +1,123 @@
+package com.williammedina.biblioteca.domain.user.service.password;
+
+import com.williammedina.biblioteca.infrastructure.exception.RetryLaterException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PasswordHashingServiceImplTest {
+
+    private final PasswordEncoder encoder = mock(PasswordEncoder.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private PasswordHashingServiceImpl service;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (service != null) {
+            service.shutdown();
+        }
+    }
+
+    @Test
+    void completesWithTheEncoderResult() {
+        service = service(2, 4, 5_000);
+        when(encoder.matches("secret", "hash")).thenReturn(true);
+
+        assertThat(service.matches("secret", "hash").join()).isTrue();
+        assertThat(service.matches("wrong", "hash").join()).isFalse();
+    }
+
+    @Test
+    void rejectsRightAwayWhenTheQueueIsFull() {
+        service = service(1, 1, 5_000);
+        blockWhileMatching();
+
+        service.matches("a", "hash");
+        service.matches("b", "hash");
+        CompletableFuture<Boolean> rejected = service.matches("c", "hash");
+
+        assertThat(rejected).isCompletedExceptionally();
+        assertThat(failure(rejected).getHttpStatus()).isEqualTo(HttpStatus.TOO_MANY_REQUESTS);
+        assertThat(failure(rejected).getRetryAfterSeconds()).isEqualTo(2);
+    }
+
+    @Test
+    void failsWithServiceUnavailableWhenHashingTakesTooLong() {
+        service = service(1, 1, 50);
+        blockWhileMatching();
+
+        CompletableFuture<Boolean> slow = service.matches("a", "hash");
+
+        assertThat(failure(slow).getHttpStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+    }
+
+    @Test
+    void queuedTaskIsSkippedAfterItsTimeout() throws Exception {
+        // Cola de 2: "c" entra aunque "b" siga en la cola
+        service = service(1, 2, 50);
+        blockWhileMatching();
+
+        service.matches("a", "hash");
+        CompletableFuture<Boolean> queued = service.matches("b", "hash");
+        assertThat(failure(queued).getHttpStatus()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        release.countDown();
+        // Una tarea más por detrás asegura que la encolada ya pasó por el hilo
+        doReturn(true).when(encoder).matches("c", "hash");
+        assertThat(service.matches("c", "hash").get(5, TimeUnit.SECONDS)).isTrue();
+
+        verify(encoder).matches("a", "hash");
+        verify(encoder, never()).matches("b", "hash");
+    }
+
+    @Test
+    void rehashesOnlyOutdatedHashes() {
+        service = service(1, 1, 5_000);
+        when(encoder.upgradeEncoding("current")).thenReturn(false);
+        when(encoder.upgradeEncoding("outdated")).thenReturn(true);
+        when(encoder.encode("secret")).thenReturn("upgraded");
+
+        assertThat(service.rehashIfNeeded("secret", "current").join()).isEmpty();
+        assertThat(service.rehashIfNeeded("secret", "outdated").join()).contains("upgraded");
+    }
+
+    private PasswordHashingServiceImpl service(int threads, int queueCapacity, long timeoutMs) {
+        PasswordHashingServiceImpl service = new PasswordHashingServiceImpl(encoder);
+        ReflectionTestUtils.setField(service, "hashingThreads", threads);
+        ReflectionTestUtils.setField(service, "hashingQueueCapacity", queueCapacity);
+        ReflectionTestUtils.setField(service, "hashingTimeoutMs", timeoutMs);
+        ReflectionTestUtils.setField(service, "retryAfterSeconds", 2L);
+        service.initialize();
+        return service;
+    }
+
+    private void blockWhileMatching() {
+        when(encoder.matches(anyString(), anyString())).thenAnswer(invocation -> {
+            release.await();
+            return false;
+        });
+    }
+
+    private static RetryLaterException failure(CompletableFuture<?> future) {
+        assertThatThrownBy(future::join).isInstanceOf(CompletionException.class)
+                .cause().isInstanceOf(RetryLaterException.class);
+        return (RetryLaterException) future.handle((value, e) -> e instanceof CompletionException ? e.getCause() : e).join();
+    }
+}
@@ -0,0 +1,182 @@
+package com.williammedina.biblioteca.infrastructure.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.williammedina.biblioteca.domain.user.entity.UserEntity;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.apache.catalina.filters.RemoteIpFilter;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockFilterConfig;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RateLimitFilterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private TokenService tokenService;
+    private RateLimitFilter filter;
+    // Hace lo mismo que la válvula RemoteIpValve que Tomcat agrega con server.forward-headers-strategy=native
+    private RemoteIpFilter remoteIpFilter;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        tokenService = new TokenService();
+        ReflectionTestUtils.setField(tokenService, "jwtSecret", "test");
+        ReflectionTestUtils.setField(tokenService, "verifiedCacheSize", 100);
+        tokenService.initialize();
+
+        filter = new RateLimitFilter(true, new String[] {"GET /api/books 1 1"},
+                new ObjectMapper().findAndRegisterModules(), tokenService, new SimpleMeterRegistry());
+
+        remoteIpFilter = new RemoteIpFilter();
+        remoteIpFilter.init(new MockFilterConfig());
+    }
+
+    @Test
+    void burstIsTheCapacityAndThenOneTokenPerInterval() {
+        RateLimitFilter.RouteLimit limit = new RateLimitFilter.RouteLimit("GET", "/api/books", 3, 1);
+        long start = 1_000 * SECOND;
+        AtomicLong bucket = new AtomicLong(start);
+
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, start)).isZero();
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, start)).isZero();
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, start)).isZero();
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, start)).isEqualTo(SECOND);
+        // Un rechazo no consume nada
+        assertThat(bucket.get()).isEqualTo(start + 3 * SECOND);
+
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, start + SECOND / 2)).isEqualTo(SECOND / 2);
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, start + SECOND)).isZero();
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, start + SECOND)).isEqualTo(SECOND);
+    }
+
+    @Test
+    void idleBucketRefillsOnlyUpToTheCapacity() {
+        RateLimitFilter.RouteLimit limit = new RateLimitFilter.RouteLimit("GET", "/api/books", 2, 4);
+        long start = 1_000 * SECOND;
+        AtomicLong bucket = new AtomicLong(start);
+        long later = start + 60 * SECOND;
+
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, later)).isZero();
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, later)).isZero();
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, later)).isEqualTo(SECOND / 4);
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, later + SECOND / 4)).isZero();
+    }
+
+    @Test
+    void fractionalRefillRates() {
+        // 2 fichas y una cada 20 s, como la exportación
+        RateLimitFilter.RouteLimit limit = new RateLimitFilter.RouteLimit("GET", "/api/books/export", 2, 0.05);
+        long start = 1_000 * SECOND;
+        AtomicLong bucket = new AtomicLong(start);
+
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, start)).isZero();
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, start)).isZero();
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, start)).isEqualTo(20 * SECOND);
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, start + 19 * SECOND)).isEqualTo(SECOND);
+        assertThat(RateLimitFilter.tryAcquire(limit, bucket, start + 20 * SECOND)).isZero();
+    }
+
+    @Test
+    void forwardedClientsBehindATrustedProxyGetSeparateBuckets() throws Exception {
+        assertThat(send(fromProxy("203.0.113.1")).getStatus()).isEqualTo(200);
+        assertThat(send(fromProxy("203.0.113.2")).getStatus()).isEqualTo(200);
+
+        MockHttpServletResponse rejected = send(fromProxy("203.0.113.1"));
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+    }
+
+    @Test
+    void forwardedHeaderFromAnUntrustedPeerIsIgnored() throws Exception {
+        MockHttpServletRequest first = get();
+        first.setRemoteAddr("198.51.100.7");
+        first.addHeader("X-Forwarded-For", "203.0.113.1");
+        MockHttpServletRequest second = get();
+        second.setRemoteAddr("198.51.100.7");
+        second.addHeader("X-Forwarded-For", "203.0.113.2");
+
+        assertThat(send(first).getStatus()).isEqualTo(200);
+        assertThat(send(second).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void unverifiedTokensCountForTheirAddress() throws Exception {
+        MockHttpServletRequest first = fromProxy("203.0.113.1");
+        first.addHeader(HttpHeaders.AUTHORIZATION, "Bearer invalid-1");
+        MockHttpServletRequest second = fromProxy("203.0.113.1");
+        second.addHeader(HttpHeaders.AUTHORIZATION, "Bearer invalid-2");
+
+        assertThat(send(first).getStatus()).isEqualTo(200);
+        assertThat(send(second).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void verifiedTokensGetOneBucketPerUser() throws Exception {
+        String alice = verifiedToken(1L, "alice@example.com");
+        String bob = verifiedToken(2L, "bob@example.com");
+
+        assertThat(send(withToken(alice, "203.0.113.1")).getStatus()).isEqualTo(200);
+        assertThat(send(withToken(bob, "203.0.113.1")).getStatus()).isEqualTo(200);
+        // El mismo usuario desde otra IP comparte su cubeta
+        assertThat(send(withToken(alice, "203.0.113.9")).getStatus()).isEqualTo(429);
+    }
+
+    @Test
+    void routesWithoutLimitPassThrough() throws Exception {
+        MockHttpServletRequest request = fromProxy("203.0.113.1");
+        request.setRequestURI("/api/books/count");
+
+        assertThat(send(request).getStatus()).isEqualTo(200);
+        assertThat(send(request).getStatus()).isEqualTo(200);
+    }
+
+    private String verifiedToken(Long id, String email) {
+        String token = tokenService.generateToken(new UserEntity(id, email, "secret"));
+        tokenService.getClaimsFromToken(token);
+        return token;
+    }
+
+    private static MockHttpServletRequest withToken(String token, String clientAddress) {
+        MockHttpServletRequest request = fromProxy(clientAddress);
+        request.addHeader(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+        return request;
+    }
+
+    // La petición llega desde un proxy local con la IP del cliente en X-Forwarded-For
+    private static MockHttpServletRequest fromProxy(String clientAddress) {
+        MockHttpServletRequest request = get();
+        request.setRemoteAddr("10.0.0.5");
+        request.addHeader("X-Forwarded-For", clientAddress);
+        return request;
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/api/books");
+    }
+
+    private MockHttpServletResponse send(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        new MockFilterChain(new OkServlet(), remoteIpFilter, filter).doFilter(request, response);
+        return response;
+    }
+
+    private static final class OkServlet extends HttpServlet {
+        @Override
+        protected void service(HttpServletRequest request, HttpServletResponse response) {
+            response.setStatus(200);
+        }
+    }
+}
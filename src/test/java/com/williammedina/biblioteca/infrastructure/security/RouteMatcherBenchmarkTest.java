@@ -0,0 +1,56 @@
+package com.williammedina.biblioteca.infrastructure.security;
+
+import com.williammedina.biblioteca.support.Benchmarks;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Comprobar si una petición es pública: el trie frente a la versión anterior, que armaba y compilaba
+// una expresión regular por ruta pública en cada petición, y frente a esas mismas expresiones ya compiladas
+@Tag("benchmark")
+class RouteMatcherBenchmarkTest {
+
+    private static final int URIS = 1024;
+
+    @Test
+    void trieIsFasterThanRegexes() {
+        List<PublicEndpoint> endpoints = SecurityConfigurations.PUBLIC_ENDPOINTS;
+        RouteMatcher<PublicEndpoint> trie = new RouteMatcher<>(endpoints, PublicEndpoint::url, endpoint -> endpoint.method().name());
+        List<RouteMatcherTest.RegexRoute> compiled = endpoints.stream()
+                .map(endpoint -> RouteMatcherTest.RegexRoute.of(endpoint.method().name(), endpoint.url()))
+                .toList();
+        List<String> patterns = endpoints.stream().map(PublicEndpoint::url).toList();
+
+        Random random = new Random(42);
+        String[] uris = new String[URIS];
+        for (int i = 0; i < URIS; i++) {
+            uris[i] = RouteMatcherTest.randomUri(random, patterns);
+        }
+
+        int[] next = new int[1];
+        Benchmarks.Result trieResult = Benchmarks.measure("trie", 200_000, 2_000_000,
+                () -> trie.matches(uris[next[0]++ & (URIS - 1)], "GET"));
+        Benchmarks.Result compiledResult = Benchmarks.measure("precompiled regexes", 20_000, 200_000,
+                () -> compiled.stream().anyMatch(route -> route.matches(uris[next[0]++ & (URIS - 1)], "GET")));
+        Benchmarks.Result perRequestResult = Benchmarks.measure("regexes built per request", 2_000, 20_000,
+                () -> matchesBuildingRegexes(endpoints, uris[next[0]++ & (URIS - 1)], "GET"));
+
+        assertThat(trieResult.bytesPerOp()).isLessThan(1);
+        assertThat(trieResult.nanosPerOp()).isLessThan(compiledResult.nanosPerOp());
+        assertThat(compiledResult.nanosPerOp()).isLessThan(perRequestResult.nanosPerOp());
+    }
+
+    // Lo que hacía SecurityFilter.isPublicUrl antes del trie
+    private static boolean matchesBuildingRegexes(List<PublicEndpoint> endpoints, String requestUri, String requestMethod) {
+        return endpoints.stream().anyMatch(endpoint -> {
+            String uriPattern = endpoint.url()
+                    .replaceAll("\\{[^/]+}", "[^/]+")
+                    .replace("**", ".*");
+            return requestUri.matches(uriPattern) && requestMethod.equals(endpoint.method().name());
+        });
+    }
+}
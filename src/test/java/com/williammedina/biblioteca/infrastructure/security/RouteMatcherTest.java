@@ -0,0 +1,213 @@
+package com.williammedina.biblioteca.infrastructure.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RouteMatcherTest {
+
+    private record Route(String method, String url) {
+    }
+
+    // Rutas con las mismas formas que las públicas y las de ratelimit.routes
+    private static final List<Route> ROUTES = List.of(
+            new Route("POST", "/api/auth/login"),
+            new Route("GET", "/api/books"),
+            new Route("GET", "/api/books/count"),
+            new Route("GET", "/api/books/{sortBy}"),
+            new Route("GET", "/api/books/search/{keyword}"),
+            new Route("GET", "/api/books/location/{shelf}/{section}"),
+            new Route("GET", "/api/covers/{size}/{filename}"),
+            new Route("GET", "/api/docs/swagger-ui/**"),
+            new Route("PUT", "/api/books/{isbn}"),
+            new Route("DELETE", "/api/**")
+    );
+
+    private static final RouteMatcher<Route> MATCHER = new RouteMatcher<>(ROUTES, Route::url, Route::method);
+
+    @Test
+    void matchesLiteralAndVariableSegments() {
+        assertThat(MATCHER.find("/api/books", "GET")).isEqualTo(route("GET", "/api/books"));
+        assertThat(MATCHER.find("/api/books/count", "GET")).isEqualTo(route("GET", "/api/books/count"));
+        assertThat(MATCHER.find("/api/books/title", "GET")).isEqualTo(route("GET", "/api/books/{sortBy}"));
+        assertThat(MATCHER.find("/api/books/location/A/3", "GET")).isEqualTo(route("GET", "/api/books/location/{shelf}/{section}"));
+        assertThat(MATCHER.find("/api/books/location/A", "GET")).isNull();
+        assertThat(MATCHER.find("/api/books/search/x/y", "GET")).isNull();
+        assertThat(MATCHER.find("/api/unknown", "GET")).isNull();
+    }
+
+    @Test
+    void variablesNeedANonEmptySegment() {
+        assertThat(MATCHER.find("/api/books/search/", "GET")).isNull();
+        assertThat(MATCHER.find("/api/covers//cover.jpg", "GET")).isNull();
+        assertThat(MATCHER.find("/api/covers/small/cover.jpg", "GET")).isEqualTo(route("GET", "/api/covers/{size}/{filename}"));
+    }
+
+    @Test
+    void trailingSlashIsADifferentRoute() {
+        assertThat(MATCHER.find("/api/books/", "GET")).isNull();
+        assertThat(MATCHER.find("/api/books/count/", "GET")).isNull();
+        assertThat(MATCHER.find("/api/auth/login/", "POST")).isNull();
+    }
+
+    @Test
+    void doubleWildcardMatchesAnyRemainderAfterTheSlash() {
+        Route swagger = route("GET", "/api/docs/swagger-ui/**");
+
+        assertThat(MATCHER.find("/api/docs/swagger-ui/", "GET")).isEqualTo(swagger);
+        assertThat(MATCHER.find("/api/docs/swagger-ui/index.html", "GET")).isEqualTo(swagger);
+        assertThat(MATCHER.find("/api/docs/swagger-ui/a/b/c", "GET")).isEqualTo(swagger);
+        assertThat(MATCHER.find("/api/docs/swagger-ui//", "GET")).isEqualTo(swagger);
+        assertThat(MATCHER.find("/api/docs/swagger-ui", "GET")).isNull();
+        assertThat(MATCHER.find("/api/docs/swagger-uix", "GET")).isNull();
+    }
+
+    @Test
+    void encodedSegmentsAreMatchedAsTheyArrive() {
+        // getRequestURI no decodifica: %2F no separa segmentos
+        assertThat(MATCHER.find("/api/books/search/a%2Fb", "GET")).isEqualTo(route("GET", "/api/books/search/{keyword}"));
+        assertThat(MATCHER.find("/api/books/search/caf%C3%A9", "GET")).isEqualTo(route("GET", "/api/books/search/{keyword}"));
+        assertThat(MATCHER.find("/api/books/co%75nt", "GET")).isEqualTo(route("GET", "/api/books/{sortBy}"));
+        assertThat(MATCHER.find("/api%2Fbooks", "GET")).isNull();
+    }
+
+    @Test
+    void methodMustMatch() {
+        assertThat(MATCHER.find("/api/auth/login", "GET")).isNull();
+        assertThat(MATCHER.find("/api/books", "POST")).isNull();
+        assertThat(MATCHER.find("/api/books", "get")).isNull();
+        assertThat(MATCHER.find("/api/books/978", "PUT")).isEqualTo(route("PUT", "/api/books/{isbn}"));
+        assertThat(MATCHER.find("/api/books/978", "DELETE")).isEqualTo(route("DELETE", "/api/**"));
+    }
+
+    @Test
+    void mostSpecificRouteWins() {
+        RouteMatcher<Route> matcher = new RouteMatcher<>(List.of(
+                new Route("GET", "/api/**"),
+                new Route("GET", "/api/books/{sortBy}"),
+                new Route("GET", "/api/books/search/{keyword}"),
+                new Route("GET", "/api/books/export")
+        ), Route::url, Route::method);
+
+        assertThat(matcher.find("/api/books/export", "GET").url()).isEqualTo("/api/books/export");
+        assertThat(matcher.find("/api/books/title", "GET").url()).isEqualTo("/api/books/{sortBy}");
+        assertThat(matcher.find("/api/books/search/java", "GET").url()).isEqualTo("/api/books/search/{keyword}");
+        // Un literal que no lleva a ninguna ruta cede ante la variable y, al final, ante "**"
+        assertThat(matcher.find("/api/books/search", "GET").url()).isEqualTo("/api/books/{sortBy}");
+        assertThat(matcher.find("/api/books/search/java/more", "GET").url()).isEqualTo("/api/**");
+        assertThat(matcher.find("/api", "GET")).isNull();
+    }
+
+    @Test
+    void rejectsUnsupportedPatterns() {
+        assertThatThrownBy(() -> new RouteMatcher<>(List.of(new Route("GET", "/api/**/books")), Route::url, Route::method))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RouteMatcher<>(List.of(new Route("GET", "/api/*.jpg")), Route::url, Route::method))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RouteMatcher<>(List.of(new Route("GET", "api/books")), Route::url, Route::method))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void rejectsRequestUrisWithoutLeadingSlash() {
+        assertThat(MATCHER.find("", "DELETE")).isNull();
+        assertThat(MATCHER.find("api/books", "DELETE")).isNull();
+    }
+
+    // Mismo resultado que la comprobación con expresiones regulares a la que reemplazó, sobre las
+    // rutas públicas reales y dos millones de URIs y métodos aleatorios
+    @Test
+    void agreesWithTheRegexCheckOnRandomUris() {
+        RouteMatcher<PublicEndpoint> trie = new RouteMatcher<>(SecurityConfigurations.PUBLIC_ENDPOINTS,
+                PublicEndpoint::url, endpoint -> endpoint.method().name());
+        List<RegexRoute> regex = SecurityConfigurations.PUBLIC_ENDPOINTS.stream()
+                .map(endpoint -> RegexRoute.of(endpoint.method().name(), endpoint.url()))
+                .toList();
+        List<String> patterns = SecurityConfigurations.PUBLIC_ENDPOINTS.stream().map(PublicEndpoint::url).toList();
+
+        Random random = new Random(20_260_101L);
+        int matched = 0;
+        for (int i = 0; i < 2_000_000; i++) {
+            String uri = randomUri(random, patterns);
+            String method = METHODS[random.nextInt(METHODS.length)];
+            boolean expected = regex.stream().anyMatch(route -> route.matches(uri, method));
+
+            assertThat(trie.matches(uri, method)).as("%s %s", method, uri).isEqualTo(expected);
+            if (expected) {
+                matched++;
+            }
+        }
+        // Que la muestra tenga tanto rutas que coinciden como rutas que no
+        assertThat(matched).isBetween(200_000, 1_800_000);
+    }
+
+    private static final String[] METHODS = {"GET", "GET", "GET", "POST", "PUT", "DELETE"};
+
+    private static final String[] SEGMENTS = {
+            "api", "api", "books", "books", "covers", "docs", "auth", "login", "count", "export", "random",
+            "location", "search", "isbn", "status", "swagger-ui", "swagger-config", "v3", "api-docs",
+            "9780306406157", "small", "cover.jpg", "index.html", "A", "a%2Fb", "caf%C3%A9", "%20", ".", "..", ""
+    };
+
+    // La mitad sale de una ruta real con sus variables rellenas y, a veces, un cambio (un segmento de
+    // más o de menos, una barra final); la otra mitad son segmentos al azar bajo /api
+    static String randomUri(Random random, List<String> patterns) {
+        List<String> segments = new ArrayList<>();
+        if (random.nextBoolean()) {
+            for (String part : patterns.get(random.nextInt(patterns.size())).substring(1).split("/")) {
+                boolean wildcard = part.equals("**") || (part.startsWith("{") && part.endsWith("}"));
+                segments.add(wildcard ? SEGMENTS[random.nextInt(SEGMENTS.length)] : part);
+            }
+            switch (random.nextInt(6)) {
+                case 0 -> segments.add(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+                case 1 -> segments.removeLast();
+                case 2 -> segments.set(random.nextInt(segments.size()), SEGMENTS[random.nextInt(SEGMENTS.length)]);
+                default -> { }
+            }
+        } else {
+            segments.add("api");
+            int count = random.nextInt(5);
+            for (int i = 0; i < count; i++) {
+                segments.add(SEGMENTS[random.nextInt(SEGMENTS.length)]);
+            }
+        }
+        String uri = "/" + String.join("/", segments);
+        return random.nextInt(8) == 0 ? uri + "/" : uri;
+    }
+
+    // La comprobación anterior: cada variable como [^/]+ y "**" como .*
+    record RegexRoute(String method, Pattern pattern) {
+
+        static RegexRoute of(String method, String url) {
+            StringBuilder regex = new StringBuilder();
+            for (String part : url.split("(?=/)")) {
+                String segment = part.substring(1);
+                regex.append('/');
+                if (segment.equals("**")) {
+                    regex.append(".*");
+                } else if (segment.startsWith("{") && segment.endsWith("}")) {
+                    regex.append("[^/]+");
+                } else {
+                    regex.append(Pattern.quote(segment));
+                }
+            }
+            return new RegexRoute(method, Pattern.compile(regex.toString()));
+        }
+
+        boolean matches(String uri, String requestMethod) {
+            return method.equals(requestMethod) && pattern.matcher(uri).matches();
+        }
+    }
+
+    private static Route route(String method, String url) {
+        Route route = new Route(method, url);
+        assertThat(ROUTES).contains(route);
+        return route;
+    }
+}
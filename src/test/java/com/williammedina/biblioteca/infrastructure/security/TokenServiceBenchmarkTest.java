@@ -0,0 +1,40 @@
+package com.williammedina.biblioteca.infrastructure.security;
+
+import com.auth0.jwt.interfaces.JWTVerifier;
+import com.williammedina.biblioteca.domain.user.entity.UserEntity;
+import com.williammedina.biblioteca.support.Benchmarks;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Coste de resolver un token ya verificado (SHA-256 del token y búsqueda en la caché) frente a
+// verificar la firma HMAC. Medido a mano: JMH no está disponible en el build
+@Tag("benchmark")
+class TokenServiceBenchmarkTest {
+
+    @Test
+    void cachedTokenIsMuchCheaperThanVerifyingIt() throws Exception {
+        TokenService tokenService = new TokenService();
+        ReflectionTestUtils.setField(tokenService, "jwtSecret", "benchmark");
+        ReflectionTestUtils.setField(tokenService, "verifiedCacheSize", 10_000);
+        tokenService.initialize();
+        JWTVerifier verifier = (JWTVerifier) ReflectionTestUtils.getField(tokenService, "verifier");
+
+        String token = tokenService.generateToken(new UserEntity(42L, "reader@example.com", "secret"));
+        assertThat(tokenService.getClaimsFromToken(token).id()).isEqualTo(42L);
+
+        byte[] tokenBytes = token.getBytes(StandardCharsets.US_ASCII);
+
+        // Cada token se vuelve a crear, como llega en cada petición
+        Benchmarks.Result hit = Benchmarks.measure("cached token", 100_000, 1_000_000,
+                () -> tokenService.getClaimsFromToken(new String(tokenBytes, StandardCharsets.US_ASCII)));
+        Benchmarks.Result verify = Benchmarks.measure("hmac verification", 20_000, 200_000,
+                () -> verifier.verify(token));
+
+        assertThat(hit.nanosPerOp() * 5).isLessThan(verify.nanosPerOp());
+    }
+}
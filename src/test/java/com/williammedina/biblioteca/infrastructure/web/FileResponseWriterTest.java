@@ -0,0 +1,185 @@
+package com.williammedina.biblioteca.infrastructure.web;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class FileResponseWriterTest {
+
+    private static final String CONTENT = "0123456789abcdefghij";
+
+    private final FileResponseWriter writer = new FileResponseWriter();
+
+    @TempDir
+    Path directory;
+
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        file = Files.writeString(directory.resolve("cover.jpg"), CONTENT);
+    }
+
+    @Test
+    void withoutRangeSendsTheWholeFileWithValidators() throws Exception {
+        MockHttpServletResponse response = write(get());
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length());
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isNotBlank();
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isEqualTo("bytes");
+    }
+
+    @Test
+    void matchingEtagAnswersNotModified() throws Exception {
+        String etag = write(get()).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, etag);
+        MockHttpServletResponse response = write(request);
+
+        assertThat(response.getStatus()).isEqualTo(304);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void singleRangeIsPartialContent() throws Exception {
+        assertPartial("bytes=2-5", "2345", "bytes 2-5/20");
+        assertPartial("bytes=15-", "fghij", "bytes 15-19/20");
+        assertPartial("bytes=-3", "hij", "bytes 17-19/20");
+        // Un final más allá del archivo se recorta al último byte
+        assertPartial("bytes=18-100", "ij", "bytes 18-19/20");
+    }
+
+    @Test
+    void ifRangeWithCurrentValidatorKeepsTheRange() throws Exception {
+        String etag = write(get()).getHeader(HttpHeaders.ETAG);
+
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        request.addHeader(HttpHeaders.IF_RANGE, etag);
+        MockHttpServletResponse response = write(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("0123");
+    }
+
+    @Test
+    void ifRangeWithOldValidatorSendsTheWholeFile() throws Exception {
+        MockHttpServletRequest withOldEtag = get();
+        withOldEtag.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        withOldEtag.addHeader(HttpHeaders.IF_RANGE, "\"old\"");
+
+        MockHttpServletRequest withOldDate = get();
+        withOldDate.addHeader(HttpHeaders.RANGE, "bytes=0-3");
+        withOldDate.addHeader(HttpHeaders.IF_RANGE, "Tue, 01 Jan 2019 00:00:00 GMT");
+
+        for (MockHttpServletRequest request : new MockHttpServletRequest[] {withOldEtag, withOldDate}) {
+            MockHttpServletResponse response = write(request);
+            assertThat(response.getStatus()).isEqualTo(200);
+            assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void multipleRangesSendTheWholeFile() throws Exception {
+        MockHttpServletResponse response = write(withRange("bytes=0-1,5-6"));
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).isNull();
+        assertThat(response.getContentAsString()).isEqualTo(CONTENT);
+    }
+
+    @Test
+    void malformedRangeIsIgnored() throws Exception {
+        for (String range : new String[] {"bytes=abc", "items=0-5", "bytes=5-2", "bytes"}) {
+            MockHttpServletResponse response = write(withRange(range));
+
+            assertThat(response.getStatus()).as(range).isEqualTo(200);
+            assertThat(response.getContentAsString()).as(range).isEqualTo(CONTENT);
+        }
+    }
+
+    @Test
+    void unsatisfiableRangeIsRejected() throws Exception {
+        for (String range : new String[] {"bytes=20-", "bytes=100-200", "bytes=-0"}) {
+            MockHttpServletResponse response = write(withRange(range));
+
+            assertThat(response.getStatus()).as(range).isEqualTo(416);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).as(range).isEqualTo("bytes */20");
+            assertThat(response.getContentAsByteArray()).as(range).isEmpty();
+        }
+    }
+
+    @Test
+    void headSendsHeadersWithoutBody() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("HEAD", "/api/covers/cover.jpg");
+        MockHttpServletResponse response = write(request);
+
+        assertThat(response.getStatus()).isEqualTo(200);
+        assertThat(response.getContentLengthLong()).isEqualTo(CONTENT.length());
+        assertThat(response.getContentAsByteArray()).isEmpty();
+    }
+
+    @Test
+    void sendfileHandsTheRangeToTheContainer() throws Exception {
+        MockHttpServletRequest request = withRange("bytes=4-7");
+        request.setAttribute("org.apache.tomcat.sendfile.support", Boolean.TRUE);
+        MockHttpServletResponse response = write(request);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsByteArray()).isEmpty();
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.filename")).isEqualTo(file.toAbsolutePath().toString());
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.start")).isEqualTo(4L);
+        assertThat(request.getAttribute("org.apache.tomcat.sendfile.end")).isEqualTo(8L);
+    }
+
+    @Test
+    void inMemoryContentFollowsTheSameRules() throws Exception {
+        MockHttpServletRequest request = withRange("bytes=10-12");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write("cover.jpg", ByteBuffer.wrap(CONTENT.getBytes(StandardCharsets.UTF_8)), 1_700_000_000_000L,
+                MediaType.IMAGE_JPEG, CacheControl.noCache(), request, response);
+
+        assertThat(response.getStatus()).isEqualTo(206);
+        assertThat(response.getContentAsString()).isEqualTo("abc");
+    }
+
+    private void assertPartial(String range, String body, String contentRange) throws Exception {
+        MockHttpServletResponse response = write(withRange(range));
+
+        assertThat(response.getStatus()).as(range).isEqualTo(206);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_RANGE)).as(range).isEqualTo(contentRange);
+        assertThat(response.getContentLengthLong()).as(range).isEqualTo(body.length());
+        assertThat(response.getContentAsString()).as(range).isEqualTo(body);
+    }
+
+    private MockHttpServletResponse write(MockHttpServletRequest request) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        writer.write(file, "cover.jpg", MediaType.IMAGE_JPEG, CacheControl.noCache(), request, response);
+        return response;
+    }
+
+    private static MockHttpServletRequest get() {
+        return new MockHttpServletRequest("GET", "/api/covers/cover.jpg");
+    }
+
+    private static MockHttpServletRequest withRange(String range) {
+        MockHttpServletRequest request = get();
+        request.addHeader(HttpHeaders.RANGE, range);
+        return request;
+    }
+}
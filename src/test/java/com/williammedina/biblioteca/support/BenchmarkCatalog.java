@@ -0,0 +1,50 @@
+package com.williammedina.biblioteca.support;
+
+import com.williammedina.biblioteca.domain.book.dto.BookImportReportDTO;
+import com.williammedina.biblioteca.domain.book.service.BookService;
+import com.williammedina.biblioteca.domain.book.service.importer.BookImportFormat;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+// Catálogo sintético para los benchmarks contra MySQL (solo corren si hay DB_URL; usar una base de pruebas).
+// Los ISBN de 13 dígitos que empiezan por 100 no existen en la realidad, así que se pueden borrar al terminar.
+public final class BenchmarkCatalog {
+
+    public static final long FIRST_ISBN = 1_000_000_000_000L;
+
+    // Mismo límite por petición que books.import.max-rows
+    private static final int IMPORT_CHUNK = 10_000;
+
+    private BenchmarkCatalog() {}
+
+    public static String ndjson(long firstIsbn, int count) {
+        StringBuilder ndjson = new StringBuilder(count * 128);
+        for (int i = 0; i < count; i++) {
+            ndjson.append("{\"isbn\":").append(firstIsbn + i)
+                    .append(",\"title\":\"Benchmark title ").append(i)
+                    .append("\",\"author\":\"Author ").append(i % 997)
+                    .append("\",\"publisher\":\"Publisher ").append(i % 101)
+                    .append("\",\"publication_year\":\"").append(1900 + i % 125)
+                    .append("\"}\n");
+        }
+        return ndjson.toString();
+    }
+
+    public static void seed(BookService bookService, long firstIsbn, int count) throws IOException {
+        for (int offset = 0; offset < count; offset += IMPORT_CHUNK) {
+            int chunk = Math.min(IMPORT_CHUNK, count - offset);
+            byte[] body = ndjson(firstIsbn + offset, chunk).getBytes(StandardCharsets.UTF_8);
+            BookImportReportDTO report = bookService.importBooks(BookImportFormat.NDJSON, new ByteArrayInputStream(body));
+            if (report.imported() != chunk) {
+                throw new IllegalStateException("Seeding rejected rows: " + report.rejected());
+            }
+        }
+    }
+
+    public static void delete(JdbcTemplate jdbcTemplate, long firstIsbn, int count) {
+        jdbcTemplate.update("DELETE FROM books WHERE isbn BETWEEN ? AND ?", firstIsbn, firstIsbn + count - 1);
+    }
+}
@@ -0,0 +1,53 @@
+package com.williammedina.biblioteca.support;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Supplier;
+
+// Medición simple para los tests con @Tag("benchmark"), que Maven excluye por defecto
+// (ver la propiedad excludedGroups del pom).
+// Reporta tiempo y bytes asignados por operación en el hilo actual, después de un calentamiento.
+public final class Benchmarks {
+
+    public record Result(String name, double nanosPerOp, double bytesPerOp) {
+
+        public double millisPerOp() {
+            return nanosPerOp / 1_000_000.0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-48s %12.1f us/op %14.0f B/op", name, nanosPerOp / 1_000.0, bytesPerOp);
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    // El resultado de cada operación se acumula aquí para que el JIT no la elimine
+    private static volatile int sink;
+
+    private Benchmarks() {}
+
+    public static Result measure(String name, int warmupIterations, int iterations, Supplier<?> operation) {
+        for (int i = 0; i < warmupIterations; i++) {
+            consume(operation.get());
+        }
+
+        long threadId = Thread.currentThread().threadId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            consume(operation.get());
+        }
+        long elapsed = System.nanoTime() - start;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+
+        Result result = new Result(name, (double) elapsed / iterations, (double) allocated / iterations);
+        System.out.println(result);
+        return result;
+    }
+
+    private static void consume(Object value) {
+        sink += System.identityHashCode(value);
+    }
+}